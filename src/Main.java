@@ -1,5 +1,6 @@
 import crypto.wallet.manager.api.Api;
 import crypto.wallet.manager.server.CryptoWalletManagerServer;
+import crypto.wallet.manager.server.ServerConfiguration;
 
 import java.io.IOException;
 import java.net.http.HttpClient;
@@ -7,7 +8,8 @@ import java.net.http.HttpClient;
 public class Main {
     public static void main(String[] args) {
         try {
-            CryptoWalletManagerServer cryptoWalletManagerServer = CryptoWalletManagerServer.getInstance();
+            CryptoWalletManagerServer cryptoWalletManagerServer = CryptoWalletManagerServer.getInstance(
+                    ServerConfiguration.fromSystemProperties());
             Api api = new Api(HttpClient.newBuilder().build());
             cryptoWalletManagerServer.start(api);
         } catch (IOException e) {
@@ -2,31 +2,55 @@ package crypto.wallet.manager.account;
 
 import crypto.wallet.manager.crypto.CryptoCoin;
 import crypto.wallet.manager.database.CryptoCoinsDatabase;
+import crypto.wallet.manager.database.PriceSnapshot;
 import crypto.wallet.manager.exceptions.InsufficientBalanceException;
 import crypto.wallet.manager.exceptions.InvalidCryptoCoinException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import crypto.wallet.manager.money.FixedPoint;
 
-import java.util.Collections;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
-
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A user's wallet. Commands of different connections may run on different threads, so every read and
+ * change of the balance and holdings happens under the account's own lock. Prices are looked up before
+ * taking it, so a slow price refresh never holds up an account.
+ * <p>
+ * Every change bumps the account's version. The rendered wallet summaries are cached together with the
+ * account version and the {@link PriceSnapshot#version() price version} they were rendered at,
+ * so a client polling them gets the cached text until one of the two changes.
+ */
 public class Account implements BaseAccount {
+    private static final long serialVersionUID = 1L;
 
     public static final double FRESH_ACCOUNT_BALANCE = 0.0;
 
     private final String username;
     private final String password;
-    private double amountAvailable;
-
-    // offeringCode, amountOfCoin, priceBoughtAt
-    private final Map<String, Map<Double, Double>> cryptoCoins;
+    // FixedPoint units
+    private long amountAvailable;
+    private long realizedProfitLoss;
+
+    // offeringCode, purchases of that coin
+    private final HashMap<String, LotLedger> cryptoCoins;
+    private final ReentrantLock lock;
+    // bumped under the lock before every change, read without it to check the cached summaries
+    private transient volatile long version;
+    private transient volatile RenderedSummary walletInformationCache;
+    private transient volatile RenderedSummary walletInvestmentInformationCache;
+
+    private record RenderedSummary(long accountVersion, long priceVersion, String text) {
+    }
 
     public Account(String username, String password) {
         this.username = username;
         this.password = hashPassword(password);
         this.cryptoCoins = new HashMap<>();
-        this.amountAvailable = FRESH_ACCOUNT_BALANCE;
+        this.amountAvailable = FixedPoint.fromDouble(FRESH_ACCOUNT_BALANCE);
+        this.lock = new ReentrantLock();
     }
 
     @Override
@@ -35,25 +59,51 @@ public class Account implements BaseAccount {
             throw new IllegalArgumentException("password cannot be null");
         }
 
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
-        return encoder.matches(password, this.password);
+        return PasswordHashingService.getInstance().matches(password, this.password);
     }
 
+    /**
+     * @param amount {@link FixedPoint} units
+     */
     @Override
-    public void deposit(double amount) throws IllegalArgumentException {
+    public void deposit(long amount) throws IllegalArgumentException {
         if (!isAmountValid(amount)) {
             throw new IllegalArgumentException("amount cannot be a negative number or 0");
         }
 
-        amountAvailable += amount;
+        lockForUpdate();
+        try {
+            depositUnits(amount);
+        } finally {
+            lock.unlock();
+        }
     }
 
-    private Map<Double, Double> getOrCreateCryptoCoinEntry(String offeringCode) {
-        return cryptoCoins.computeIfAbsent(offeringCode, k -> new HashMap<>());
+    /**
+     * Takes the lock for a change of the balance or holdings, which outdates the cached summaries.
+     */
+    private void lockForUpdate() {
+        lock.lock();
+        version++;
     }
 
+    private void depositUnits(long amount) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("amount cannot be a negative number or 0");
+        }
+
+        amountAvailable = Math.addExact(amountAvailable, amount);
+    }
+
+    private LotLedger getOrCreateCryptoCoinEntry(String offeringCode) {
+        return cryptoCoins.computeIfAbsent(offeringCode, k -> new LotLedger());
+    }
+
+    /**
+     * @param amount {@link FixedPoint} units
+     */
     @Override
-    public void buyCryptoCoin(double amount, String offeringCode, CryptoCoinsDatabase cryptoCoinsDatabase)
+    public void buyCryptoCoin(long amount, String offeringCode, CryptoCoinsDatabase cryptoCoinsDatabase)
             throws InvalidCryptoCoinException, InsufficientBalanceException {
         if (!isAmountValid(amount)) {
             throw new IllegalArgumentException("Amount cannot be a negative number or 0");
@@ -66,14 +116,23 @@ public class Account implements BaseAccount {
         CryptoCoin cryptoCoin = cryptoCoinsDatabase.findCryptoCoinByOfferingCode(offeringCode)
                 .orElseThrow(() -> new InvalidCryptoCoinException("Crypto coin not found: " + offeringCode));
 
-        double cost = amount * cryptoCoin.priceUSD();
+        lockForUpdate();
+        try {
+            buyUnits(amount, cryptoCoin);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void buyUnits(long amount, CryptoCoin cryptoCoin) throws InsufficientBalanceException {
+        long cost = FixedPoint.multiply(amount, cryptoCoin.priceUnits());
 
         if (cost > amountAvailable) {
             throw new InsufficientBalanceException("Not enough available amount to pay for the transaction.");
         }
 
-        Map<Double, Double> cryptoCoinEntry = getOrCreateCryptoCoinEntry(offeringCode);
-        cryptoCoinEntry.put(amount, cryptoCoin.priceUSD());
+        LotLedger cryptoCoinEntry = getOrCreateCryptoCoinEntry(cryptoCoin.offeringCode());
+        cryptoCoinEntry.addLot(amount, cryptoCoin.priceUnits(), System.currentTimeMillis());
         amountAvailable -= cost;
     }
 
@@ -88,22 +147,278 @@ public class Account implements BaseAccount {
                 .orElseThrow(() -> new InvalidCryptoCoinException(
                         "Crypto coin with offering code not found: " + offeringCode));
 
-        Map<Double, Double> cryptoCoinEntry = getOrCreateCryptoCoinEntry(offeringCode);
-        double amountOfCoin = calculateTotalAmountOfCoins(cryptoCoinEntry.keySet());
-        cryptoCoins.remove(offeringCode);
-        deposit(cryptoCoin.priceUSD() * amountOfCoin);
+        lockForUpdate();
+        try {
+            sellAll(cryptoCoin);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void sellAll(CryptoCoin cryptoCoin) {
+        LotLedger cryptoCoinEntry = getOrCreateCryptoCoinEntry(cryptoCoin.offeringCode());
+        long proceeds = FixedPoint.multiply(cryptoCoinEntry.getTotalAmount(), cryptoCoin.priceUnits());
+        cryptoCoins.remove(cryptoCoin.offeringCode());
+        depositUnits(proceeds);
+        realizedProfitLoss += proceeds - cryptoCoinEntry.getTotalCost();
+    }
+
+    /**
+     * @param amount {@link FixedPoint} units
+     */
+    @Override
+    public SellResult sellCryptoCoin(String offeringCode, long amount, CostBasisMethod method,
+                                     CryptoCoinsDatabase cryptoCoinsDatabase)
+            throws InvalidCryptoCoinException, InsufficientBalanceException {
+        if (!isAmountValid(amount)) {
+            throw new IllegalArgumentException("Amount cannot be a negative number or 0");
+        }
+
+        if (offeringCode == null || method == null) {
+            throw new IllegalArgumentException("Offering code and method cannot be null");
+        }
+
+        CryptoCoin cryptoCoin = cryptoCoinsDatabase.findCryptoCoinByOfferingCode(offeringCode)
+                .orElseThrow(() -> new InvalidCryptoCoinException(
+                        "Crypto coin with offering code not found: " + offeringCode));
+
+        lockForUpdate();
+        try {
+            return sellUnits(amount, method, cryptoCoin);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private SellResult sellUnits(long amount, CostBasisMethod method, CryptoCoin cryptoCoin)
+            throws InsufficientBalanceException {
+        String offeringCode = cryptoCoin.offeringCode();
+        LotLedger cryptoCoinEntry = cryptoCoins.get(offeringCode);
+        if (cryptoCoinEntry == null || amount > cryptoCoinEntry.getTotalAmount()) {
+            throw new InsufficientBalanceException("Not enough coins in the wallet to sell: " + offeringCode);
+        }
+
+        long costBasis = cryptoCoinEntry.removeCoins(amount, method);
+        if (cryptoCoinEntry.isEmpty()) {
+            cryptoCoins.remove(offeringCode);
+        }
+
+        long proceeds = FixedPoint.multiply(amount, cryptoCoin.priceUnits());
+        SellResult result = new SellResult(offeringCode, amount, proceeds, costBasis);
+        amountAvailable = Math.addExact(amountAvailable, proceeds);
+        realizedProfitLoss += result.realizedProfitLoss();
+        return result;
+    }
+
+    /**
+     * Applies the operations in order, all priced from {@code prices}, or none of them: if one fails, the
+     * balance and holdings are put back the way they were and its exception is thrown.
+     *
+     * @param prices the coins by offering code, taken at one moment so that every operation sees the same prices
+     */
+    public void executeAtomically(List<AccountOperation> operations, Map<String, CryptoCoin> prices)
+            throws InvalidCryptoCoinException, InsufficientBalanceException {
+        if (operations == null || prices == null) {
+            throw new IllegalArgumentException("operations and prices cannot be null");
+        }
+
+        lockForUpdate();
+        try {
+            long amountAvailableBefore = amountAvailable;
+            long realizedProfitLossBefore = realizedProfitLoss;
+            // the ledgers as they were before the transaction touched them, null for coins that were not held
+            Map<String, LotLedger> cryptoCoinsBefore = new HashMap<>();
+
+            try {
+                for (AccountOperation operation : operations) {
+                    String offeringCode = operation.offeringCode();
+                    if (offeringCode != null && !cryptoCoinsBefore.containsKey(offeringCode)) {
+                        LotLedger lots = cryptoCoins.get(offeringCode);
+                        cryptoCoinsBefore.put(offeringCode, lots == null ? null : lots.copy());
+                    }
+
+                    apply(operation, prices);
+                }
+            } catch (InvalidCryptoCoinException | InsufficientBalanceException | RuntimeException e) {
+                amountAvailable = amountAvailableBefore;
+                realizedProfitLoss = realizedProfitLossBefore;
+                cryptoCoinsBefore.forEach((offeringCode, lots) -> {
+                    if (lots == null) {
+                        cryptoCoins.remove(offeringCode);
+                    } else {
+                        cryptoCoins.put(offeringCode, lots);
+                    }
+                });
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void apply(AccountOperation operation, Map<String, CryptoCoin> prices)
+            throws InvalidCryptoCoinException, InsufficientBalanceException {
+        switch (operation) {
+            case AccountOperation.Deposit deposit -> {
+                if (!isAmountValid(deposit.amount())) {
+                    throw new IllegalArgumentException("amount cannot be a negative number or 0");
+                }
+
+                depositUnits(deposit.amount());
+            }
+            case AccountOperation.Buy buy -> {
+                if (!isAmountValid(buy.amount())) {
+                    throw new IllegalArgumentException("Amount cannot be a negative number or 0");
+                }
+
+                buyUnits(buy.amount(), findCryptoCoin(buy.offeringCode(), prices));
+            }
+            case AccountOperation.Sell sell -> {
+                if (!isAmountValid(sell.amount())) {
+                    throw new IllegalArgumentException("Amount cannot be a negative number or 0");
+                }
+
+                sellUnits(sell.amount(), sell.method(), findCryptoCoin(sell.offeringCode(), prices));
+            }
+            case AccountOperation.SellAll sellAll -> sellAll(findCryptoCoin(sellAll.offeringCode(), prices));
+        }
+    }
+
+    private static CryptoCoin findCryptoCoin(String offeringCode, Map<String, CryptoCoin> prices)
+            throws InvalidCryptoCoinException {
+        CryptoCoin cryptoCoin = prices.get(offeringCode);
+        if (cryptoCoin == null) {
+            throw new InvalidCryptoCoinException("Crypto coin not found: " + offeringCode);
+        }
+
+        return cryptoCoin;
+    }
+
+    /**
+     * Takes money off the balance for an exchange buy order, to be paid out by {@link #settleBuy} or given
+     * back by {@link #releaseFunds} if the order is cancelled.
+     *
+     * @param amount {@link FixedPoint} units
+     */
+    public void reserveFunds(long amount) throws InsufficientBalanceException {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("amount cannot be a negative number or 0");
+        }
+
+        lockForUpdate();
+        try {
+            if (amount > amountAvailable) {
+                throw new InsufficientBalanceException("Not enough available amount to pay for the order.");
+            }
+
+            amountAvailable -= amount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void releaseFunds(long amount) {
+        lockForUpdate();
+        try {
+            depositUnits(amount);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes coins out of the wallet for an exchange sell order, the oldest purchases first.
+     *
+     * @return the cost basis of the reserved coins, realized by {@link #settleSell} as the order fills
+     */
+    public long reserveCoins(String offeringCode, long amount) throws InsufficientBalanceException {
+        if (offeringCode == null || amount <= 0) {
+            throw new IllegalArgumentException("offeringCode cannot be null and amount must be positive");
+        }
+
+        lockForUpdate();
+        try {
+            LotLedger cryptoCoinEntry = cryptoCoins.get(offeringCode);
+            if (cryptoCoinEntry == null || amount > cryptoCoinEntry.getTotalAmount()) {
+                throw new InsufficientBalanceException("Not enough coins in the wallet to sell: " + offeringCode);
+            }
+
+            long costBasis = cryptoCoinEntry.removeCoins(amount, CostBasisMethod.FIFO);
+            if (cryptoCoinEntry.isEmpty()) {
+                cryptoCoins.remove(offeringCode);
+            }
+
+            return costBasis;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts back the coins of a cancelled sell order as one lot priced at their cost basis.
+     */
+    public void releaseCoins(String offeringCode, long amount, long costBasis) {
+        lockForUpdate();
+        try {
+            getOrCreateCryptoCoinEntry(offeringCode)
+                    .addLot(amount, FixedPoint.divide(costBasis, amount), System.currentTimeMillis());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Pays out the coins of an exchange buy fill. The money was reserved at the order's limit price,
+     * so whatever the fill price saved is returned to the balance.
+     *
+     * @param refund the part of the reserved money the fill did not need
+     */
+    public void settleBuy(String offeringCode, long amount, long price, long refund) {
+        lockForUpdate();
+        try {
+            getOrCreateCryptoCoinEntry(offeringCode).addLot(amount, price, System.currentTimeMillis());
+            amountAvailable = Math.addExact(amountAvailable, refund);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Pays out the money of an exchange sell fill.
+     *
+     * @param costBasis the cost basis of the sold coins, taken by {@link #reserveCoins}
+     */
+    public void settleSell(long proceeds, long costBasis) {
+        lockForUpdate();
+        try {
+            amountAvailable = Math.addExact(amountAvailable, proceeds);
+            realizedProfitLoss += proceeds - costBasis;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public String walletInformation() {
-        StringBuilder result = new StringBuilder(
-                String.format("Amount available: %.2f\nCurrent investments:\n", amountAvailable));
+        RenderedSummary cached = walletInformationCache;
+        if (cached != null && cached.accountVersion() == version) {
+            return cached.text();
+        }
 
-        cryptoCoins.forEach((offeringCode, coinAmount) ->
-                result.append(String.format(
-                        "%s - %.2f coins\n", offeringCode, calculateTotalAmountOfCoins(coinAmount.keySet()))));
+        lock.lock();
+        try {
+            StringBuilder result = new StringBuilder(
+                    String.format("Amount available: %.2f\nCurrent investments:\n", getAmountAvailable()));
 
-        return result.toString();
+            cryptoCoins.forEach((offeringCode, lots) -> result.append(
+                    String.format("%s - %.2f coins\n", offeringCode, FixedPoint.toDouble(lots.getTotalAmount()))));
+
+            String text = result.toString();
+            walletInformationCache = new RenderedSummary(version, 0, text);
+            return text;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
@@ -113,31 +428,44 @@ public class Account implements BaseAccount {
             throw new IllegalArgumentException("CryptoCoinsDatabase cannot be null");
         }
 
-        Map<String, String> investmentData = calculateInvestmentData(cryptoCoinsDatabase);
+        // every coin is priced from the same refresh, whose version the text is cached with
+        PriceSnapshot prices = cryptoCoinsDatabase.getPriceSnapshot();
+        RenderedSummary cached = walletInvestmentInformationCache;
+        if (cached != null && cached.accountVersion() == version && cached.priceVersion() == prices.version()) {
+            return cached.text();
+        }
+
+        Map<String, String> investmentData;
+        long accountVersion;
 
-        if (investmentData.isEmpty()) {
-            return "Currently there aren't any investments.";
+        lock.lock();
+        try {
+            investmentData = calculateInvestmentData(prices);
+            accountVersion = version;
+        } finally {
+            lock.unlock();
         }
 
-        return formatInvestmentData(investmentData);
+        String text = investmentData.isEmpty()
+                ? "Currently there aren't any investments." : formatInvestmentData(investmentData);
+        walletInvestmentInformationCache = new RenderedSummary(accountVersion, prices.version(), text);
+        return text;
     }
 
-    private Map<String, String> calculateInvestmentData(CryptoCoinsDatabase cryptoCoinsDatabase)
-            throws InvalidCryptoCoinException {
+    private Map<String, String> calculateInvestmentData(PriceSnapshot prices) throws InvalidCryptoCoinException {
         Map<String, String> investmentData = new HashMap<>();
 
         for (var entry : cryptoCoins.entrySet()) {
             String offeringCode = entry.getKey();
-            CryptoCoin cryptoCoin = cryptoCoinsDatabase.findCryptoCoinByOfferingCode(offeringCode)
+            CryptoCoin cryptoCoin = prices.find(offeringCode)
                     .orElseThrow(() -> new InvalidCryptoCoinException("Crypto coin not found: " + offeringCode));
 
-            Map<Double, Double> coinAmountData = entry.getValue();
-            double amountInvested = calculateTotalInvestment(coinAmountData);
-            double amountOfCoin = calculateTotalAmountOfCoins(coinAmountData.keySet());
-            double priceMargin = amountOfCoin * cryptoCoin.priceUSD() - amountInvested;
+            LotLedger lots = entry.getValue();
+            long currentValue = FixedPoint.multiply(lots.getTotalAmount(), cryptoCoin.priceUnits());
+            long priceMargin = currentValue - lots.getTotalCost();
 
             String coinInformation = String.format("%s - %s%.2f\n",
-                    offeringCode, (priceMargin >= FRESH_ACCOUNT_BALANCE) ? "+" : "", priceMargin);
+                    offeringCode, (priceMargin >= 0) ? "+" : "", FixedPoint.toDouble(priceMargin));
 
             investmentData.put(offeringCode, coinInformation);
         }
@@ -166,19 +494,8 @@ public class Account implements BaseAccount {
         return username.hashCode();
     }
 
-    private double calculateTotalAmountOfCoins(Set<Double> cryptoCoinAmount) {
-        return cryptoCoinAmount.stream().mapToDouble(Double::doubleValue).sum();
-    }
-
-    private double calculateTotalInvestment(Map<Double, Double> cryptoCoinInvestmentData) {
-        return cryptoCoinInvestmentData.entrySet().stream()
-                .mapToDouble(entry -> entry.getKey() * entry.getValue())
-                .sum();
-    }
-
     private String hashPassword(String password) {
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
-        return encoder.encode(password);
+        return PasswordHashingService.getInstance().hash(password);
     }
 
     public String getUsername() {
@@ -186,14 +503,59 @@ public class Account implements BaseAccount {
     }
 
     public double getAmountAvailable() {
-        return amountAvailable;
+        return FixedPoint.toDouble(getAmountAvailableUnits());
+    }
+
+    /**
+     * @return the balance as {@link FixedPoint} units
+     */
+    public long getAmountAvailableUnits() {
+        lock.lock();
+        try {
+            return amountAvailable;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the profit or loss of every sell so far, measured against the cost basis of the sold coins
+     */
+    public double getRealizedProfitLoss() {
+        lock.lock();
+        try {
+            return FixedPoint.toDouble(realizedProfitLoss);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the coins held right now; the ledgers are the account's own, so they change with later commands
+     */
+    public Map<String, LotLedger> getCryptoCoins() {
+        lock.lock();
+        try {
+            return Map.copyOf(cryptoCoins);
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public Map<String, Map<Double, Double>> getCryptoCoins() {
-        return Collections.unmodifiableMap(cryptoCoins);
+    /**
+     * @param amount {@link FixedPoint} units
+     */
+    public boolean isAmountValid(long amount) {
+        return amount > 0;
     }
 
-    public boolean isAmountValid(double amount) {
-        return amount > FRESH_ACCOUNT_BALANCE;
+    // the accounts file is written while commands keep running, so it must not see a half-applied command
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        lock.lock();
+        try {
+            out.defaultWriteObject();
+        } finally {
+            lock.unlock();
+        }
     }
 }
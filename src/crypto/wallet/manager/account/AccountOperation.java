@@ -0,0 +1,32 @@
+package crypto.wallet.manager.account;
+
+import crypto.wallet.manager.money.FixedPoint;
+
+/**
+ * One change to an account, as a step of a transaction applied by {@link Account#executeAtomically}.
+ * Amounts are {@link FixedPoint} units.
+ */
+public sealed interface AccountOperation {
+
+    /**
+     * @return the coin the operation trades, or null if it only moves money
+     */
+    String offeringCode();
+
+    record Deposit(long amount) implements AccountOperation {
+
+        @Override
+        public String offeringCode() {
+            return null;
+        }
+    }
+
+    record Buy(String offeringCode, long amount) implements AccountOperation {
+    }
+
+    record Sell(String offeringCode, long amount, CostBasisMethod method) implements AccountOperation {
+    }
+
+    record SellAll(String offeringCode) implements AccountOperation {
+    }
+}
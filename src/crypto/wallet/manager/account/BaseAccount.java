@@ -3,21 +3,29 @@ package crypto.wallet.manager.account;
 import crypto.wallet.manager.database.CryptoCoinsDatabase;
 import crypto.wallet.manager.exceptions.InsufficientBalanceException;
 import crypto.wallet.manager.exceptions.InvalidCryptoCoinException;
+import crypto.wallet.manager.money.FixedPoint;
 
 import java.io.Serializable;
 
+/**
+ * Amounts of money and coins are {@link FixedPoint} units.
+ */
 public interface BaseAccount extends Serializable {
 
     boolean passwordMatch(String password);
 
-    void deposit(double amount);
+    void deposit(long amount);
 
-    void buyCryptoCoin(double amount, String offeringCode, CryptoCoinsDatabase cryptoCoinsDatabase)
+    void buyCryptoCoin(long amount, String offeringCode, CryptoCoinsDatabase cryptoCoinsDatabase)
             throws InvalidCryptoCoinException, InsufficientBalanceException;
 
     void sellCryptoCoin(String offeringCode, CryptoCoinsDatabase cryptoCoinsDatabase)
             throws InvalidCryptoCoinException;
 
+    SellResult sellCryptoCoin(String offeringCode, long amount, CostBasisMethod method,
+                              CryptoCoinsDatabase cryptoCoinsDatabase)
+            throws InvalidCryptoCoinException, InsufficientBalanceException;
+
     String walletInformation();
 
     String walletInvestmentInformation(CryptoCoinsDatabase cryptoCoinsDatabase)
@@ -0,0 +1,32 @@
+package crypto.wallet.manager.account;
+
+import java.util.Optional;
+
+/**
+ * Decides which lots a partial sell consumes, and so the cost basis its profit is measured against.
+ */
+public enum CostBasisMethod {
+    FIFO,
+    LIFO,
+    AVG;
+
+    private static final String OPTION_PREFIX = "--method=";
+
+    /**
+     * @param option a command option such as {@code --method=lifo}
+     */
+    public static Optional<CostBasisMethod> fromOption(String option) {
+        if (option == null || !option.startsWith(OPTION_PREFIX)) {
+            return Optional.empty();
+        }
+
+        String name = option.substring(OPTION_PREFIX.length());
+        for (CostBasisMethod method : values()) {
+            if (method.name().equalsIgnoreCase(name)) {
+                return Optional.of(method);
+            }
+        }
+
+        return Optional.empty();
+    }
+}
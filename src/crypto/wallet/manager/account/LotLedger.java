@@ -0,0 +1,177 @@
+package crypto.wallet.manager.account;
+
+import crypto.wallet.manager.money.FixedPoint;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The purchases (lots) of one coin, stored column by column in growable primitive arrays.
+ * Amounts and prices are {@link FixedPoint} units.
+ * The lots that are still held occupy the slots from {@code head} to {@code tail}, oldest first, so sells
+ * consume them from either end like a deque and never walk the lots that stay untouched.
+ * Running totals of the amount and the cost basis are kept up to date on every change,
+ * so summaries of a holding never have to walk its lots.
+ */
+public class LotLedger implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private long[] amounts;
+    private long[] prices;
+    private long[] timestamps;
+    private int head;
+    private int tail;
+    private long totalAmount;
+    private long totalCost;
+
+    public LotLedger() {
+        this.amounts = new long[INITIAL_CAPACITY];
+        this.prices = new long[INITIAL_CAPACITY];
+        this.timestamps = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * @return an independent ledger holding the same lots
+     */
+    LotLedger copy() {
+        LotLedger copy = new LotLedger();
+        copy.amounts = Arrays.copyOfRange(amounts, head, Math.max(tail, head + INITIAL_CAPACITY));
+        copy.prices = Arrays.copyOfRange(prices, head, Math.max(tail, head + INITIAL_CAPACITY));
+        copy.timestamps = Arrays.copyOfRange(timestamps, head, Math.max(tail, head + INITIAL_CAPACITY));
+        copy.tail = tail - head;
+        copy.totalAmount = totalAmount;
+        copy.totalCost = totalCost;
+        return copy;
+    }
+
+    void addLot(long amount, long price, long timestampMillis) {
+        if (amount <= 0 || price < 0) {
+            throw new IllegalArgumentException("amount must be positive and price cannot be negative");
+        }
+
+        if (tail == amounts.length) {
+            makeRoom();
+        }
+
+        amounts[tail] = amount;
+        prices[tail] = price;
+        timestamps[tail] = timestampMillis;
+        tail++;
+        totalAmount += amount;
+        totalCost += FixedPoint.multiply(amount, price);
+    }
+
+    /**
+     * Removes {@code amount} coins, taking whole lots from the end the method sells first and
+     * splitting the last lot it touches, so selling k lots costs O(k). An average cost sell takes its coins
+     * from the oldest lots but is priced at the average of the whole holding, from the running totals, so
+     * it leaves that average and the prices of the remaining lots as they were. The sell that empties the
+     * ledger takes whatever cost basis is left.
+     *
+     * @return the cost basis of the removed coins
+     */
+    long removeCoins(long amount, CostBasisMethod method) {
+        if (amount <= 0 || amount > totalAmount) {
+            throw new IllegalArgumentException("amount must be positive and cannot exceed the amount held");
+        }
+
+        if (amount == totalAmount) {
+            long costBasis = totalCost;
+            head = 0;
+            tail = 0;
+            totalAmount = 0;
+            totalCost = 0;
+            return costBasis;
+        }
+
+        long lotsCost = takeCoins(amount, method == CostBasisMethod.LIFO);
+        // after average cost sells the lots no longer add up to the running total, and no sell takes more than it
+        long costBasis = (method == CostBasisMethod.AVG)
+                ? FixedPoint.multiplyDivide(totalCost, amount, totalAmount) : Math.min(lotsCost, totalCost);
+
+        totalAmount -= amount;
+        totalCost -= costBasis;
+        return costBasis;
+    }
+
+    public int getLotCount() {
+        return tail - head;
+    }
+
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    /**
+     * @param lot the position of the lot among the ones still held, 0 being the oldest
+     */
+    public long getAmount(int lot) {
+        return amounts[checkLot(lot)];
+    }
+
+    public long getPrice(int lot) {
+        return prices[checkLot(lot)];
+    }
+
+    public long getTimestampMillis(int lot) {
+        return timestamps[checkLot(lot)];
+    }
+
+    public long getTotalAmount() {
+        return totalAmount;
+    }
+
+    /**
+     * @return how much was paid for the coins that are still held
+     */
+    public long getTotalCost() {
+        return totalCost;
+    }
+
+    private int checkLot(int lot) {
+        if (lot < 0 || lot >= getLotCount()) {
+            throw new IndexOutOfBoundsException("Lot " + lot + " does not exist, there are " + getLotCount() + " lots");
+        }
+
+        return head + lot;
+    }
+
+    /**
+     * @return what the taken coins cost at the prices of their lots
+     */
+    private long takeCoins(long amount, boolean newestFirst) {
+        long remaining = amount;
+        long lotsCost = 0;
+
+        while (remaining > 0) {
+            int lot = newestFirst ? tail - 1 : head;
+            long taken = Math.min(remaining, amounts[lot]);
+            lotsCost += FixedPoint.multiply(taken, prices[lot]);
+            remaining -= taken;
+            amounts[lot] -= taken;
+
+            if (amounts[lot] == 0) {
+                if (newestFirst) {
+                    tail--;
+                } else {
+                    head++;
+                }
+            }
+        }
+
+        return lotsCost;
+    }
+
+    private void makeRoom() {
+        int lotCount = getLotCount();
+
+        // reuse the slots freed by FIFO sells before growing
+        int capacity = (head > 0 && lotCount < amounts.length / 2) ? amounts.length : amounts.length * 2;
+        amounts = Arrays.copyOfRange(amounts, head, head + capacity);
+        prices = Arrays.copyOfRange(prices, head, head + capacity);
+        timestamps = Arrays.copyOfRange(timestamps, head, head + capacity);
+        head = 0;
+        tail = lotCount;
+    }
+}
@@ -0,0 +1,36 @@
+package crypto.wallet.manager.account;
+
+public record PasswordHashingConfiguration(int threads, int queueCapacity, int cost) {
+    public static final String THREADS_PROPERTY = "wallet.hashing.threads";
+    public static final String QUEUE_CAPACITY_PROPERTY = "wallet.hashing.queue";
+    public static final String COST_PROPERTY = "wallet.hashing.cost";
+
+    // the range accepted by BCrypt, every step doubles the hashing time
+    private static final int MIN_COST = 4;
+    private static final int MAX_COST = 31;
+
+    private static final int DEFAULT_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int DEFAULT_QUEUE_CAPACITY = 256;
+    private static final int DEFAULT_COST = 10;
+
+    public PasswordHashingConfiguration {
+        if (threads <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("threads and queueCapacity must be positive numbers");
+        }
+
+        if (cost < MIN_COST || cost > MAX_COST) {
+            throw new IllegalArgumentException("cost must be between " + MIN_COST + " and " + MAX_COST);
+        }
+    }
+
+    public static PasswordHashingConfiguration defaultConfiguration() {
+        return new PasswordHashingConfiguration(DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY, DEFAULT_COST);
+    }
+
+    public static PasswordHashingConfiguration fromSystemProperties() {
+        return new PasswordHashingConfiguration(
+                Integer.getInteger(THREADS_PROPERTY, DEFAULT_THREADS),
+                Integer.getInteger(QUEUE_CAPACITY_PROPERTY, DEFAULT_QUEUE_CAPACITY),
+                Integer.getInteger(COST_PROPERTY, DEFAULT_COST));
+    }
+}
@@ -0,0 +1,31 @@
+package crypto.wallet.manager.account;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A snapshot of the work done by the {@link PasswordHashingService}.
+ *
+ * @param queueDepth       tasks waiting for a hashing thread
+ * @param activeTasks      tasks being executed right now
+ * @param rejectedTasks    tasks refused because the queue was full
+ * @param hashOperations   passwords hashed or verified
+ * @param averageHashNanos average time of one hash or verification
+ * @param maxHashNanos     longest time of one hash or verification
+ */
+public record PasswordHashingMetrics(int queueDepth, int activeTasks, long rejectedTasks,
+                                     long hashOperations, long averageHashNanos, long maxHashNanos) {
+
+    /**
+     * @return true if nothing was hashed, refused or waiting since {@code previous} was taken
+     */
+    public boolean isIdleSince(PasswordHashingMetrics previous) {
+        return previous != null && queueDepth == 0 && activeTasks == 0
+                && hashOperations == previous.hashOperations && rejectedTasks == previous.rejectedTasks;
+    }
+
+    public String describe() {
+        return String.format("queue depth %d, active tasks %d, rejected tasks %d, hashes %d, average %d ms, max %d ms",
+                queueDepth, activeTasks, rejectedTasks, hashOperations,
+                TimeUnit.NANOSECONDS.toMillis(averageHashNanos), TimeUnit.NANOSECONDS.toMillis(maxHashNanos));
+    }
+}
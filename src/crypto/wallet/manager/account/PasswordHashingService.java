@@ -0,0 +1,134 @@
+package crypto.wallet.manager.account;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Owns all BCrypt work. Passwords are hashed with one shared encoder of the configured cost, and the
+ * commands that hash are run on a small pool of their own with a bounded queue, so hashing cannot take
+ * over the threads that serve everything else. When the queue is full, tasks are refused right away.
+ */
+public class PasswordHashingService {
+    private static volatile PasswordHashingService instance;
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor hashingThreads;
+    private final LongAdder hashOperations;
+    private final LongAdder hashNanos;
+    private final LongAccumulator maxHashNanos;
+    private final LongAdder rejectedTasks;
+
+    private PasswordHashingService(PasswordHashingConfiguration configuration) {
+        this.encoder = new BCryptPasswordEncoder(configuration.cost());
+        this.hashingThreads = new ThreadPoolExecutor(configuration.threads(), configuration.threads(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(configuration.queueCapacity()),
+                newThreadFactory());
+        this.hashOperations = new LongAdder();
+        this.hashNanos = new LongAdder();
+        this.maxHashNanos = new LongAccumulator(Math::max, 0);
+        this.rejectedTasks = new LongAdder();
+    }
+
+    public static PasswordHashingService getInstance() {
+        return getInstance(PasswordHashingConfiguration.defaultConfiguration());
+    }
+
+    /**
+     * The configuration is only used by the call that creates the service.
+     */
+    public static PasswordHashingService getInstance(PasswordHashingConfiguration configuration) {
+        if (instance == null) {
+            synchronized (PasswordHashingService.class) {
+                if (instance == null) {
+                    instance = new PasswordHashingService(configuration);
+                }
+            }
+        }
+
+        return instance;
+    }
+
+    public String hash(String password) {
+        long start = System.nanoTime();
+        try {
+            return encoder.encode(password);
+        } finally {
+            recordHashing(start);
+        }
+    }
+
+    /**
+     * Hashes made with another cost are still verified, since BCrypt keeps the cost inside the hash.
+     */
+    public boolean matches(String password, String hash) {
+        long start = System.nanoTime();
+        try {
+            return encoder.matches(password, hash);
+        } finally {
+            recordHashing(start);
+        }
+    }
+
+    /**
+     * Runs a task that hashes on the hashing threads.
+     *
+     * @return a future that fails with {@link RejectedExecutionException} if the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            hashingThreads.execute(() -> {
+                try {
+                    result.complete(task.call());
+                } catch (Exception e) {
+                    result.completeExceptionally(new CompletionException(e));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedTasks.increment();
+            result.completeExceptionally(e);
+        }
+
+        return result;
+    }
+
+    public int getQueueDepth() {
+        return hashingThreads.getQueue().size();
+    }
+
+    public PasswordHashingMetrics getMetrics() {
+        long operations = hashOperations.sum();
+        return new PasswordHashingMetrics(getQueueDepth(), hashingThreads.getActiveCount(), rejectedTasks.sum(),
+                operations, operations == 0 ? 0 : hashNanos.sum() / operations, maxHashNanos.get());
+    }
+
+    private void recordHashing(long startNanos) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        hashOperations.increment();
+        hashNanos.add(elapsedNanos);
+        maxHashNanos.accumulate(elapsedNanos);
+    }
+
+    /**
+     * Daemon threads, so an idle pool never keeps the server process alive.
+     */
+    private static ThreadFactory newThreadFactory() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package crypto.wallet.manager.account;
+
+import crypto.wallet.manager.money.FixedPoint;
+
+/**
+ * @param amount    the sold coins as {@link FixedPoint} units
+ * @param proceeds  what the coins were sold for as {@link FixedPoint} units
+ * @param costBasis what the coins were bought for as {@link FixedPoint} units
+ */
+public record SellResult(String offeringCode, long amount, long proceeds, long costBasis) {
+
+    public long realizedProfitLoss() {
+        return proceeds - costBasis;
+    }
+
+    public double realizedProfitLossUSD() {
+        return FixedPoint.toDouble(realizedProfitLoss());
+    }
+}
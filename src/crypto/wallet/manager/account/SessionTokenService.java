@@ -0,0 +1,187 @@
+package crypto.wallet.manager.account;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issues the session tokens that let a client resume its session after reconnecting without sending
+ * its password again, which saves a full BCrypt check per reconnect.
+ * <p>
+ * A token is {@code base64(random id | expiry) "." base64(HMAC-SHA256)}, it tells nothing about the user.
+ * The signature is checked first, so forged tokens are refused without touching any shared state. Issued
+ * tokens are kept in a cache that maps their id to the user until they expire, which makes them revocable.
+ * The signing key lives only in memory, so a restart of the server revokes all tokens.
+ */
+public class SessionTokenService {
+    public static final String TTL_PROPERTY = "wallet.sessions.ttl";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int KEY_SIZE = 32;
+    private static final int ID_SIZE = 16;
+    private static final char SIGNATURE_SEPARATOR = '.';
+    private static final long DEFAULT_TTL_SECONDS = TimeUnit.DAYS.toSeconds(1);
+
+    private final SecretKeySpec signingKey;
+    private final ThreadLocal<Mac> macs;
+    private final SecureRandom random;
+    private final long ttlMillis;
+    private final Map<String, Session> sessionsById;
+    // every token lives for the same time, so the order they were issued in is the order they expire in
+    private final Queue<IssuedSession> sessionsByExpiry;
+
+    private record Session(String username, long expiresAtMillis) {
+        boolean isExpired(long nowMillis) {
+            return nowMillis >= expiresAtMillis;
+        }
+    }
+
+    private record IssuedSession(String id, long expiresAtMillis) {
+    }
+
+    public SessionTokenService(long ttlMillis) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("ttlMillis must be a positive number");
+        }
+
+        this.random = new SecureRandom();
+        byte[] key = new byte[KEY_SIZE];
+        random.nextBytes(key);
+        this.signingKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        this.ttlMillis = ttlMillis;
+        this.sessionsById = new ConcurrentHashMap<>();
+        this.sessionsByExpiry = new ArrayDeque<>();
+    }
+
+    public static SessionTokenService fromSystemProperties() {
+        return new SessionTokenService(TimeUnit.SECONDS.toMillis(Long.getLong(TTL_PROPERTY, DEFAULT_TTL_SECONDS)));
+    }
+
+    /**
+     * Issues a token and forgets the sessions that have expired since the last one was issued, so the cache
+     * holds no more sessions than were issued within the TTL. Each session is forgotten once, so that costs
+     * O(1) per token on average.
+     */
+    public String issue(String username) {
+        long now = System.currentTimeMillis();
+        byte[] id = new byte[ID_SIZE];
+        random.nextBytes(id);
+        long expiresAtMillis = now + ttlMillis;
+        byte[] payload = ByteBuffer.allocate(ID_SIZE + Long.BYTES)
+                .put(id)
+                .putLong(expiresAtMillis)
+                .array();
+
+        String sessionId = encode(id);
+        synchronized (sessionsByExpiry) {
+            removeExpiredSessions(now);
+            sessionsByExpiry.add(new IssuedSession(sessionId, expiresAtMillis));
+            sessionsById.put(sessionId, new Session(username, expiresAtMillis));
+        }
+
+        return encode(payload) + SIGNATURE_SEPARATOR + encode(macs.get().doFinal(payload));
+    }
+
+    /**
+     * @return the username the token was issued for, if the token is genuine, not expired and not revoked
+     */
+    public Optional<String> validate(String token) {
+        return findSessionId(token)
+                .flatMap(id -> {
+                    Session session = sessionsById.get(id);
+                    if (session == null || session.isExpired(System.currentTimeMillis())) {
+                        return Optional.empty();
+                    }
+
+                    return Optional.of(session.username());
+                });
+    }
+
+    /**
+     * Uses up the token. Only the first of any number of concurrent callers gets the username, so a token
+     * can be used once at most.
+     *
+     * @return the username the token was issued for, if the token is genuine, not expired and not used yet
+     */
+    public Optional<String> consume(String token) {
+        return findSessionId(token)
+                .map(sessionsById::remove)
+                .filter(session -> !session.isExpired(System.currentTimeMillis()))
+                .map(Session::username);
+    }
+
+    public void revoke(String token) {
+        findSessionId(token).ifPresent(sessionsById::remove);
+    }
+
+    public void revokeAll(String username) {
+        sessionsById.values().removeIf(session -> session.username().equals(username));
+    }
+
+    private void removeExpiredSessions(long nowMillis) {
+        IssuedSession oldest;
+        while ((oldest = sessionsByExpiry.peek()) != null && nowMillis >= oldest.expiresAtMillis()) {
+            sessionsByExpiry.poll();
+            sessionsById.remove(oldest.id());
+        }
+    }
+
+    /**
+     * @return the id of the session if the signature of the token is valid
+     */
+    private Optional<String> findSessionId(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+
+        int separator = token.indexOf(SIGNATURE_SEPARATOR);
+        if (separator < 0) {
+            return Optional.empty();
+        }
+
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(token.substring(0, separator));
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(separator + 1));
+            if (payload.length != ID_SIZE + Long.BYTES
+                    || !MessageDigest.isEqual(macs.get().doFinal(payload), signature)) {
+                return Optional.empty();
+            }
+
+            ByteBuffer fields = ByteBuffer.wrap(payload);
+            byte[] id = new byte[ID_SIZE];
+            fields.get(id);
+            if (fields.getLong() <= System.currentTimeMillis()) {
+                return Optional.empty();
+            }
+
+            return Optional.of(encode(id));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -2,28 +2,40 @@ package crypto.wallet.manager.commands;
 
 import crypto.wallet.manager.exceptions.ParseException;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
-import java.util.List;
+import java.util.Objects;
 
-public record Command(CommandType type, String[] arguments) {
+/**
+ * @param typedArguments the arguments as typed values, if the client sent them so, otherwise null
+ */
+public record Command(CommandType type, String[] arguments, TypedArguments typedArguments) {
     static final int REQUIRED_ARGUMENTS_FOR_LOGIN_REGISTER_BUY_CRYPTO = 2;
     static final int REQUIRED_ARGUMENTS_FOR_DEPOSIT_CRYPTO = 1;
     static final int REQUIRED_ARGUMENTS_FOR_SELLING_CRYPTO = 1;
+    static final int MAX_ARGUMENTS_FOR_SELLING_CRYPTO = 3;
+    static final int REQUIRED_ARGUMENTS_FOR_RESUME = 1;
+    static final int REQUIRED_ARGUMENTS_FOR_ORDER = 3;
+    static final int REQUIRED_ARGUMENTS_FOR_CANCEL = 2;
+    static final int REQUIRED_ARGUMENTS_FOR_SEARCH = 1;
+    static final int REQUIRED_ARGUMENTS_FOR_TOP = 1;
+    static final int MAX_ARGUMENTS_FOR_TOP = 2;
+    static final int MAX_ARGUMENTS_FOR_LIST_CRYPTOS = 3;
+    static final int REQUIRED_ARGUMENTS_FOR_HISTORY = 1;
+    static final int MAX_ARGUMENTS_FOR_HISTORY = 2;
+
+    public Command(CommandType type, String[] arguments) {
+        this(type, arguments, null);
+    }
 
     public static Command newCommand(String clientInput) {
         if (clientInput == null) {
             throw new ParseException("clientInput cannot be null");
         }
 
-        List<String> tokens = Arrays.asList(clientInput.split(" "));
-
-        if (tokens.isEmpty()) {
-            throw new ParseException("Invalid command format");
-        }
-
-        String[] args = tokens.size() > 1 ? tokens.subList(1, tokens.size()).toArray(new String[0]) : null;
-        CommandType type = CommandType.fromString(tokens.getFirst());
-        return new Command(type, args);
+        byte[] bytes = clientInput.getBytes(StandardCharsets.UTF_8);
+        return new CommandParser().parse(ByteBuffer.wrap(bytes), 0, bytes.length);
     }
 
     @Override
@@ -34,13 +46,15 @@ public record Command(CommandType type, String[] arguments) {
         Command command1 = (Command) o;
 
         if (type != command1.type) return false;
-        return Arrays.equals(arguments, command1.arguments);
+        if (!Arrays.equals(arguments, command1.arguments)) return false;
+        return Objects.equals(typedArguments, command1.typedArguments);
     }
 
     @Override
     public int hashCode() {
         int result = type.hashCode();
         result = 31 * result + Arrays.hashCode(arguments);
+        result = 31 * result + Objects.hashCode(typedArguments);
         return result;
     }
 }
@@ -1,32 +1,78 @@
 package crypto.wallet.manager.commands;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
 public enum CommandErrorMessageType {
-    ACCOUNT_EXISTS("Account already exists"),
-    ALREADY_LOGGED_IN("You are already logged in."),
-    ALREADY_LOGGED_IN_REGISTER_MESSAGE("Cannot make a new account while already logged in."),
-    CRYPTO_COIN_DOES_NOT_EXIST("No crypto coin exists with this id."),
-    CRYPTO_COIN_STORAGE_PROBLEM_LOG_MESSAGE("There is a problem with the crypto coin storage of user "),
-    DISCONNECTED("disconnected"),
-    INSUFFICIENT_AMOUNT("Not enough balance in your wallet."),
-    INVALID_FORMAT_AMOUNT("Invalid format for the amount of money."),
-    INVALID_INPUT_ARGUMENTS("Invalid command"),
-    INVALID_LOGIN("Wrong username or password."),
-    LOGIN_SUCCESSFUL("Login successful"),
-    MUST_LOGIN("Log in first or create a new account if you don't have one."),
-    NEGATIVE_AMOUNT("Amount cannot be negative."),
-    PROBLEM_WHILE_LOGGING_IN("A problem occurred while trying to log in. Try again."),
-    REGISTER_SUCCESSFUL("Register successful"),
-    SERVER_SIDE_ERROR("An error occurred on the server. Try again later."),
-    SUCCESSFUL_OPERATION("Transaction completed"),
-    UNKNOWN_COMMAND_MESSAGE("Unknown command");
+    ACCOUNT_EXISTS(1, "Account already exists"),
+    ALREADY_LOGGED_IN(2, "You are already logged in."),
+    ALREADY_LOGGED_IN_REGISTER_MESSAGE(3, "Cannot make a new account while already logged in."),
+    COMMAND_TOO_LONG(4, "Command is too long."),
+    CRYPTO_COIN_DOES_NOT_EXIST(5, "No crypto coin exists with this id."),
+    CRYPTO_COIN_STORAGE_PROBLEM_LOG_MESSAGE(6, "There is a problem with the crypto coin storage of user "),
+    DISCONNECTED(7, "disconnected"),
+    INPUT_READING_PROBLEM(8, "There was a problem with reading your input. Try again."),
+    INSUFFICIENT_AMOUNT(9, "Not enough balance in your wallet."),
+    INVALID_FORMAT_AMOUNT(10, "Invalid format for the amount of money."),
+    INVALID_INPUT_ARGUMENTS(11, "Invalid command"),
+    INVALID_LOGIN(12, "Wrong username or password."),
+    INVALID_SESSION_TOKEN(23, "The session token is invalid or has expired. Log in again."),
+    LOGIN_SUCCESSFUL(13, "Login successful"),
+    MUST_LOGIN(14, "Log in first or create a new account if you don't have one."),
+    NEGATIVE_AMOUNT(15, "Amount cannot be negative."),
+    NO_SEARCH_RESULTS(29, "No crypto coin matches your search."),
+    NO_SUCH_PAGE(30, "There is no page with this number."),
+    ORDER_CANCELLED(27, "Order cancelled"),
+    ORDER_NOT_FOUND(28, "You have no resting order with this id."),
+    ORDER_PLACED(26, "Order placed"),
+    PROBLEM_WHILE_LOGGING_IN(16, "A problem occurred while trying to log in. Try again."),
+    REGISTER_SUCCESSFUL(17, "Register successful"),
+    SERVER_BUSY(21, "Server is busy. Try again later."),
+    SERVER_SIDE_ERROR(18, "An error occurred on the server. Try again later."),
+    SESSION_RESUMED(24, "Session resumed"),
+    SUBSCRIBED(22, "Subscribed to price updates"),
+    SUCCESSFUL_OPERATION(19, "Transaction completed"),
+    TRANSACTION_ABORTED(25, "Transaction aborted, nothing was applied."),
+    UNKNOWN_COMMAND_MESSAGE(20, "Unknown command");
+
+    private static final Map<String, CommandErrorMessageType> BY_MESSAGE = new HashMap<>();
 
+    static {
+        for (CommandErrorMessageType type : values()) {
+            BY_MESSAGE.put(type.message, type);
+        }
+    }
+
+    // identifies the message in the binary protocol, it must never change once assigned
+    private final int code;
     private final String message;
+    private final ByteBuffer encodedMessage;
 
-    CommandErrorMessageType(String message) {
+    CommandErrorMessageType(int code, String message) {
+        this.code = code;
         this.message = message;
+        this.encodedMessage = ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
     }
 
     public String getMessage() {
         return message;
     }
+
+    /**
+     * @return the message encoded as UTF-8 once, as a read-only view that can be written right away
+     */
+    public ByteBuffer getEncodedMessage() {
+        return encodedMessage.duplicate();
+    }
+
+    public byte getCode() {
+        return (byte) code;
+    }
+
+    public static Optional<CommandErrorMessageType> fromMessage(String message) {
+        return Optional.ofNullable(BY_MESSAGE.get(message));
+    }
 }
\ No newline at end of file
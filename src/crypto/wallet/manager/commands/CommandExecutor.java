@@ -1,6 +1,13 @@
 package crypto.wallet.manager.commands;
 
 import crypto.wallet.manager.account.Account;
+import crypto.wallet.manager.account.AccountOperation;
+import crypto.wallet.manager.account.CostBasisMethod;
+import crypto.wallet.manager.account.PasswordHashingService;
+import crypto.wallet.manager.account.SellResult;
+import crypto.wallet.manager.account.SessionTokenService;
+import crypto.wallet.manager.crypto.CryptoCoin;
+import crypto.wallet.manager.database.CoinSortOrder;
 import crypto.wallet.manager.database.CryptoCoinsDatabase;
 import crypto.wallet.manager.database.UserAccountsDatabase;
 import crypto.wallet.manager.exceptions.AccountAlreadyExistsException;
@@ -8,12 +15,38 @@ import crypto.wallet.manager.exceptions.AccountDoesNotExistException;
 import crypto.wallet.manager.exceptions.AccountIsAlreadyLoggedInException;
 import crypto.wallet.manager.exceptions.InsufficientBalanceException;
 import crypto.wallet.manager.exceptions.InvalidCryptoCoinException;
+import crypto.wallet.manager.exceptions.ParseException;
+import crypto.wallet.manager.exchange.MatchingEngine;
+import crypto.wallet.manager.exchange.OrderResult;
+import crypto.wallet.manager.exchange.Side;
+import crypto.wallet.manager.history.PriceHistories;
+import crypto.wallet.manager.money.FixedPoint;
+import crypto.wallet.manager.orders.OrderType;
+import crypto.wallet.manager.orders.RestingOrder;
+import crypto.wallet.manager.orders.RestingOrders;
+import crypto.wallet.manager.subscription.PriceSubscriptions;
 
 import java.nio.channels.SelectionKey;
-
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static crypto.wallet.manager.commands.Command.MAX_ARGUMENTS_FOR_HISTORY;
+import static crypto.wallet.manager.commands.Command.MAX_ARGUMENTS_FOR_LIST_CRYPTOS;
+import static crypto.wallet.manager.commands.Command.MAX_ARGUMENTS_FOR_SELLING_CRYPTO;
+import static crypto.wallet.manager.commands.Command.MAX_ARGUMENTS_FOR_TOP;
+import static crypto.wallet.manager.commands.Command.REQUIRED_ARGUMENTS_FOR_CANCEL;
 import static crypto.wallet.manager.commands.Command.REQUIRED_ARGUMENTS_FOR_DEPOSIT_CRYPTO;
+import static crypto.wallet.manager.commands.Command.REQUIRED_ARGUMENTS_FOR_HISTORY;
 import static crypto.wallet.manager.commands.Command.REQUIRED_ARGUMENTS_FOR_LOGIN_REGISTER_BUY_CRYPTO;
+import static crypto.wallet.manager.commands.Command.REQUIRED_ARGUMENTS_FOR_ORDER;
+import static crypto.wallet.manager.commands.Command.REQUIRED_ARGUMENTS_FOR_RESUME;
+import static crypto.wallet.manager.commands.Command.REQUIRED_ARGUMENTS_FOR_SEARCH;
 import static crypto.wallet.manager.commands.Command.REQUIRED_ARGUMENTS_FOR_SELLING_CRYPTO;
+import static crypto.wallet.manager.commands.Command.REQUIRED_ARGUMENTS_FOR_TOP;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.ACCOUNT_EXISTS;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.ALREADY_LOGGED_IN;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.ALREADY_LOGGED_IN_REGISTER_MESSAGE;
@@ -23,24 +56,58 @@ import static crypto.wallet.manager.commands.CommandErrorMessageType.INSUFFICIEN
 import static crypto.wallet.manager.commands.CommandErrorMessageType.INVALID_FORMAT_AMOUNT;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.INVALID_INPUT_ARGUMENTS;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.INVALID_LOGIN;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.INVALID_SESSION_TOKEN;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.LOGIN_SUCCESSFUL;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.MUST_LOGIN;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.NEGATIVE_AMOUNT;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.NO_SEARCH_RESULTS;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.NO_SUCH_PAGE;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.ORDER_CANCELLED;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.ORDER_NOT_FOUND;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.ORDER_PLACED;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.PROBLEM_WHILE_LOGGING_IN;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.REGISTER_SUCCESSFUL;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.SERVER_SIDE_ERROR;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.SESSION_RESUMED;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.SUBSCRIBED;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.SUCCESSFUL_OPERATION;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.TRANSACTION_ABORTED;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.UNKNOWN_COMMAND_MESSAGE;
 import static crypto.wallet.manager.commands.CommandType.SHUTDOWN;
 
 public class CommandExecutor {
+    private static final String MULTI_END = "exec";
+    private static final String OPERATION_SEPARATOR = ";";
+    private static final String TOP_ORDER_OPTION = "--by=";
+    private static final String PAGE_OPTION = "--page=";
+    private static final String PAGE_SIZE_OPTION = "--size=";
+    private static final String SORT_OPTION = "--sort=";
+    private static final String POINTS_OPTION = "--points=";
+    // keeps search and top responses small however large the coin universe is
+    private static final int MAX_LISTED_COINS = 50;
+
     private static CommandExecutor instance;
     private final UserAccountsDatabase accounts;
     private final CryptoCoinsDatabase cryptoCoinsDatabase;
+    private final PriceSubscriptions priceSubscriptions;
+    private final RestingOrders restingOrders;
+    private final PriceHistories priceHistories;
+    private final MatchingEngine exchange;
+    private final PasswordHashingService passwordHashingService;
+    private final SessionTokenService sessionTokens;
 
     private CommandExecutor(UserAccountsDatabase accounts, CryptoCoinsDatabase cryptoCoinsDatabase) {
         this.accounts = accounts;
         this.cryptoCoinsDatabase = cryptoCoinsDatabase;
+        this.priceSubscriptions = new PriceSubscriptions();
+        cryptoCoinsDatabase.addPriceUpdateListener(priceSubscriptions);
+        this.restingOrders = new RestingOrders(cryptoCoinsDatabase);
+        cryptoCoinsDatabase.addPriceUpdateListener(restingOrders);
+        this.priceHistories = new PriceHistories();
+        cryptoCoinsDatabase.addPriceUpdateListener(priceHistories);
+        this.exchange = new MatchingEngine();
+        this.passwordHashingService = PasswordHashingService.getInstance();
+        this.sessionTokens = SessionTokenService.fromSystemProperties();
     }
 
     public static CommandExecutor getInstance(UserAccountsDatabase accounts, CryptoCoinsDatabase cryptoCoinsDatabase) {
@@ -54,36 +121,73 @@ public class CommandExecutor {
     public String execute(Command command, SelectionKey key) {
         return switch (command.type()) {
             case LOGIN -> login(command.arguments(), key);
+            case RESUME -> resume(command.arguments(), key);
             case REGISTER -> register(command.arguments(), key);
-            case DEPOSIT -> deposit(command.arguments(), key);
-            case LIST_CRYPTOS -> listCryptos(key);
-            case BUY_CRYPTO -> buyCrypto(command.arguments(), key);
-            case SELL_CRYPTO -> sellCrypto(command.arguments(), key);
+            case DEPOSIT -> deposit(command, key);
+            case LIST_CRYPTOS -> listCryptos(command, key);
+            case SEARCH -> search(command.arguments(), key);
+            case TOP -> top(command, key);
+            case HISTORY -> history(command, key);
+            case BUY_CRYPTO -> buyCrypto(command, key);
+            case SELL_CRYPTO -> sellCrypto(command, key);
             case WALLET_INFORMATION -> getWalletInformation(key);
             case WALLET_INVESTMENT_INFORMATION -> getWalletInvestmentInformation(key);
             case DISCONNECT -> disconnect(key);
+            case SUBSCRIBE -> subscribe(command.arguments(), key);
+            case MULTI -> multi(command.arguments(), key);
+            case LIMIT_BUY -> placeOrder(OrderType.LIMIT_BUY, command, key);
+            case LIMIT_SELL -> placeOrder(OrderType.LIMIT_SELL, command, key);
+            case STOP_LOSS -> placeOrder(OrderType.STOP_LOSS, command, key);
+            case EXCHANGE_BUY -> placeExchangeOrder(Side.BUY, command, key);
+            case EXCHANGE_SELL -> placeExchangeOrder(Side.SELL, command, key);
+            case EXCHANGE_CANCEL -> cancelExchangeOrder(command, key);
             case HELP -> help();
             case SHUTDOWN -> SHUTDOWN.toString();
             default -> UNKNOWN_COMMAND_MESSAGE.getMessage();
         };
     }
 
+    /**
+     * Commands that hash passwords are executed on the {@link PasswordHashingService}, so the calling
+     * thread is free until their response is ready. Every other command is executed right away.
+     */
+    public CompletableFuture<String> executeAsync(Command command, SelectionKey key) {
+        if (command.type().isPasswordHashing()) {
+            return passwordHashingService.submit(() -> execute(command, key));
+        }
+
+        return CompletableFuture.completedFuture(execute(command, key));
+    }
+
     private String help() {
         return "Available commands: " + System.lineSeparator() +
                 "login {name} {password}" + System.lineSeparator() +
+                "resume {session token}" + System.lineSeparator() +
                 "register {name} {password}" + System.lineSeparator() +
                 "deposit {amount}" + System.lineSeparator() +
-                "list_cryptos" + System.lineSeparator() +
+                "list_cryptos [--page={n}] [--size={m}] [--sort=code|price|name]" + System.lineSeparator() +
+                "search {prefix}" + System.lineSeparator() +
+                "top {n} [--by=price|name|code]" + System.lineSeparator() +
+                "history {id} [--points={n}]" + System.lineSeparator() +
                 "buy_crypto {id} {amount}" + System.lineSeparator() +
-                "sell_crypto {id}" + System.lineSeparator() +
+                "sell_crypto {id} [{amount}] [--method=fifo|lifo|avg]" + System.lineSeparator() +
                 "wallet_information" + System.lineSeparator() +
                 "wallet_investment_information" + System.lineSeparator() +
+                "subscribe {id} [{id} ...]" + System.lineSeparator() +
+                "multi {command} [; {command} ...] exec" + System.lineSeparator() +
+                "limit_buy {id} {amount} {price}" + System.lineSeparator() +
+                "limit_sell {id} {amount} {price}" + System.lineSeparator() +
+                "stop_loss {id} {amount} {price}" + System.lineSeparator() +
+                "exchange_buy {id} {amount} {price}" + System.lineSeparator() +
+                "exchange_sell {id} {amount} {price}" + System.lineSeparator() +
+                "exchange_cancel {id} {order id}" + System.lineSeparator() +
                 "disconnect" + System.lineSeparator();
     }
 
     private String disconnect(SelectionKey key) {
-        Account account;
+        priceSubscriptions.unsubscribeAll(key);
 
+        Account account;
         if (key.attachment() == null) {
             return MUST_LOGIN.getMessage();
         } else {
@@ -117,7 +221,42 @@ public class CommandExecutor {
             return PROBLEM_WHILE_LOGGING_IN.getMessage();
         }
 
-        return LOGIN_SUCCESSFUL.getMessage();
+        return withSessionToken(LOGIN_SUCCESSFUL, sessionTokens.issue(username));
+    }
+
+    /**
+     * Logs in with a token from an earlier login instead of the password. The token is used up, even if the
+     * session cannot be resumed, and a new one is returned, so a token that leaked cannot be replayed after
+     * the client used it.
+     */
+    private String resume(String[] args, SelectionKey key) {
+        if (key.attachment() != null) {
+            return ALREADY_LOGGED_IN.getMessage();
+        }
+
+        if (args == null || args.length != REQUIRED_ARGUMENTS_FOR_RESUME) {
+            return INVALID_INPUT_ARGUMENTS.getMessage();
+        }
+
+        Optional<String> username = sessionTokens.consume(args[0]);
+        if (username.isEmpty()) {
+            return INVALID_SESSION_TOKEN.getMessage();
+        }
+
+        try {
+            Account account = accounts.resumeSession(username.get());
+            key.attach(account);
+        } catch (AccountDoesNotExistException e) {
+            return INVALID_SESSION_TOKEN.getMessage();
+        } catch (AccountIsAlreadyLoggedInException e) {
+            return ALREADY_LOGGED_IN.getMessage();
+        }
+
+        return withSessionToken(SESSION_RESUMED, sessionTokens.issue(username.get()));
+    }
+
+    private String withSessionToken(CommandErrorMessageType messageType, String token) {
+        return messageType.getMessage() + ", session token: " + token;
     }
 
     private String register(String[] args, SelectionKey key) {
@@ -142,7 +281,7 @@ public class CommandExecutor {
         return REGISTER_SUCCESSFUL.getMessage();
     }
 
-    private String deposit(String[] args, SelectionKey key) {
+    private String deposit(Command command, SelectionKey key) {
         Account account;
 
         if (key.attachment() == null) {
@@ -151,14 +290,13 @@ public class CommandExecutor {
             account = (Account) key.attachment();
         }
 
-        if (args.length != REQUIRED_ARGUMENTS_FOR_DEPOSIT_CRYPTO) {
-            return INVALID_INPUT_ARGUMENTS.getMessage();
-        }
-
         try {
-            double amount = Double.parseDouble(args[0]);
-            accounts.getLoggedAccount(account).deposit(amount);
-        } catch (NumberFormatException | NullPointerException e) {
+            TypedArguments.Amount arguments =
+                    typedArguments(command, TypedArguments.Amount.class, CommandExecutor::parseAmount);
+            accounts.getLoggedAccount(account).deposit(arguments.amount());
+        } catch (ParseException e) {
+            return INVALID_INPUT_ARGUMENTS.getMessage();
+        } catch (NumberFormatException | ArithmeticException | NullPointerException e) {
             return INVALID_FORMAT_AMOUNT.getMessage();
         } catch (IllegalArgumentException e) {
             return NEGATIVE_AMOUNT.getMessage();
@@ -167,32 +305,195 @@ public class CommandExecutor {
         return SUCCESSFUL_OPERATION.getMessage();
     }
 
-    private String listCryptos(SelectionKey key) {
+    /**
+     * Serves a page of the offerings. Pages of the default size are rendered when the prices are refreshed,
+     * so only other sizes are rendered on request.
+     */
+    private String listCryptos(Command command, SelectionKey key) {
         if (key.attachment() == null) {
             return MUST_LOGIN.getMessage();
         }
 
-        return cryptoCoinsDatabase.listOfferings();
+        String[] args = command.arguments();
+        if (command.typedArguments() == null && (args == null || args.length == 0)) {
+            return cryptoCoinsDatabase.listOfferings();
+        }
+
+        try {
+            TypedArguments.Page page = typedArguments(command, TypedArguments.Page.class, CommandExecutor::parsePage);
+            return cryptoCoinsDatabase.listOfferings(page.page(), page.size(), page.order())
+                    .orElse(NO_SUCH_PAGE.getMessage());
+        } catch (IllegalArgumentException | ParseException e) {
+            // a malformed number, an unknown option or a page size out of range
+            return INVALID_INPUT_ARGUMENTS.getMessage();
+        }
     }
 
-    private String buyCrypto(String[] args, SelectionKey key) {
-        Account account;
+    private static TypedArguments.Page parsePage(String[] args) {
+        if (args.length > MAX_ARGUMENTS_FOR_LIST_CRYPTOS) {
+            throw new ParseException("Too many list_cryptos options");
+        }
+
+        int page = 1;
+        int size = CryptoCoinsDatabase.DEFAULT_PAGE_SIZE;
+        CoinSortOrder order = CryptoCoinsDatabase.DEFAULT_SORT_ORDER;
+
+        for (String arg : args) {
+            if (arg.startsWith(PAGE_OPTION)) {
+                page = Integer.parseInt(arg.substring(PAGE_OPTION.length()));
+            } else if (arg.startsWith(PAGE_SIZE_OPTION)) {
+                size = Integer.parseInt(arg.substring(PAGE_SIZE_OPTION.length()));
+            } else {
+                order = parseOption(arg, SORT_OPTION).flatMap(CoinSortOrder::fromName)
+                        .orElseThrow(() -> new ParseException("Unknown list_cryptos option: " + arg));
+            }
+        }
 
+        return new TypedArguments.Page(page, size, order);
+    }
+
+    /**
+     * Finds coins by the start of their offering code or name. The arguments are joined back with spaces,
+     * so names of several words can be searched too.
+     */
+    private String search(String[] args, SelectionKey key) {
         if (key.attachment() == null) {
             return MUST_LOGIN.getMessage();
-        } else {
-            account = (Account) key.attachment();
         }
 
-        if (args.length != REQUIRED_ARGUMENTS_FOR_LOGIN_REGISTER_BUY_CRYPTO) {
+        if (args == null || args.length < REQUIRED_ARGUMENTS_FOR_SEARCH) {
+            return INVALID_INPUT_ARGUMENTS.getMessage();
+        }
+
+        List<CryptoCoin> matches = cryptoCoinsDatabase.search(String.join(" ", args), MAX_LISTED_COINS);
+        if (matches.isEmpty()) {
+            return NO_SEARCH_RESULTS.getMessage();
+        }
+
+        return CryptoCoinsDatabase.formatCoins("Matching cryptos:", matches);
+    }
+
+    private String top(Command command, SelectionKey key) {
+        if (key.attachment() == null) {
+            return MUST_LOGIN.getMessage();
+        }
+
+        TypedArguments.Top top;
+        try {
+            top = typedArguments(command, TypedArguments.Top.class, CommandExecutor::parseTop);
+        } catch (NumberFormatException | ParseException e) {
+            return INVALID_INPUT_ARGUMENTS.getMessage();
+        }
+
+        if (top.count() <= 0) {
+            return INVALID_INPUT_ARGUMENTS.getMessage();
+        }
+
+        List<CryptoCoin> coins = cryptoCoinsDatabase.top(Math.min(top.count(), MAX_LISTED_COINS), top.order());
+        return CryptoCoinsDatabase.formatCoins(
+                "Top cryptos by " + top.order().name().toLowerCase() + ":", coins);
+    }
+
+    private static TypedArguments.Top parseTop(String[] args) {
+        if (args == null || args.length < REQUIRED_ARGUMENTS_FOR_TOP || args.length > MAX_ARGUMENTS_FOR_TOP) {
+            throw new ParseException("top takes a count and an optional order");
+        }
+
+        CoinSortOrder order = (args.length == MAX_ARGUMENTS_FOR_TOP)
+                ? parseOption(args[1], TOP_ORDER_OPTION).flatMap(CoinSortOrder::fromName)
+                        .orElseThrow(() -> new ParseException("Unknown top option: " + args[1]))
+                : TypedArguments.Top.DEFAULT_ORDER;
+        return new TypedArguments.Top(Integer.parseInt(args[0]), order);
+    }
+
+    /**
+     * Shows the latest prices of a coin and the trend of the history the server keeps for it.
+     */
+    private String history(Command command, SelectionKey key) {
+        if (key.attachment() == null) {
+            return MUST_LOGIN.getMessage();
+        }
+
+        TypedArguments.History history;
+        try {
+            history = typedArguments(command, TypedArguments.History.class, CommandExecutor::parseHistory);
+        } catch (NumberFormatException | ParseException e) {
             return INVALID_INPUT_ARGUMENTS.getMessage();
         }
 
+        if (history.points() <= 0) {
+            return INVALID_INPUT_ARGUMENTS.getMessage();
+        }
+
+        return priceHistories.describe(history.offeringCode(), history.points())
+                .orElse(CRYPTO_COIN_DOES_NOT_EXIST.getMessage());
+    }
+
+    private static TypedArguments.History parseHistory(String[] args) {
+        if (args == null || args.length < REQUIRED_ARGUMENTS_FOR_HISTORY || args.length > MAX_ARGUMENTS_FOR_HISTORY) {
+            throw new ParseException("history takes a coin and an optional number of points");
+        }
+
+        int points = (args.length == MAX_ARGUMENTS_FOR_HISTORY)
+                ? Integer.parseInt(parseOption(args[1], POINTS_OPTION)
+                        .orElseThrow(() -> new ParseException("Unknown history option: " + args[1])))
+                : TypedArguments.History.DEFAULT_POINTS;
+        return new TypedArguments.History(args[0].toUpperCase(), points);
+    }
+
+    /**
+     * @return the value of an option such as {@code --by=price}, if {@code argument} is that option
+     */
+    private static Optional<String> parseOption(String argument, String option) {
+        if (argument == null || !argument.startsWith(option)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(argument.substring(option.length()));
+    }
+
+    /**
+     * @return the typed arguments the client sent, or else its text arguments parsed by {@code parser}
+     */
+    private static <T extends TypedArguments> T typedArguments(Command command, Class<T> type,
+                                                               Function<String[], T> parser) {
+        TypedArguments typed = command.typedArguments();
+        return type.isInstance(typed) ? type.cast(typed) : parser.apply(command.arguments());
+    }
+
+    private static TypedArguments.Amount parseAmount(String[] args) {
+        if (args == null || args.length != REQUIRED_ARGUMENTS_FOR_DEPOSIT_CRYPTO) {
+            throw new ParseException("An amount is required");
+        }
+
+        return new TypedArguments.Amount(FixedPoint.parse(args[0]));
+    }
+
+    private static TypedArguments.CoinAmount parseCoinAmount(String[] args) {
+        if (args == null || args.length != REQUIRED_ARGUMENTS_FOR_LOGIN_REGISTER_BUY_CRYPTO) {
+            throw new ParseException("A coin and an amount are required");
+        }
+
+        return new TypedArguments.CoinAmount(args[0].toUpperCase(), FixedPoint.parse(args[1]));
+    }
+
+    private String buyCrypto(Command command, SelectionKey key) {
+        Account account;
+
+        if (key.attachment() == null) {
+            return MUST_LOGIN.getMessage();
+        } else {
+            account = (Account) key.attachment();
+        }
+
         try {
-            String offeringCode = args[0].toUpperCase();
-            double amount = Double.parseDouble(args[1]);
-            accounts.getLoggedAccount(account).buyCryptoCoin(amount, offeringCode, cryptoCoinsDatabase);
-        } catch (NumberFormatException | NullPointerException e) {
+            TypedArguments.CoinAmount arguments =
+                    typedArguments(command, TypedArguments.CoinAmount.class, CommandExecutor::parseCoinAmount);
+            accounts.getLoggedAccount(account)
+                    .buyCryptoCoin(arguments.amount(), arguments.offeringCode(), cryptoCoinsDatabase);
+        } catch (ParseException e) {
+            return INVALID_INPUT_ARGUMENTS.getMessage();
+        } catch (NumberFormatException | ArithmeticException | NullPointerException e) {
             return INVALID_FORMAT_AMOUNT.getMessage();
         } catch (IllegalArgumentException e) {
             return NEGATIVE_AMOUNT.getMessage();
@@ -205,7 +506,7 @@ public class CommandExecutor {
         return SUCCESSFUL_OPERATION.getMessage();
     }
 
-    private String sellCrypto(String[] args, SelectionKey key) {
+    private String sellCrypto(Command command, SelectionKey key) {
         Account account;
 
         if (key.attachment() == null) {
@@ -214,11 +515,16 @@ public class CommandExecutor {
             account = (Account) key.attachment();
         }
 
-        if (args.length != REQUIRED_ARGUMENTS_FOR_SELLING_CRYPTO) {
+        String[] args = command.arguments();
+        if (command.typedArguments() != null || args.length > REQUIRED_ARGUMENTS_FOR_SELLING_CRYPTO) {
+            return sellCryptoPartially(command, account);
+        }
+
+        if (args.length < REQUIRED_ARGUMENTS_FOR_SELLING_CRYPTO) {
             return INVALID_INPUT_ARGUMENTS.getMessage();
         }
 
-        String offeringCode = args[0];
+        String offeringCode = args[0].toUpperCase();
 
         try {
             accounts.getLoggedAccount(account).sellCryptoCoin(offeringCode, cryptoCoinsDatabase);
@@ -229,6 +535,246 @@ public class CommandExecutor {
         return SUCCESSFUL_OPERATION.getMessage();
     }
 
+    private String sellCryptoPartially(Command command, Account account) {
+        SellResult result;
+        try {
+            TypedArguments.Sell sell = typedArguments(command, TypedArguments.Sell.class, CommandExecutor::parseSell);
+            result = accounts.getLoggedAccount(account)
+                    .sellCryptoCoin(sell.offeringCode(), sell.amount(), sell.method(), cryptoCoinsDatabase);
+        } catch (ParseException e) {
+            return INVALID_INPUT_ARGUMENTS.getMessage();
+        } catch (NumberFormatException | ArithmeticException | NullPointerException e) {
+            return INVALID_FORMAT_AMOUNT.getMessage();
+        } catch (IllegalArgumentException e) {
+            return NEGATIVE_AMOUNT.getMessage();
+        } catch (InsufficientBalanceException e) {
+            return INSUFFICIENT_AMOUNT.getMessage();
+        } catch (InvalidCryptoCoinException e) {
+            return CRYPTO_COIN_DOES_NOT_EXIST.getMessage();
+        }
+
+        return String.format("%s, realized P&L: %+.2f", SUCCESSFUL_OPERATION.getMessage(), result.realizedProfitLossUSD());
+    }
+
+    /**
+     * Parses a sell of part of a holding: a coin, an amount and an optional cost basis method.
+     */
+    private static TypedArguments.Sell parseSell(String[] args) {
+        if (args == null || args.length <= REQUIRED_ARGUMENTS_FOR_SELLING_CRYPTO
+                || args.length > MAX_ARGUMENTS_FOR_SELLING_CRYPTO) {
+            throw new ParseException("A partial sell takes a coin, an amount and an optional cost basis method");
+        }
+
+        CostBasisMethod method = (args.length == MAX_ARGUMENTS_FOR_SELLING_CRYPTO)
+                ? CostBasisMethod.fromOption(args[2])
+                        .orElseThrow(() -> new ParseException("Unknown cost basis method: " + args[2]))
+                : TypedArguments.Sell.DEFAULT_METHOD;
+        return new TypedArguments.Sell(args[0].toUpperCase(), FixedPoint.parse(args[1]), method);
+    }
+
+    private String multi(String[] args, SelectionKey key) {
+        Account account;
+
+        if (key.attachment() == null) {
+            return MUST_LOGIN.getMessage();
+        } else {
+            account = (Account) key.attachment();
+        }
+
+        if (args == null || !MULTI_END.equalsIgnoreCase(args[args.length - 1])) {
+            return INVALID_INPUT_ARGUMENTS.getMessage();
+        }
+
+        List<AccountOperation> operations;
+        try {
+            operations = parseOperations(args);
+        } catch (NumberFormatException | ArithmeticException e) {
+            return INVALID_FORMAT_AMOUNT.getMessage();
+        } catch (ParseException e) {
+            return INVALID_INPUT_ARGUMENTS.getMessage();
+        }
+
+        try {
+            accounts.getLoggedAccount(account)
+                    .executeAtomically(operations, cryptoCoinsDatabase.getPriceSnapshot().asMap());
+        } catch (IllegalArgumentException e) {
+            return aborted(NEGATIVE_AMOUNT);
+        } catch (InsufficientBalanceException e) {
+            return aborted(INSUFFICIENT_AMOUNT);
+        } catch (InvalidCryptoCoinException e) {
+            return aborted(CRYPTO_COIN_DOES_NOT_EXIST);
+        }
+
+        return SUCCESSFUL_OPERATION.getMessage();
+    }
+
+    private String aborted(CommandErrorMessageType reason) {
+        return TRANSACTION_ABORTED.getMessage() + " " + reason.getMessage();
+    }
+
+    /**
+     * Splits the arguments of a multi command at the {@value #OPERATION_SEPARATOR} tokens, or at arguments ending
+     * with it, and turns every part into an operation. The closing {@value #MULTI_END} is not part of any.
+     */
+    private static List<AccountOperation> parseOperations(String[] args) {
+        List<AccountOperation> operations = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+
+        for (int i = 0; i < args.length - 1; i++) {
+            String token = args[i];
+            boolean endsOperation = token.endsWith(OPERATION_SEPARATOR);
+            if (endsOperation) {
+                token = token.substring(0, token.length() - OPERATION_SEPARATOR.length());
+            }
+
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+
+            if (endsOperation) {
+                addOperation(operations, tokens);
+                tokens.clear();
+            }
+        }
+
+        addOperation(operations, tokens);
+
+        if (operations.isEmpty()) {
+            throw new ParseException("A transaction needs at least one operation");
+        }
+
+        return operations;
+    }
+
+    private static void addOperation(List<AccountOperation> operations, List<String> tokens) {
+        if (tokens.isEmpty()) {
+            return;
+        }
+
+        String[] args = tokens.subList(1, tokens.size()).toArray(new String[0]);
+        AccountOperation operation = switch (CommandType.fromString(tokens.get(0))) {
+            case DEPOSIT -> new AccountOperation.Deposit(parseAmount(args).amount());
+            case BUY_CRYPTO -> {
+                TypedArguments.CoinAmount buy = parseCoinAmount(args);
+                yield new AccountOperation.Buy(buy.offeringCode(), buy.amount());
+            }
+            case SELL_CRYPTO -> {
+                if (args.length == REQUIRED_ARGUMENTS_FOR_SELLING_CRYPTO) {
+                    yield new AccountOperation.SellAll(args[0].toUpperCase());
+                }
+
+                TypedArguments.Sell sell = parseSell(args);
+                yield new AccountOperation.Sell(sell.offeringCode(), sell.amount(), sell.method());
+            }
+            default -> throw new ParseException("Only deposits, buys and sells can be part of a transaction");
+        };
+
+        operations.add(operation);
+    }
+
+    private String placeOrder(OrderType type, Command command, SelectionKey key) {
+        Account account;
+
+        if (key.attachment() == null) {
+            return MUST_LOGIN.getMessage();
+        } else {
+            account = (Account) key.attachment();
+        }
+
+        RestingOrder order;
+        try {
+            TypedArguments.Order arguments =
+                    typedArguments(command, TypedArguments.Order.class, CommandExecutor::parseOrder);
+            order = restingOrders.place(accounts.getLoggedAccount(account), type, arguments.offeringCode(),
+                    arguments.amount(), arguments.price());
+        } catch (ParseException e) {
+            return INVALID_INPUT_ARGUMENTS.getMessage();
+        } catch (NumberFormatException | ArithmeticException e) {
+            return INVALID_FORMAT_AMOUNT.getMessage();
+        } catch (IllegalArgumentException e) {
+            return NEGATIVE_AMOUNT.getMessage();
+        } catch (InvalidCryptoCoinException e) {
+            return CRYPTO_COIN_DOES_NOT_EXIST.getMessage();
+        }
+
+        return ORDER_PLACED.getMessage() + ", order id: " + order.id();
+    }
+
+    private static TypedArguments.Order parseOrder(String[] args) {
+        if (args == null || args.length != REQUIRED_ARGUMENTS_FOR_ORDER) {
+            throw new ParseException("An order takes a coin, an amount and a price");
+        }
+
+        return new TypedArguments.Order(args[0].toUpperCase(), FixedPoint.parse(args[1]), FixedPoint.parse(args[2]));
+    }
+
+    /**
+     * Trades with the other accounts on the internal exchange. The command waits for the coin's book to
+     * match the order, so the response tells how much of it filled right away.
+     */
+    private String placeExchangeOrder(Side side, Command command, SelectionKey key) {
+        Account account;
+
+        if (key.attachment() == null) {
+            return MUST_LOGIN.getMessage();
+        } else {
+            account = (Account) key.attachment();
+        }
+
+        OrderResult result;
+        try {
+            TypedArguments.Order order =
+                    typedArguments(command, TypedArguments.Order.class, CommandExecutor::parseOrder);
+            if (cryptoCoinsDatabase.findCryptoCoinByOfferingCode(order.offeringCode()).isEmpty()) {
+                return CRYPTO_COIN_DOES_NOT_EXIST.getMessage();
+            }
+
+            result = exchange.submit(accounts.getLoggedAccount(account), side, order.offeringCode(), order.amount(),
+                    order.price()).join();
+        } catch (ParseException e) {
+            return INVALID_INPUT_ARGUMENTS.getMessage();
+        } catch (NumberFormatException | ArithmeticException e) {
+            return INVALID_FORMAT_AMOUNT.getMessage();
+        } catch (IllegalArgumentException e) {
+            return NEGATIVE_AMOUNT.getMessage();
+        } catch (InsufficientBalanceException e) {
+            return INSUFFICIENT_AMOUNT.getMessage();
+        }
+
+        return ORDER_PLACED.getMessage() + ", order id: " + result.orderId()
+                + ", filled: " + FixedPoint.toPlainString(result.filledAmount());
+    }
+
+    private String cancelExchangeOrder(Command command, SelectionKey key) {
+        Account account;
+
+        if (key.attachment() == null) {
+            return MUST_LOGIN.getMessage();
+        } else {
+            account = (Account) key.attachment();
+        }
+
+        boolean cancelled;
+        try {
+            TypedArguments.OrderId order =
+                    typedArguments(command, TypedArguments.OrderId.class, CommandExecutor::parseOrderId);
+            cancelled = exchange.cancel(accounts.getLoggedAccount(account), order.offeringCode(), order.orderId())
+                    .join();
+        } catch (NumberFormatException | ParseException e) {
+            return INVALID_INPUT_ARGUMENTS.getMessage();
+        }
+
+        return cancelled ? ORDER_CANCELLED.getMessage() : ORDER_NOT_FOUND.getMessage();
+    }
+
+    private static TypedArguments.OrderId parseOrderId(String[] args) {
+        if (args == null || args.length != REQUIRED_ARGUMENTS_FOR_CANCEL) {
+            throw new ParseException("A cancel takes a coin and an order id");
+        }
+
+        return new TypedArguments.OrderId(args[0].toUpperCase(), Long.parseLong(args[1]));
+    }
+
     private String getWalletInformation(SelectionKey key) {
         Account account;
 
@@ -257,6 +803,30 @@ public class CommandExecutor {
         }
     }
 
+    private String subscribe(String[] args, SelectionKey key) {
+        if (key.attachment() == null) {
+            return MUST_LOGIN.getMessage();
+        }
+
+        if (args == null || args.length == 0) {
+            return INVALID_INPUT_ARGUMENTS.getMessage();
+        }
+
+        List<String> offeringCodes = Arrays.stream(args).map(String::toUpperCase).toList();
+        for (String offeringCode : offeringCodes) {
+            if (cryptoCoinsDatabase.findCryptoCoinByOfferingCode(offeringCode).isEmpty()) {
+                return CRYPTO_COIN_DOES_NOT_EXIST.getMessage();
+            }
+        }
+
+        priceSubscriptions.subscribe(key, offeringCodes);
+        return SUBSCRIBED.getMessage();
+    }
+
+    public PriceSubscriptions getPriceSubscriptions() {
+        return priceSubscriptions;
+    }
+
     public CryptoCoinsDatabase getCryptoCoinsDatabase() {
         return cryptoCoinsDatabase;
     }
@@ -0,0 +1,149 @@
+package crypto.wallet.manager.commands;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Tokenizes text commands in place, straight from the buffer they were read into.
+ * The command type is resolved by comparing bytes against a table of the command names
+ * grouped by length, so no String is created for it and unknown commands need no exception.
+ * The only allocations are the argument array and the argument Strings themselves.
+ * <p>
+ * An instance keeps a scratch array for copying arguments out of direct buffers, so it
+ * must not be shared between threads.
+ */
+public class CommandParser {
+    private static final byte SPACE = ' ';
+    private static final int INITIAL_SCRATCH_SIZE = 64;
+    private static final byte[] LOWER_CASE = new byte[256];
+    private static final CommandType[][] TYPES_BY_NAME_LENGTH;
+    private static final byte[][][] NAMES_BY_NAME_LENGTH;
+
+    static {
+        for (int i = 0; i < LOWER_CASE.length; i++) {
+            LOWER_CASE[i] = (byte) (i >= 'A' && i <= 'Z' ? i + ('a' - 'A') : i);
+        }
+
+        int maxNameLength = 0;
+        for (CommandType type : CommandType.values()) {
+            maxNameLength = Math.max(maxNameLength, type.name().length());
+        }
+
+        TYPES_BY_NAME_LENGTH = new CommandType[maxNameLength + 1][0];
+        NAMES_BY_NAME_LENGTH = new byte[maxNameLength + 1][0][];
+        for (CommandType type : CommandType.values()) {
+            byte[] name = type.name().toLowerCase().getBytes(StandardCharsets.US_ASCII);
+            int length = name.length;
+            int count = TYPES_BY_NAME_LENGTH[length].length;
+
+            CommandType[] types = Arrays.copyOf(TYPES_BY_NAME_LENGTH[length], count + 1);
+            byte[][] names = Arrays.copyOf(NAMES_BY_NAME_LENGTH[length], count + 1);
+            types[count] = type;
+            names[count] = name;
+            TYPES_BY_NAME_LENGTH[length] = types;
+            NAMES_BY_NAME_LENGTH[length] = names;
+        }
+    }
+
+    private byte[] scratch;
+
+    public CommandParser() {
+        this.scratch = new byte[INITIAL_SCRATCH_SIZE];
+    }
+
+    /**
+     * Parses the command stored between the absolute indexes {@code start} (inclusive) and {@code end}
+     * (exclusive) of the buffer. The position and limit of the buffer are not changed.
+     */
+    public Command parse(ByteBuffer buffer, int start, int end) {
+        int typeStart = skipSpaces(buffer, start, end);
+        int typeEnd = nextSpace(buffer, typeStart, end);
+        CommandType type = resolveType(buffer, typeStart, typeEnd);
+
+        int argumentsCount = countTokens(buffer, typeEnd, end);
+        if (argumentsCount == 0) {
+            return new Command(type, null);
+        }
+
+        String[] arguments = new String[argumentsCount];
+        int tokenStart = skipSpaces(buffer, typeEnd, end);
+        for (int i = 0; i < argumentsCount; i++) {
+            int tokenEnd = nextSpace(buffer, tokenStart, end);
+            arguments[i] = decode(buffer, tokenStart, tokenEnd);
+            tokenStart = skipSpaces(buffer, tokenEnd, end);
+        }
+
+        return new Command(type, arguments);
+    }
+
+    /**
+     * Resolves a command name, ignoring the case of its letters.
+     */
+    public static CommandType resolveType(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (length <= 0 || length >= TYPES_BY_NAME_LENGTH.length) {
+            return CommandType.UNKNOWN;
+        }
+
+        byte[][] names = NAMES_BY_NAME_LENGTH[length];
+        for (int candidate = 0; candidate < names.length; candidate++) {
+            if (matches(buffer, start, names[candidate])) {
+                return TYPES_BY_NAME_LENGTH[length][candidate];
+            }
+        }
+
+        return CommandType.UNKNOWN;
+    }
+
+    private static boolean matches(ByteBuffer buffer, int start, byte[] lowerCaseName) {
+        for (int i = 0; i < lowerCaseName.length; i++) {
+            if (LOWER_CASE[buffer.get(start + i) & 0xFF] != lowerCaseName[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private String decode(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static int countTokens(ByteBuffer buffer, int start, int end) {
+        int count = 0;
+        int index = skipSpaces(buffer, start, end);
+        while (index < end) {
+            count++;
+            index = skipSpaces(buffer, nextSpace(buffer, index, end), end);
+        }
+
+        return count;
+    }
+
+    private static int skipSpaces(ByteBuffer buffer, int index, int end) {
+        while (index < end && buffer.get(index) == SPACE) {
+            index++;
+        }
+
+        return index;
+    }
+
+    private static int nextSpace(ByteBuffer buffer, int index, int end) {
+        while (index < end && buffer.get(index) != SPACE) {
+            index++;
+        }
+
+        return index;
+    }
+}
@@ -1,24 +1,73 @@
 package crypto.wallet.manager.commands;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 public enum CommandType {
-    LOGIN,
-    REGISTER,
-    DEPOSIT,
-    LIST_CRYPTOS,
-    BUY_CRYPTO,
-    SELL_CRYPTO,
-    WALLET_INFORMATION,
-    WALLET_INVESTMENT_INFORMATION,
-    DISCONNECT,
-    HELP,
-    SHUTDOWN,
-    UNKNOWN;
+    LOGIN(1),
+    REGISTER(2),
+    DEPOSIT(3),
+    LIST_CRYPTOS(4),
+    BUY_CRYPTO(5),
+    SELL_CRYPTO(6),
+    WALLET_INFORMATION(7),
+    WALLET_INVESTMENT_INFORMATION(8),
+    DISCONNECT(9),
+    HELP(10),
+    SHUTDOWN(11),
+    SUBSCRIBE(12),
+    RESUME(13),
+    MULTI(14),
+    LIMIT_BUY(15),
+    LIMIT_SELL(16),
+    STOP_LOSS(17),
+    EXCHANGE_BUY(18),
+    EXCHANGE_SELL(19),
+    EXCHANGE_CANCEL(20),
+    SEARCH(21),
+    TOP(22),
+    HISTORY(23),
+    UNKNOWN(0);
+
+    private static final CommandType[] BY_OPCODE = new CommandType[256];
+    private static final Map<String, CommandType> BY_NAME = new HashMap<>();
+
+    static {
+        for (CommandType type : values()) {
+            BY_OPCODE[type.opcode] = type;
+            BY_NAME.put(type.name(), type);
+        }
+    }
+
+    // identifies the command in the binary protocol
+    private final int opcode;
+
+    CommandType(int opcode) {
+        this.opcode = opcode;
+    }
+
+    public byte getOpcode() {
+        return (byte) opcode;
+    }
+
+    /**
+     * @return true for the commands that run BCrypt, which are by far the most expensive ones
+     */
+    public boolean isPasswordHashing() {
+        return this == LOGIN || this == REGISTER;
+    }
 
     public static CommandType fromString(String str) {
-        try {
-            return valueOf(str.toUpperCase());
-        } catch (IllegalArgumentException | NullPointerException e) {
+        if (str == null) {
             return UNKNOWN;
         }
+
+        return BY_NAME.getOrDefault(str.toUpperCase(Locale.ROOT), UNKNOWN);
+    }
+
+    public static CommandType fromOpcode(byte opcode) {
+        CommandType type = BY_OPCODE[opcode & 0xFF];
+        return type == null ? UNKNOWN : type;
     }
-}
\ No newline at end of file
+}
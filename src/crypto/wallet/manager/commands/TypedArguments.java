@@ -0,0 +1,47 @@
+package crypto.wallet.manager.commands;
+
+import crypto.wallet.manager.account.CostBasisMethod;
+import crypto.wallet.manager.database.CoinSortOrder;
+import crypto.wallet.manager.money.FixedPoint;
+
+/**
+ * The arguments of a command as the values {@link CommandExecutor} works with. Binary clients send these
+ * values as they are, so their commands carry them and are executed without formatting or parsing numbers;
+ * the arguments of text commands are parsed into them. Amounts and prices are {@link FixedPoint} units and
+ * offering codes are in upper case.
+ */
+public sealed interface TypedArguments {
+
+    record Amount(long amount) implements TypedArguments {
+    }
+
+    record CoinAmount(String offeringCode, long amount) implements TypedArguments {
+    }
+
+    record Sell(String offeringCode, long amount, CostBasisMethod method) implements TypedArguments {
+        public static final CostBasisMethod DEFAULT_METHOD = CostBasisMethod.FIFO;
+    }
+
+    /**
+     * @param price the limit of an exchange order, or the price that triggers a resting order
+     */
+    record Order(String offeringCode, long amount, long price) implements TypedArguments {
+    }
+
+    record OrderId(String offeringCode, long orderId) implements TypedArguments {
+    }
+
+    /**
+     * @param page the number of the page, starting from 1
+     */
+    record Page(int page, int size, CoinSortOrder order) implements TypedArguments {
+    }
+
+    record Top(int count, CoinSortOrder order) implements TypedArguments {
+        public static final CoinSortOrder DEFAULT_ORDER = CoinSortOrder.PRICE;
+    }
+
+    record History(String offeringCode, int points) implements TypedArguments {
+        public static final int DEFAULT_POINTS = 10;
+    }
+}
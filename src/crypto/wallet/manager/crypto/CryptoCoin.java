@@ -1,9 +1,25 @@
 package crypto.wallet.manager.crypto;
 
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
+import crypto.wallet.manager.money.FixedPoint;
+import crypto.wallet.manager.money.FixedPointTypeAdapter;
 
+/**
+ * @param priceUnits the price in US dollars as {@link FixedPoint} units
+ */
 public record CryptoCoin(@SerializedName("asset_id") String offeringCode, String name,
-                         @SerializedName("price_usd") double priceUSD, @SerializedName("type_is_crypto") int isCrypto) {
+                         @SerializedName("price_usd")
+                         @JsonAdapter(value = FixedPointTypeAdapter.class, nullSafe = false) long priceUnits,
+                         @SerializedName("type_is_crypto") int isCrypto) {
+
+    public CryptoCoin(String offeringCode, String name, double priceUSD, int isCrypto) {
+        this(offeringCode, name, FixedPoint.fromDouble(priceUSD), isCrypto);
+    }
+
+    public double priceUSD() {
+        return FixedPoint.toDouble(priceUnits);
+    }
 
     @Override
     public boolean equals(Object o) {
@@ -0,0 +1,41 @@
+package crypto.wallet.manager.database;
+
+import crypto.wallet.manager.crypto.CryptoCoin;
+
+import java.util.Comparator;
+import java.util.Optional;
+
+/**
+ * The orders a {@link PriceSnapshot} keeps its coins sorted in. Ties are broken by offering code,
+ * so every order is total and listings are stable between refreshes.
+ */
+public enum CoinSortOrder {
+    CODE(Comparator.comparing(CryptoCoin::offeringCode)),
+    // the most expensive first
+    PRICE(Comparator.comparingLong(CryptoCoin::priceUnits).reversed().thenComparing(CryptoCoin::offeringCode)),
+    NAME(Comparator.comparing(CryptoCoin::name, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(CryptoCoin::offeringCode));
+
+    private final Comparator<CryptoCoin> comparator;
+
+    CoinSortOrder(Comparator<CryptoCoin> comparator) {
+        this.comparator = comparator;
+    }
+
+    public Comparator<CryptoCoin> comparator() {
+        return comparator;
+    }
+
+    /**
+     * @param name the name of the order in any case, such as {@code price}
+     */
+    public static Optional<CoinSortOrder> fromName(String name) {
+        for (CoinSortOrder order : values()) {
+            if (order.name().equalsIgnoreCase(name)) {
+                return Optional.of(order);
+            }
+        }
+
+        return Optional.empty();
+    }
+}
@@ -2,23 +2,60 @@ package crypto.wallet.manager.database;
 
 import crypto.wallet.manager.crypto.CryptoCoin;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * The latest prices. Every refresh builds a new {@link PriceSnapshot}, together with everything rendered
+ * from it, and installs them with a single volatile write, so readers on any thread see either the whole
+ * previous refresh or the whole new one and never need a lock.
+ */
 public class CryptoCoinsDatabase {
-    private static final int COINS_CAPACITY = 100;
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    // responses are queued and written in chunks, so a page may exceed the read buffer, but a page of this
+    // size (about 25 KB) stays below the 64 KB at which a connection starts dropping pushed price updates
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final CoinSortOrder DEFAULT_SORT_ORDER = CoinSortOrder.CODE;
 
-    private static Set<CryptoCoin> cryptoCoinSet;
+    private volatile Published published;
+    private final List<PriceUpdateListener> priceUpdateListeners;
+
+    /**
+     * The offerings pages of every sort order at the default page size, rendered once per refresh. The pages
+     * of one order are encoded as UTF-8 into a single direct buffer and each page is a read-only slice of it,
+     * so every list_cryptos response for such a page shares its bytes.
+     *
+     * @param encodedPages the slice of every page, by the identity of its text
+     */
+    private record RenderedOfferings(Map<CoinSortOrder, String[]> pages, Map<String, ByteBuffer> encodedPages) {
+    }
+
+    /**
+     * What one refresh installs.
+     */
+    private record Published(PriceSnapshot prices, RenderedOfferings offerings) {
+    }
 
     public CryptoCoinsDatabase() {
-        cryptoCoinSet = new HashSet<>();
+        priceUpdateListeners = new CopyOnWriteArrayList<>();
+        published = publish(PriceSnapshot.empty());
     }
 
     public Set<CryptoCoin> getCryptoCoinSet() {
-        return Collections.unmodifiableSet(cryptoCoinSet);
+        return published.prices().coins();
     }
 
     public void updateCryptoCoinSet(Set<CryptoCoin> newSet) {
@@ -26,23 +63,176 @@ public class CryptoCoinsDatabase {
             throw new IllegalArgumentException("The new set is not created correctly.");
         }
 
-        cryptoCoinSet = newSet.stream()
-                .filter(cryptoCoin -> cryptoCoin.isCrypto() == 1)
-                .limit(COINS_CAPACITY)
-                .collect(Collectors.toSet());
+        PriceSnapshot previous = published.prices();
+        // coins without a reference price could be bought for nothing, so they are left out
+        PriceSnapshot current = previous.next(newSet.stream()
+                .filter(cryptoCoin -> cryptoCoin.isCrypto() == 1 && cryptoCoin.priceUnits() > 0)
+                .toList());
+        published = publish(current);
+        notifyPriceUpdateListeners(previous, current);
+    }
+
+    public void addPriceUpdateListener(PriceUpdateListener listener) {
+        priceUpdateListeners.add(listener);
+    }
+
+    private void notifyPriceUpdateListeners(PriceSnapshot previous, PriceSnapshot current) {
+        if (priceUpdateListeners.isEmpty()) {
+            return;
+        }
+
+        List<CryptoCoin> changedCoins = new ArrayList<>();
+        for (CryptoCoin coin : current.asMap().values()) {
+            Optional<CryptoCoin> previousCoin = previous.find(coin.offeringCode());
+            if (previousCoin.isEmpty() || previousCoin.get().priceUnits() != coin.priceUnits()) {
+                changedCoins.add(coin);
+            }
+        }
+
+        if (changedCoins.isEmpty()) {
+            return;
+        }
+
+        List<CryptoCoin> unmodifiableChangedCoins = Collections.unmodifiableList(changedCoins);
+        for (PriceUpdateListener listener : priceUpdateListeners) {
+            listener.onPricesUpdated(unmodifiableChangedCoins);
+        }
+    }
+
+    /**
+     * @return the prices of the latest refresh, which stay the same however many refreshes follow
+     */
+    public PriceSnapshot getPriceSnapshot() {
+        return published.prices();
     }
 
     public Optional<CryptoCoin> findCryptoCoinByOfferingCode(String offeringCode) {
-        return cryptoCoinSet.stream()
-                .filter(coin -> coin.offeringCode().equals(offeringCode))
-                .findFirst();
+        return published.prices().find(offeringCode);
+    }
+
+    /**
+     * @return up to {@code limit} coins whose offering code or name starts with {@code prefix}, ignoring case
+     */
+    public List<CryptoCoin> search(String prefix, int limit) {
+        return published.prices().search(prefix, limit);
+    }
+
+    /**
+     * @return the first {@code count} coins in {@code order}
+     */
+    public List<CryptoCoin> top(int count, CoinSortOrder order) {
+        return published.prices().top(count, order);
     }
 
+    /**
+     * @return the first page of the offerings, in the default order and page size
+     */
     public String listOfferings() {
-        return cryptoCoinSet.stream()
-                .map(coin -> String.format("%s (%s) - %.2f US dollars",
-                        coin.name(), coin.offeringCode(), coin.priceUSD()))
-                .collect(Collectors.joining(System.lineSeparator(), "Available cryptos:" + System.lineSeparator(), ""));
+        return published.offerings().pages().get(DEFAULT_SORT_ORDER)[0];
+    }
+
+    /**
+     * @param page the number of the page, starting from 1
+     * @return the page, or an empty optional if there is no page with this number
+     * @throws IllegalArgumentException if {@code size} is not between 1 and {@link #MAX_PAGE_SIZE}
+     */
+    public Optional<String> listOfferings(int page, int size, CoinSortOrder order) {
+        if (size <= 0 || size > MAX_PAGE_SIZE || order == null) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE + " and order not null");
+        }
+
+        Published current = published;
+        List<CryptoCoin> coins = current.prices().sorted(order);
+        int pageCount = countPages(coins.size(), size);
+        if (page < 1 || page > pageCount) {
+            return Optional.empty();
+        }
+
+        if (size == DEFAULT_PAGE_SIZE) {
+            return Optional.of(current.offerings().pages().get(order)[page - 1]);
+        }
+
+        return Optional.of(renderPage(coins, page, size, pageCount, CryptoCoinsDatabase::formatCoin));
+    }
+
+    /**
+     * @return the UTF-8 bytes of a current offerings page, if {@code offerings} is one returned by listOfferings
+     */
+    public Optional<ByteBuffer> getEncodedOfferings(String offerings) {
+        // identity on purpose: only the instances returned by listOfferings are known to match the bytes
+        ByteBuffer encoded = published.offerings().encodedPages().get(offerings);
+        return Optional.ofNullable(encoded).map(ByteBuffer::duplicate);
+    }
+
+    private static Published publish(PriceSnapshot prices) {
+        return new Published(prices, renderOfferings(prices));
+    }
+
+    /**
+     * @return a line per coin in the format of {@link #listOfferings()}, under {@code title}
+     */
+    public static String formatCoins(String title, Collection<CryptoCoin> coins) {
+        return coins.stream()
+                .map(CryptoCoinsDatabase::formatCoin)
+                .collect(Collectors.joining(System.lineSeparator(), title + System.lineSeparator(), ""));
+    }
+
+    private static String formatCoin(CryptoCoin coin) {
+        return String.format("%s (%s) - %.2f US dollars", coin.name(), coin.offeringCode(), coin.priceUSD());
+    }
+
+    private static int countPages(int coinCount, int size) {
+        // an empty list still has a first page
+        return Math.max(1, (coinCount + size - 1) / size);
+    }
+
+    private static String renderPage(List<CryptoCoin> coins, int page, int size, int pageCount,
+                                     Function<CryptoCoin, String> lines) {
+        StringBuilder result = new StringBuilder(
+                String.format("Available cryptos (page %d of %d):", page, pageCount));
+
+        int end = Math.min(page * size, coins.size());
+        for (int i = (page - 1) * size; i < end; i++) {
+            result.append(System.lineSeparator()).append(lines.apply(coins.get(i)));
+        }
+
+        return result.toString();
+    }
+
+    private static RenderedOfferings renderOfferings(PriceSnapshot prices) {
+        // every coin is on a page of every order, so its line is formatted once
+        Map<CryptoCoin, String> lines = new HashMap<>(prices.size() * 2);
+        for (CryptoCoin coin : prices.asMap().values()) {
+            lines.put(coin, formatCoin(coin));
+        }
+
+        Map<CoinSortOrder, String[]> pages = new EnumMap<>(CoinSortOrder.class);
+        Map<String, ByteBuffer> encodedPages = new IdentityHashMap<>();
+
+        for (CoinSortOrder order : CoinSortOrder.values()) {
+            List<CryptoCoin> coins = prices.sorted(order);
+            int pageCount = countPages(coins.size(), DEFAULT_PAGE_SIZE);
+            String[] texts = new String[pageCount];
+            byte[][] bytes = new byte[pageCount][];
+            int totalBytes = 0;
+
+            for (int i = 0; i < pageCount; i++) {
+                texts[i] = renderPage(coins, i + 1, DEFAULT_PAGE_SIZE, pageCount, lines::get);
+                bytes[i] = texts[i].getBytes(StandardCharsets.UTF_8);
+                totalBytes += bytes[i].length;
+            }
+
+            ByteBuffer encoded = ByteBuffer.allocateDirect(totalBytes);
+            for (int i = 0; i < pageCount; i++) {
+                int start = encoded.position();
+                encoded.put(bytes[i]);
+                encodedPages.put(texts[i], encoded.slice(start, bytes[i].length).asReadOnlyBuffer());
+            }
+
+            pages.put(order, texts);
+        }
+
+        return new RenderedOfferings(pages, encodedPages);
     }
 
 }
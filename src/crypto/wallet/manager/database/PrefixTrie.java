@@ -0,0 +1,139 @@
+package crypto.wallet.manager.database;
+
+import crypto.wallet.manager.crypto.CryptoCoin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Finds coins by a prefix of their offering code or name, ignoring case. Each node keeps its children in a
+ * sorted array instead of a map, which keeps a trie of the whole asset universe small, and lets a search
+ * return its matches in alphabetical order by walking only the subtree of the prefix.
+ * Built once per refresh and only read afterwards.
+ */
+public class PrefixTrie {
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final CryptoCoin[] NO_COINS = new CryptoCoin[0];
+
+    private final Node root = new Node();
+    private int size;
+
+    void add(String key, CryptoCoin coin) {
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+
+        Node node = root;
+        String normalized = normalize(key);
+        for (int i = 0; i < normalized.length(); i++) {
+            node = node.childOrAdd(normalized.charAt(i));
+        }
+
+        node.addCoin(coin);
+        size++;
+    }
+
+    /**
+     * @return up to {@code limit} different coins with a code or name starting with {@code prefix},
+     * in alphabetical order of the matching code or name
+     */
+    public List<CryptoCoin> search(String prefix, int limit) {
+        if (prefix == null || prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Node node = root;
+        String normalized = normalize(prefix);
+        for (int i = 0; i < normalized.length() && node != null; i++) {
+            node = node.child(normalized.charAt(i));
+        }
+
+        if (node == null) {
+            return List.of();
+        }
+
+        Set<CryptoCoin> matches = new LinkedHashSet<>();
+        collect(node, matches, limit);
+        return new ArrayList<>(matches);
+    }
+
+    /**
+     * @return how many keys were added
+     */
+    public int size() {
+        return size;
+    }
+
+    private static void collect(Node node, Set<CryptoCoin> matches, int limit) {
+        for (CryptoCoin coin : node.coins) {
+            if (matches.size() == limit) {
+                return;
+            }
+
+            matches.add(coin);
+        }
+
+        for (Node child : node.children) {
+            if (matches.size() == limit) {
+                return;
+            }
+
+            collect(child, matches, limit);
+        }
+    }
+
+    private static String normalize(String key) {
+        return key.toLowerCase(Locale.ROOT);
+    }
+
+    private static class Node {
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        // the coins whose code or name ends at this node
+        private CryptoCoin[] coins = NO_COINS;
+
+        Node child(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node childOrAdd(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) {
+                return children[index];
+            }
+
+            int insertAt = -index - 1;
+            Node child = new Node();
+            keys = insert(keys, insertAt, key);
+            children = insert(children, insertAt, child);
+            return child;
+        }
+
+        void addCoin(CryptoCoin coin) {
+            coins = Arrays.copyOf(coins, coins.length + 1);
+            coins[coins.length - 1] = coin;
+        }
+
+        private static char[] insert(char[] array, int index, char value) {
+            char[] result = new char[array.length + 1];
+            System.arraycopy(array, 0, result, 0, index);
+            result[index] = value;
+            System.arraycopy(array, index, result, index + 1, array.length - index);
+            return result;
+        }
+
+        private static Node[] insert(Node[] array, int index, Node value) {
+            Node[] result = new Node[array.length + 1];
+            System.arraycopy(array, 0, result, 0, index);
+            result[index] = value;
+            System.arraycopy(array, index, result, index + 1, array.length - index);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package crypto.wallet.manager.database;
+
+import crypto.wallet.manager.crypto.CryptoCoin;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The coins of one price refresh, indexed by offering code. A snapshot never changes once it is built, so any
+ * number of threads can read it without a lock, and everything priced from one snapshot sees the same prices.
+ * Every refresh builds a snapshot with a higher {@link #version()}.
+ * <p>
+ * The coins are also kept sorted in every {@link CoinSortOrder} and in a {@link PrefixTrie} over their codes
+ * and names. These indexes are built with the snapshot, on the refreshing thread, so listing and searching
+ * never sort or scan the whole universe on a request.
+ */
+public final class PriceSnapshot {
+    private static final PriceSnapshot EMPTY = new PriceSnapshot(0, List.of());
+
+    private final long version;
+    private final Map<String, CryptoCoin> coinsByCode;
+    private final Map<CoinSortOrder, List<CryptoCoin>> sortedCoins;
+    private final PrefixTrie searchIndex;
+
+    private PriceSnapshot(long version, Collection<CryptoCoin> coins) {
+        Map<String, CryptoCoin> index = new HashMap<>(coins.size() * 2);
+        for (CryptoCoin coin : coins) {
+            index.put(coin.offeringCode(), coin);
+        }
+
+        this.version = version;
+        this.coinsByCode = Collections.unmodifiableMap(index);
+        this.sortedCoins = new EnumMap<>(CoinSortOrder.class);
+        CryptoCoin[] unique = index.values().toArray(new CryptoCoin[0]);
+        for (CoinSortOrder order : CoinSortOrder.values()) {
+            CryptoCoin[] sorted = unique.clone();
+            Arrays.sort(sorted, order.comparator());
+            sortedCoins.put(order, Collections.unmodifiableList(Arrays.asList(sorted)));
+        }
+
+        this.searchIndex = new PrefixTrie();
+        for (CryptoCoin coin : unique) {
+            searchIndex.add(coin.offeringCode(), coin);
+            searchIndex.add(coin.name(), coin);
+        }
+    }
+
+    public static PriceSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return a snapshot of {@code coins} one version after this one
+     */
+    PriceSnapshot next(Collection<CryptoCoin> coins) {
+        return new PriceSnapshot(version + 1, coins);
+    }
+
+    public Optional<CryptoCoin> find(String offeringCode) {
+        if (offeringCode == null) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(coinsByCode.get(offeringCode));
+    }
+
+    /**
+     * @return every coin in {@code order}, as an unmodifiable list
+     */
+    public List<CryptoCoin> sorted(CoinSortOrder order) {
+        return sortedCoins.get(order);
+    }
+
+    /**
+     * @return the first {@code count} coins in {@code order}
+     */
+    public List<CryptoCoin> top(int count, CoinSortOrder order) {
+        List<CryptoCoin> sorted = sorted(order);
+        return sorted.subList(0, Math.min(Math.max(count, 0), sorted.size()));
+    }
+
+    /**
+     * @return up to {@code limit} coins whose offering code or name starts with {@code prefix}, ignoring case
+     */
+    public List<CryptoCoin> search(String prefix, int limit) {
+        return searchIndex.search(prefix, limit);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * @return every coin by offering code, as an unmodifiable map
+     */
+    public Map<String, CryptoCoin> asMap() {
+        return coinsByCode;
+    }
+
+    public Set<CryptoCoin> coins() {
+        return Set.copyOf(coinsByCode.values());
+    }
+
+    public int size() {
+        return coinsByCode.size();
+    }
+}
@@ -0,0 +1,16 @@
+package crypto.wallet.manager.database;
+
+import crypto.wallet.manager.crypto.CryptoCoin;
+
+import java.util.Collection;
+
+/**
+ * Notified by {@link CryptoCoinsDatabase} on the refreshing thread after new prices are installed.
+ */
+@FunctionalInterface
+public interface PriceUpdateListener {
+    /**
+     * @param changedCoins the coins that are new or whose price differs from the previous refresh
+     */
+    void onPricesUpdated(Collection<CryptoCoin> changedCoins);
+}
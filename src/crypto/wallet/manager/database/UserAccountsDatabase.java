@@ -13,18 +13,21 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class UserAccountsDatabase implements AutoCloseable {
     private static volatile UserAccountsDatabase instance;
-    private final Set<Account> allAccounts;
+    private final Map<String, Account> accountsByUsername;
     private final Set<Account> currentlyUsedAccounts;
     private final String accountsPath;
+    private volatile Account unknownAccount;
 
     private UserAccountsDatabase(String accountsPath) {
-        allAccounts = new HashSet<>();
-        currentlyUsedAccounts = new HashSet<>();
+        accountsByUsername = new ConcurrentHashMap<>();
+        currentlyUsedAccounts = ConcurrentHashMap.newKeySet();
         this.accountsPath = accountsPath;
     }
 
@@ -39,28 +42,52 @@ public class UserAccountsDatabase implements AutoCloseable {
     }
 
     public void createAccount(Account account) throws AccountAlreadyExistsException {
-        if (allAccounts.contains(account)) {
+        if (accountsByUsername.putIfAbsent(account.getUsername(), account) != null) {
             throw new AccountAlreadyExistsException("Account with such name already exists");
         }
 
-        allAccounts.add(account);
         writeAccountsToFile();
     }
 
+    /**
+     * Looks the account up by its username and verifies the password once. The verification runs
+     * without holding any lock, so logins of different users are hashed in parallel.
+     */
     public Account login(String username, String password)
             throws AccountDoesNotExistException, AccountIsAlreadyLoggedInException {
-        for (Account account : allAccounts) {
-            if (account.passwordMatch(password) && account.getUsername().equals(username)) {
-                if (currentlyUsedAccounts.contains(account)) {
-                    throw new AccountIsAlreadyLoggedInException("Account is already in use.");
-                }
+        Account account = accountsByUsername.get(username);
+        if (account == null) {
+            // hash anyway, so that unknown usernames cannot be told apart by the response time
+            getUnknownAccount().passwordMatch(password);
+            throw new AccountDoesNotExistException("No account with these credentials exists in the database");
+        }
 
-                currentlyUsedAccounts.add(account);
-                return account;
-            }
+        if (!account.passwordMatch(password)) {
+            throw new AccountDoesNotExistException("No account with these credentials exists in the database");
+        }
+
+        if (!currentlyUsedAccounts.add(account)) {
+            throw new AccountIsAlreadyLoggedInException("Account is already in use.");
+        }
+
+        return account;
+    }
+
+    /**
+     * Logs in the account of a client whose identity was already proven in another way, without checking the password.
+     */
+    public Account resumeSession(String username)
+            throws AccountDoesNotExistException, AccountIsAlreadyLoggedInException {
+        Account account = accountsByUsername.get(username);
+        if (account == null) {
+            throw new AccountDoesNotExistException("No account with this username exists in the database");
+        }
+
+        if (!currentlyUsedAccounts.add(account)) {
+            throw new AccountIsAlreadyLoggedInException("Account is already in use.");
         }
 
-        throw new AccountDoesNotExistException("No account with these credentials exists in the database");
+        return account;
     }
 
     public void logOut(Account account) {
@@ -79,7 +106,7 @@ public class UserAccountsDatabase implements AutoCloseable {
             Object accountObject;
             while ((accountObject = objectInputStream.readObject()) != null) {
                 Account account = (Account) accountObject;
-                allAccounts.add(account);
+                accountsByUsername.putIfAbsent(account.getUsername(), account);
             }
         } catch (EOFException e) {
             // try with resources was throwing EOFException
@@ -90,11 +117,11 @@ public class UserAccountsDatabase implements AutoCloseable {
         }
     }
 
-    private void writeAccountsToFile() {
+    private synchronized void writeAccountsToFile() {
         Path pathOfAccounts = Path.of(accountsPath);
 
         try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(Files.newOutputStream(pathOfAccounts))) {
-            for (Account account : allAccounts) {
+            for (Account account : accountsByUsername.values()) {
                 objectOutputStream.writeObject(account);
             }
         } catch (IOException e) {
@@ -110,7 +137,7 @@ public class UserAccountsDatabase implements AutoCloseable {
             while (true) {
                 try {
                     account = (Account) ois.readObject();
-                    allAccounts.add(account);
+                    accountsByUsername.putIfAbsent(account.getUsername(), account);
                 } catch (EOFException e) {
                     break;
                 }
@@ -141,11 +168,24 @@ public class UserAccountsDatabase implements AutoCloseable {
     }
 
     public Set<Account> getAllAccounts() {
-        return allAccounts;
+        return Set.copyOf(accountsByUsername.values());
     }
 
     public Set<Account> getCurrentlyUsedAccounts() {
-        return currentlyUsedAccounts;
+        return Collections.unmodifiableSet(currentlyUsedAccounts);
+    }
+
+    /**
+     * Created on first use, since hashing its password at startup would slow down every launch.
+     */
+    private Account getUnknownAccount() {
+        Account account = unknownAccount;
+        if (account == null) {
+            account = new Account("", "");
+            unknownAccount = account;
+        }
+
+        return account;
     }
 
     @Override
@@ -0,0 +1,98 @@
+package crypto.wallet.manager.exchange;
+
+import crypto.wallet.manager.account.Account;
+import crypto.wallet.manager.money.FixedPoint;
+
+/**
+ * A limit order on the exchange. Prices and amounts are {@link FixedPoint} units.
+ * <p>
+ * Besides the amount still to fill, an order keeps what was reserved for it when it was submitted: the money
+ * of a buy at its limit price, or the cost basis of the coins of a sell. Every fill uses up the share of the
+ * reservation that matches its amount, or more when the fill has to pay more than the rounded share, and the
+ * last fill uses up the rest, so no rounding is ever left over.
+ * An order is only changed by the thread of its book.
+ */
+public class ExchangeOrder {
+    private final long id;
+    private final Account account;
+    private final Side side;
+    private final String offeringCode;
+    private final long price;
+    private long remainingAmount;
+    private long reserved;
+
+    public ExchangeOrder(long id, Account account, Side side, String offeringCode, long price, long amount,
+                         long reserved) {
+        if (side == null || offeringCode == null) {
+            throw new IllegalArgumentException("side and offeringCode cannot be null");
+        }
+
+        if (price <= 0 || amount <= 0 || reserved < 0) {
+            throw new IllegalArgumentException("price and amount must be positive and reserved cannot be negative");
+        }
+
+        this.id = id;
+        this.account = account;
+        this.side = side;
+        this.offeringCode = offeringCode;
+        this.price = price;
+        this.remainingAmount = amount;
+        this.reserved = reserved;
+    }
+
+    /**
+     * @param atLeast what the fill has to pay out of the reservation; it gets more than its share only as long
+     *                as the reservation lasts
+     * @return the part of the reservation that {@code amount} of the order used up
+     */
+    long fill(long amount, long atLeast) {
+        if (amount <= 0 || amount > remainingAmount) {
+            throw new IllegalArgumentException("amount must be positive and cannot exceed the remaining amount");
+        }
+
+        long used = (amount == remainingAmount) ? reserved
+                : Math.min(reserved, Math.max(atLeast, FixedPoint.multiplyDivide(reserved, amount, remainingAmount)));
+        reserved -= used;
+        remainingAmount -= amount;
+        return used;
+    }
+
+    /**
+     * @return whether the resting order with this limit price can trade with this order
+     */
+    boolean crosses(long restingPrice) {
+        return (side == Side.BUY) ? restingPrice <= price : restingPrice >= price;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public Side getSide() {
+        return side;
+    }
+
+    public String getOfferingCode() {
+        return offeringCode;
+    }
+
+    public long getPrice() {
+        return price;
+    }
+
+    public long getRemainingAmount() {
+        return remainingAmount;
+    }
+
+    public long getReserved() {
+        return reserved;
+    }
+
+    public boolean isFilled() {
+        return remainingAmount == 0;
+    }
+}
@@ -0,0 +1,14 @@
+package crypto.wallet.manager.exchange;
+
+import crypto.wallet.manager.money.FixedPoint;
+
+/**
+ * A trade between two exchange orders, at the price of the one that was resting in the book.
+ * Prices and amounts are {@link FixedPoint} units.
+ */
+public record Fill(String offeringCode, long buyOrderId, long sellOrderId, long price, long amount) {
+
+    public long total() {
+        return FixedPoint.multiply(amount, price);
+    }
+}
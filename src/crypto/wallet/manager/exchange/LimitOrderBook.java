@@ -0,0 +1,141 @@
+package crypto.wallet.manager.exchange;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The resting exchange orders of one coin, matched by price-time priority: an incoming order trades with the
+ * best priced resting orders first and, among equal prices, with the oldest first. Each price level is a FIFO
+ * queue in a sorted map, so the best order is found in O(log n) and a fill never walks the rest of the book.
+ * <p>
+ * A book is not thread-safe; the {@link MatchingEngine} only touches it from the single thread that owns it.
+ */
+public class LimitOrderBook {
+    private final String offeringCode;
+    private final Settlement settlement;
+    // the highest bid first
+    private final NavigableMap<Long, ArrayDeque<ExchangeOrder>> bids = new TreeMap<>(Comparator.reverseOrder());
+    // the lowest ask first
+    private final NavigableMap<Long, ArrayDeque<ExchangeOrder>> asks = new TreeMap<>();
+    private final Map<Long, ExchangeOrder> restingOrders = new HashMap<>();
+
+    public LimitOrderBook(String offeringCode, Settlement settlement) {
+        if (offeringCode == null || settlement == null) {
+            throw new IllegalArgumentException("offeringCode and settlement cannot be null");
+        }
+
+        this.offeringCode = offeringCode;
+        this.settlement = settlement;
+    }
+
+    /**
+     * Matches the order against the other side of the book, settling every fill, and rests whatever is left of it.
+     *
+     * @return the fills in the order they happened
+     */
+    public List<Fill> submit(ExchangeOrder order) {
+        if (!offeringCode.equals(order.getOfferingCode())) {
+            throw new IllegalArgumentException("Order for " + order.getOfferingCode() + " in the book of " + offeringCode);
+        }
+
+        NavigableMap<Long, ArrayDeque<ExchangeOrder>> opposite = sideOf(order.getSide().opposite());
+        List<Fill> fills = new ArrayList<>();
+
+        while (!order.isFilled() && !opposite.isEmpty()) {
+            Map.Entry<Long, ArrayDeque<ExchangeOrder>> bestLevel = opposite.firstEntry();
+            long price = bestLevel.getKey();
+            if (!order.crosses(price)) {
+                break;
+            }
+
+            ArrayDeque<ExchangeOrder> level = bestLevel.getValue();
+            ExchangeOrder resting = level.peekFirst();
+            fills.add(trade(order, resting, price));
+
+            if (resting.isFilled()) {
+                level.pollFirst();
+                restingOrders.remove(resting.getId());
+                if (level.isEmpty()) {
+                    opposite.pollFirstEntry();
+                }
+            }
+        }
+
+        if (!order.isFilled()) {
+            sideOf(order.getSide()).computeIfAbsent(order.getPrice(), p -> new ArrayDeque<>()).addLast(order);
+            restingOrders.put(order.getId(), order);
+        }
+
+        return fills;
+    }
+
+    private Fill trade(ExchangeOrder incoming, ExchangeOrder resting, long price) {
+        long amount = Math.min(incoming.getRemainingAmount(), resting.getRemainingAmount());
+        ExchangeOrder buy = (incoming.getSide() == Side.BUY) ? incoming : resting;
+        ExchangeOrder sell = (incoming.getSide() == Side.BUY) ? resting : incoming;
+
+        Fill fill = new Fill(offeringCode, buy.getId(), sell.getId(), price, amount);
+        long buyReserved = buy.fill(amount, fill.total());
+        long sellReserved = sell.fill(amount, 0);
+        settlement.settle(fill, buy, buyReserved, sell, sellReserved);
+        return fill;
+    }
+
+    /**
+     * Takes a resting order out of the book. Its remaining amount and reservation are left as they were,
+     * for the caller to give back.
+     *
+     * @return the order, or null if no order with this id is resting
+     */
+    public ExchangeOrder cancel(long orderId) {
+        ExchangeOrder order = restingOrders.remove(orderId);
+        if (order == null) {
+            return null;
+        }
+
+        NavigableMap<Long, ArrayDeque<ExchangeOrder>> side = sideOf(order.getSide());
+        ArrayDeque<ExchangeOrder> level = side.get(order.getPrice());
+        level.remove(order);
+        if (level.isEmpty()) {
+            side.remove(order.getPrice());
+        }
+
+        return order;
+    }
+
+    public ExchangeOrder getRestingOrder(long orderId) {
+        return restingOrders.get(orderId);
+    }
+
+    /**
+     * @return the highest bid, or 0 if there are no bids
+     */
+    public long getBestBid() {
+        return bids.isEmpty() ? 0 : bids.firstKey();
+    }
+
+    /**
+     * @return the lowest ask, or 0 if there are no asks
+     */
+    public long getBestAsk() {
+        return asks.isEmpty() ? 0 : asks.firstKey();
+    }
+
+    public int countRestingOrders() {
+        return restingOrders.size();
+    }
+
+    public String getOfferingCode() {
+        return offeringCode;
+    }
+
+    private NavigableMap<Long, ArrayDeque<ExchangeOrder>> sideOf(Side side) {
+        return side == Side.BUY ? bids : asks;
+    }
+}
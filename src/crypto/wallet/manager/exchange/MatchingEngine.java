@@ -0,0 +1,166 @@
+package crypto.wallet.manager.exchange;
+
+import crypto.wallet.manager.account.Account;
+import crypto.wallet.manager.exceptions.InsufficientBalanceException;
+import crypto.wallet.manager.money.FixedPoint;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The internal exchange, where accounts trade coins with each other instead of at the reference price.
+ * <p>
+ * Every coin has its own {@link LimitOrderBook}, and the books are partitioned over a fixed number of
+ * single-threaded partitions by offering code. A book is only ever touched by the thread of its partition,
+ * so matching needs no locks, while books of different partitions match in parallel.
+ * <p>
+ * The money of a buy and the coins of a sell are reserved from the account when the order is submitted,
+ * on the caller's thread, so a fill can never fail. Settling a fill then only pays out to each of the two
+ * accounts under its own lock, and never needs to hold both locks at once.
+ */
+public class MatchingEngine implements AutoCloseable {
+    public static final int DEFAULT_PARTITIONS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    private final ExecutorService[] partitions;
+    private final Map<String, LimitOrderBook> books;
+    private final AtomicLong nextOrderId;
+
+    public MatchingEngine() {
+        this(DEFAULT_PARTITIONS);
+    }
+
+    public MatchingEngine(int partitionCount) {
+        if (partitionCount <= 0) {
+            throw new IllegalArgumentException("partitionCount must be a positive number");
+        }
+
+        this.partitions = new ExecutorService[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = Executors.newSingleThreadExecutor(newThreadFactory(i));
+        }
+
+        this.books = new ConcurrentHashMap<>();
+        this.nextOrderId = new AtomicLong(1);
+    }
+
+    /**
+     * Reserves what the order needs from the account and hands it to the thread of its book.
+     *
+     * @param amount the coins to trade, {@link FixedPoint} units
+     * @param price  the limit price, {@link FixedPoint} units
+     * @return the fills the order made right away and what is left of it in the book
+     * @throws InsufficientBalanceException if the account cannot pay for a buy or does not hold the coins of a sell
+     */
+    public CompletableFuture<OrderResult> submit(Account account, Side side, String offeringCode, long amount,
+                                                 long price) throws InsufficientBalanceException {
+        if (account == null || side == null || offeringCode == null) {
+            throw new IllegalArgumentException("account, side and offeringCode cannot be null");
+        }
+
+        if (amount <= 0 || price <= 0) {
+            throw new IllegalArgumentException("amount and price must be positive");
+        }
+
+        long reserved;
+        if (side == Side.BUY) {
+            reserved = FixedPoint.multiply(amount, price);
+            account.reserveFunds(reserved);
+        } else {
+            reserved = account.reserveCoins(offeringCode, amount);
+        }
+
+        ExchangeOrder order = new ExchangeOrder(nextOrderId.getAndIncrement(), account, side, offeringCode, price,
+                amount, reserved);
+
+        return CompletableFuture.supplyAsync(() -> {
+            LimitOrderBook book = bookOf(offeringCode);
+            return new OrderResult(order.getId(), book.submit(order), order.getRemainingAmount());
+        }, partitionOf(offeringCode));
+    }
+
+    /**
+     * Takes a resting order of the account out of its book and gives back what is still reserved for it.
+     *
+     * @return whether the order was resting and belonged to the account
+     */
+    public CompletableFuture<Boolean> cancel(Account account, String offeringCode, long orderId) {
+        if (account == null || offeringCode == null) {
+            throw new IllegalArgumentException("account and offeringCode cannot be null");
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            LimitOrderBook book = books.get(offeringCode);
+            ExchangeOrder order = (book == null) ? null : book.getRestingOrder(orderId);
+            if (order == null || !order.getAccount().equals(account)) {
+                return false;
+            }
+
+            book.cancel(orderId);
+            release(order);
+            return true;
+        }, partitionOf(offeringCode));
+    }
+
+    /**
+     * @return the book of the coin; it must only be read from the coin's partition, for example in a task
+     * handed to it by {@link #submit}
+     */
+    LimitOrderBook bookOf(String offeringCode) {
+        return books.computeIfAbsent(offeringCode, code -> new LimitOrderBook(code, MatchingEngine::settle));
+    }
+
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    @Override
+    public void close() {
+        for (ExecutorService partition : partitions) {
+            partition.shutdown();
+        }
+    }
+
+    private ExecutorService partitionOf(String offeringCode) {
+        return partitions[Math.floorMod(offeringCode.hashCode(), partitions.length)];
+    }
+
+    /**
+     * The buyer never pays more than the fill used up of the reservation, and the seller receives exactly what
+     * the buyer paid. The two only fall short of the total when rounding of many tiny fills used up the
+     * reservation early.
+     */
+    private static void settle(Fill fill, ExchangeOrder buy, long buyReserved, ExchangeOrder sell,
+                               long sellReserved) {
+        long paid = Math.min(fill.total(), buyReserved);
+        buy.getAccount().settleBuy(fill.offeringCode(), fill.amount(), fill.price(), buyReserved - paid);
+        sell.getAccount().settleSell(paid, sellReserved);
+    }
+
+    private static void release(ExchangeOrder order) {
+        if (order.getSide() == Side.BUY) {
+            if (order.getReserved() > 0) {
+                order.getAccount().releaseFunds(order.getReserved());
+            }
+        } else {
+            order.getAccount().releaseCoins(order.getOfferingCode(), order.getRemainingAmount(), order.getReserved());
+        }
+    }
+
+    /**
+     * Daemon threads, so an idle engine never keeps the server process alive.
+     */
+    private static ThreadFactory newThreadFactory(int partition) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "matching-" + partition + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,18 @@
+package crypto.wallet.manager.exchange;
+
+import java.util.List;
+
+/**
+ * What became of a submitted exchange order: the fills it made right away and the amount left resting in the book.
+ */
+public record OrderResult(long orderId, List<Fill> fills, long remainingAmount) {
+
+    public long filledAmount() {
+        long filled = 0;
+        for (Fill fill : fills) {
+            filled += fill.amount();
+        }
+
+        return filled;
+    }
+}
@@ -0,0 +1,14 @@
+package crypto.wallet.manager.exchange;
+
+/**
+ * Moves the money and the coins of a fill between the two orders' owners.
+ */
+@FunctionalInterface
+public interface Settlement {
+
+    /**
+     * @param buyReserved  the part of the buy order's reserved money the fill used up
+     * @param sellReserved the part of the sell order's reserved cost basis the fill used up
+     */
+    void settle(Fill fill, ExchangeOrder buy, long buyReserved, ExchangeOrder sell, long sellReserved);
+}
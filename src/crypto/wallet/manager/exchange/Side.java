@@ -0,0 +1,10 @@
+package crypto.wallet.manager.exchange;
+
+public enum Side {
+    BUY,
+    SELL;
+
+    public Side opposite() {
+        return this == BUY ? SELL : BUY;
+    }
+}
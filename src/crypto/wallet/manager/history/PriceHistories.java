@@ -0,0 +1,101 @@
+package crypto.wallet.manager.history;
+
+import crypto.wallet.manager.crypto.CryptoCoin;
+import crypto.wallet.manager.database.CryptoCoinsDatabase;
+import crypto.wallet.manager.database.PriceUpdateListener;
+import crypto.wallet.manager.money.FixedPoint;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * The {@link PriceHistory} of every coin, fed by the price refreshes of a {@link CryptoCoinsDatabase}.
+ * A coin gets a point whenever its price changes, stamped with the time of the refresh, so its history is
+ * the exact step function of its price and coins that never move cost a single point.
+ */
+public class PriceHistories implements PriceUpdateListener {
+    // two days of refreshes every 30 minutes
+    public static final int DEFAULT_CAPACITY = 96;
+
+    private final int capacity;
+    private final LongSupplier clock;
+    private final Map<String, PriceHistory> historiesByCoin;
+
+    public PriceHistories() {
+        this(DEFAULT_CAPACITY, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock the current time in milliseconds, read once per refresh
+     */
+    public PriceHistories(int capacity, LongSupplier clock) {
+        if (capacity < PriceHistory.MIN_CAPACITY || clock == null) {
+            throw new IllegalArgumentException(
+                    "capacity must be at least " + PriceHistory.MIN_CAPACITY + " and clock not null");
+        }
+
+        this.capacity = capacity;
+        this.clock = clock;
+        this.historiesByCoin = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void onPricesUpdated(Collection<CryptoCoin> changedCoins) {
+        long now = clock.getAsLong();
+        for (CryptoCoin coin : changedCoins) {
+            historiesByCoin.computeIfAbsent(coin.offeringCode(), code -> new PriceHistory(capacity))
+                    .add(now, coin.priceUnits());
+        }
+    }
+
+    public Optional<PriceHistory> find(String offeringCode) {
+        if (offeringCode == null) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(historiesByCoin.get(offeringCode));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the latest {@code points} prices of the coin and the trend of its whole history, or an empty
+     * optional if the coin has no history
+     */
+    public Optional<String> describe(String offeringCode, int points) {
+        return find(offeringCode).map(history -> describe(offeringCode, history, points));
+    }
+
+    private static String describe(String offeringCode, PriceHistory history, int points) {
+        PriceStatistics statistics;
+        List<PricePoint> latest;
+        // a refresh in between would make the points and the statistics disagree
+        synchronized (history) {
+            statistics = history.statistics();
+            latest = history.latest(points);
+        }
+
+        StringBuilder result = new StringBuilder(String.format("Price history of %s (last %d of %d points):",
+                offeringCode, latest.size(), statistics.points()));
+        for (PricePoint point : latest) {
+            result.append(System.lineSeparator())
+                    .append(String.format("%s - %.2f US dollars",
+                            Instant.ofEpochMilli(point.timestampMillis()), point.priceUSD()));
+        }
+
+        return result.append(System.lineSeparator())
+                .append(String.format("Change: %+.2f US dollars (%+.2f%%)",
+                        FixedPoint.toDouble(statistics.change()),
+                        statistics.relativeChange() * 100))
+                .append(System.lineSeparator())
+                .append(String.format("Volatility: %.2f%% per change", statistics.volatility() * 100))
+                .toString();
+    }
+}
@@ -0,0 +1,147 @@
+package crypto.wallet.manager.history;
+
+import crypto.wallet.manager.money.FixedPoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The latest prices of one coin, in a ring of at most {@code capacity} points stored column by column in
+ * primitive arrays. Prices are {@link FixedPoint} units. Once the ring is full every new point overwrites the
+ * oldest one, so the memory of a coin never grows past its capacity however long the server runs.
+ * <p>
+ * The sums of the relative changes between consecutive points are updated on every insert and eviction,
+ * so {@link #statistics()} is O(1). Sliding double sums slowly drift, so they are recounted from the points
+ * once every {@code capacity} evictions, which keeps inserts amortized O(1).
+ */
+public class PriceHistory {
+    static final int MIN_CAPACITY = 2;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int capacity;
+    private long[] timestamps;
+    private long[] prices;
+    // the slot of the oldest point, which only moves once the arrays have reached the capacity
+    private int head;
+    private int size;
+    private double sumOfReturns;
+    private double sumOfSquaredReturns;
+    private int evictionsSinceRecount;
+
+    public PriceHistory(int capacity) {
+        if (capacity < MIN_CAPACITY) {
+            throw new IllegalArgumentException("capacity must be at least " + MIN_CAPACITY);
+        }
+
+        this.capacity = capacity;
+        // coins that rarely change never need the whole ring
+        this.timestamps = new long[Math.min(INITIAL_CAPACITY, capacity)];
+        this.prices = new long[timestamps.length];
+    }
+
+    public synchronized void add(long timestampMillis, long priceUnits) {
+        if (priceUnits <= 0) {
+            throw new IllegalArgumentException("priceUnits must be positive");
+        }
+
+        if (size == capacity) {
+            evictOldest();
+        } else if (size == prices.length) {
+            grow();
+        }
+
+        if (size > 0) {
+            addReturn(relativeChange(prices[slot(size - 1)], priceUnits), 1);
+        }
+
+        int slot = slot(size);
+        timestamps[slot] = timestampMillis;
+        prices[slot] = priceUnits;
+        size++;
+    }
+
+    /**
+     * @return the latest {@code count} points, oldest first
+     */
+    public synchronized List<PricePoint> latest(int count) {
+        int returned = Math.min(Math.max(count, 0), size);
+        List<PricePoint> points = new ArrayList<>(returned);
+        for (int i = size - returned; i < size; i++) {
+            int slot = slot(i);
+            points.add(new PricePoint(timestamps[slot], prices[slot]));
+        }
+
+        return points;
+    }
+
+    /**
+     * @return the trend of every point held, or statistics of no points if there are none
+     */
+    public synchronized PriceStatistics statistics() {
+        if (size == 0) {
+            return new PriceStatistics(0, 0, 0, 0);
+        }
+
+        return new PriceStatistics(size, prices[head], prices[slot(size - 1)], volatility());
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private double volatility() {
+        int returns = size - 1;
+        if (returns < 2) {
+            return 0;
+        }
+
+        double variance = (sumOfSquaredReturns - sumOfReturns * sumOfReturns / returns) / (returns - 1);
+        // rounding can leave a tiny negative variance for a flat price
+        return Math.sqrt(Math.max(0, variance));
+    }
+
+    private void evictOldest() {
+        addReturn(relativeChange(prices[head], prices[slot(1)]), -1);
+        head = slot(1);
+        size--;
+
+        if (++evictionsSinceRecount >= capacity) {
+            recount();
+        }
+    }
+
+    private void recount() {
+        sumOfReturns = 0;
+        sumOfSquaredReturns = 0;
+        for (int i = 1; i < size; i++) {
+            addReturn(relativeChange(prices[slot(i - 1)], prices[slot(i)]), 1);
+        }
+
+        evictionsSinceRecount = 0;
+    }
+
+    private void addReturn(double change, int sign) {
+        sumOfReturns += sign * change;
+        sumOfSquaredReturns += sign * change * change;
+    }
+
+    private void grow() {
+        // nothing has been evicted yet, so the points start at slot 0
+        int newLength = Math.min(capacity, prices.length * 2);
+        timestamps = Arrays.copyOf(timestamps, newLength);
+        prices = Arrays.copyOf(prices, newLength);
+    }
+
+    private int slot(int index) {
+        return (head + index) % prices.length;
+    }
+
+    private static double relativeChange(long from, long to) {
+        return (double) (to - from) / from;
+    }
+}
@@ -0,0 +1,13 @@
+package crypto.wallet.manager.history;
+
+import crypto.wallet.manager.money.FixedPoint;
+
+/**
+ * @param priceUnits the price in US dollars as {@link FixedPoint} units
+ */
+public record PricePoint(long timestampMillis, long priceUnits) {
+
+    public double priceUSD() {
+        return FixedPoint.toDouble(priceUnits);
+    }
+}
@@ -0,0 +1,27 @@
+package crypto.wallet.manager.history;
+
+import crypto.wallet.manager.money.FixedPoint;
+
+/**
+ * The trend of the points a {@link PriceHistory} holds. Prices are {@link FixedPoint} units.
+ *
+ * @param points     the number of points the statistics cover
+ * @param volatility the sample standard deviation of the relative change between consecutive points,
+ *                   as a fraction, or 0 with fewer than three points
+ */
+public record PriceStatistics(int points, long firstPrice, long lastPrice, double volatility) {
+
+    /**
+     * @return the change from the oldest to the latest price, as {@link FixedPoint} units
+     */
+    public long change() {
+        return lastPrice - firstPrice;
+    }
+
+    /**
+     * @return the change from the oldest to the latest price, as a fraction of the oldest price
+     */
+    public double relativeChange() {
+        return firstPrice == 0 ? 0 : (double) change() / firstPrice;
+    }
+}
@@ -0,0 +1,132 @@
+package crypto.wallet.manager.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money and coin amounts as {@code long} counts of 10<sup>-{@value #SCALE}</sup> units, so balances, prices and
+ * holdings add up exactly and without allocating. Conversions from and to {@code double} and text happen only
+ * where values enter or leave the server.
+ */
+public final class FixedPoint {
+    public static final int SCALE = 8;
+    public static final long ONE = 100_000_000L;
+
+    private static final long LOW_32_BITS = 0xFFFF_FFFFL;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * @return {@code value} rounded half up to {@value #SCALE} decimal places, read the way it is printed
+     * @throws ArithmeticException if the value does not fit
+     */
+    public static long fromDouble(double value) {
+        return BigDecimal.valueOf(value).setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * @throws NumberFormatException if {@code value} is not a decimal number
+     * @throws ArithmeticException if the value does not fit
+     */
+    public static long parse(String value) {
+        return new BigDecimal(value).setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static double toDouble(long units) {
+        return (double) units / ONE;
+    }
+
+    public static String toPlainString(long units) {
+        return BigDecimal.valueOf(units, SCALE).toPlainString();
+    }
+
+    /**
+     * @return the price of {@code amount} coins that cost {@code price} each, rounded half up
+     */
+    public static long multiply(long amount, long price) {
+        return multiplyDivide(amount, price, ONE);
+    }
+
+    /**
+     * @return the price of one coin when {@code amount} coins cost {@code total}, rounded half up
+     */
+    public static long divide(long total, long amount) {
+        return multiplyDivide(total, ONE, amount);
+    }
+
+    /**
+     * Computes {@code a * b / divisor} rounded half up, keeping the full 128 bit product so that no
+     * intermediate result overflows.
+     *
+     * @throws IllegalArgumentException if {@code a} or {@code b} is negative or {@code divisor} is not positive
+     * @throws ArithmeticException if the result does not fit in a {@code long}
+     */
+    public static long multiplyDivide(long a, long b, long divisor) {
+        if (a < 0 || b < 0 || divisor <= 0) {
+            throw new IllegalArgumentException("a and b cannot be negative and divisor must be positive");
+        }
+
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+
+        if (high == 0 && low >= 0) {
+            return roundHalfUp(low / divisor, low % divisor, divisor);
+        }
+
+        if (divisor <= Integer.MAX_VALUE) {
+            return divideByInt(high, low, divisor);
+        }
+
+        return divideByLong(high, low, divisor);
+    }
+
+    // schoolbook division in 32 bit digits; every partial dividend fits in a long since the remainder is below 2^31
+    private static long divideByInt(long high, long low, long divisor) {
+        long dividend = high >>> 32;
+        long quotient3 = dividend / divisor;
+        dividend = (dividend % divisor) << 32 | (high & LOW_32_BITS);
+        long quotient2 = dividend / divisor;
+        dividend = (dividend % divisor) << 32 | (low >>> 32);
+        long quotient1 = dividend / divisor;
+        dividend = (dividend % divisor) << 32 | (low & LOW_32_BITS);
+        long quotient0 = dividend / divisor;
+
+        if (quotient3 != 0 || quotient2 != 0 || quotient1 > Integer.MAX_VALUE) {
+            throw new ArithmeticException("long overflow");
+        }
+
+        return roundHalfUp(quotient1 << 32 | quotient0, dividend % divisor, divisor);
+    }
+
+    // restoring division one bit at a time, for divisors too large to use 32 bit digits
+    private static long divideByLong(long high, long low, long divisor) {
+        if (high >= divisor) {
+            throw new ArithmeticException("long overflow");
+        }
+
+        long remainder = high;
+        long quotient = 0;
+
+        for (int bit = Long.SIZE - 1; bit >= 0; bit--) {
+            boolean carry = remainder < 0;
+            remainder = remainder << 1 | (low >>> bit & 1);
+            quotient <<= 1;
+
+            if (carry || Long.compareUnsigned(remainder, divisor) >= 0) {
+                remainder -= divisor;
+                quotient |= 1;
+            }
+        }
+
+        if (quotient < 0) {
+            throw new ArithmeticException("long overflow");
+        }
+
+        return roundHalfUp(quotient, remainder, divisor);
+    }
+
+    private static long roundHalfUp(long quotient, long remainder, long divisor) {
+        return (remainder >= divisor - remainder) ? Math.addExact(quotient, 1) : quotient;
+    }
+}
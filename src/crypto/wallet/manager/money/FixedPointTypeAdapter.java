@@ -0,0 +1,45 @@
+package crypto.wallet.manager.money;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads JSON numbers straight into {@link FixedPoint} units, without passing through {@code double},
+ * so prices from the API keep every decimal they were sent with.
+ */
+public class FixedPointTypeAdapter extends TypeAdapter<Long> {
+
+    @Override
+    public void write(JsonWriter out, Long units) throws IOException {
+        if (units == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.jsonValue(FixedPoint.toPlainString(units));
+    }
+
+    /**
+     * @return the units of the number, or 0 for a missing value or one that is not a number or does not fit,
+     * so a single bad price leaves out its coin instead of failing the whole response
+     */
+    @Override
+    public Long read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            in.skipValue();
+            return 0L;
+        }
+
+        String value = in.nextString();
+        try {
+            return FixedPoint.parse(value);
+        } catch (NumberFormatException | ArithmeticException e) {
+            return 0L;
+        }
+    }
+}
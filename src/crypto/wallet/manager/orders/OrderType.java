@@ -0,0 +1,18 @@
+package crypto.wallet.manager.orders;
+
+public enum OrderType {
+    LIMIT_BUY,
+    LIMIT_SELL,
+    STOP_LOSS;
+
+    /**
+     * @return true if the order fires once the price falls to its trigger price, false if once it rises to it
+     */
+    public boolean triggersOnFall() {
+        return this != LIMIT_SELL;
+    }
+
+    public boolean isTriggeredBy(long triggerPrice, long price) {
+        return triggersOnFall() ? price <= triggerPrice : price >= triggerPrice;
+    }
+}
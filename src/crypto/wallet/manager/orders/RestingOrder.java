@@ -0,0 +1,12 @@
+package crypto.wallet.manager.orders;
+
+import crypto.wallet.manager.account.Account;
+import crypto.wallet.manager.money.FixedPoint;
+
+/**
+ * @param amount       the coins to buy or sell, as {@link FixedPoint} units
+ * @param triggerPrice the price that fires the order, as {@link FixedPoint} units
+ */
+public record RestingOrder(long id, Account account, OrderType type, String offeringCode, long amount,
+                           long triggerPrice) {
+}
@@ -0,0 +1,143 @@
+package crypto.wallet.manager.orders;
+
+import crypto.wallet.manager.account.Account;
+import crypto.wallet.manager.account.CostBasisMethod;
+import crypto.wallet.manager.crypto.CryptoCoin;
+import crypto.wallet.manager.database.CryptoCoinsDatabase;
+import crypto.wallet.manager.database.PriceUpdateListener;
+import crypto.wallet.manager.exceptions.InsufficientBalanceException;
+import crypto.wallet.manager.exceptions.InvalidCryptoCoinException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limit and stop orders waiting on the server for the price of their coin to reach their trigger price.
+ * The orders of each coin are sorted by trigger price, so a price refresh takes the crossed orders off the
+ * end of a sorted map in O(log n + k) instead of checking every order. Fired orders are executed through
+ * the usual {@link Account} buy and sell, at the price of the refresh.
+ */
+public class RestingOrders implements PriceUpdateListener {
+    private final CryptoCoinsDatabase cryptoCoinsDatabase;
+    private final Map<String, CoinOrders> ordersByCoin;
+    private final AtomicLong nextOrderId;
+
+    public RestingOrders(CryptoCoinsDatabase cryptoCoinsDatabase) {
+        this.cryptoCoinsDatabase = cryptoCoinsDatabase;
+        this.ordersByCoin = new ConcurrentHashMap<>();
+        this.nextOrderId = new AtomicLong(1);
+    }
+
+    /**
+     * Adds an order. If the current price has already reached the trigger price, the order is executed right away.
+     *
+     * @throws InvalidCryptoCoinException if there is no coin with this offering code
+     */
+    public RestingOrder place(Account account, OrderType type, String offeringCode, long amount,
+                              long triggerPrice) throws InvalidCryptoCoinException {
+        if (account == null || type == null || offeringCode == null) {
+            throw new IllegalArgumentException("account, type and offeringCode cannot be null");
+        }
+
+        if (amount <= 0 || triggerPrice <= 0) {
+            throw new IllegalArgumentException("amount and triggerPrice must be positive");
+        }
+
+        CryptoCoin cryptoCoin = cryptoCoinsDatabase.findCryptoCoinByOfferingCode(offeringCode)
+                .orElseThrow(() -> new InvalidCryptoCoinException("Crypto coin not found: " + offeringCode));
+
+        RestingOrder order = new RestingOrder(nextOrderId.getAndIncrement(), account, type, offeringCode, amount,
+                triggerPrice);
+        ordersByCoin.computeIfAbsent(offeringCode, code -> new CoinOrders()).add(order);
+
+        if (type.isTriggeredBy(triggerPrice, cryptoCoin.priceUnits())) {
+            executeTriggered(cryptoCoin);
+        }
+
+        return order;
+    }
+
+    public int countOrders(String offeringCode) {
+        CoinOrders orders = ordersByCoin.get(offeringCode);
+        return orders == null ? 0 : orders.size();
+    }
+
+    @Override
+    public void onPricesUpdated(Collection<CryptoCoin> changedCoins) {
+        for (CryptoCoin coin : changedCoins) {
+            executeTriggered(coin);
+        }
+    }
+
+    private void executeTriggered(CryptoCoin coin) {
+        CoinOrders orders = ordersByCoin.get(coin.offeringCode());
+        if (orders == null) {
+            return;
+        }
+
+        for (RestingOrder order : orders.takeTriggered(coin.priceUnits())) {
+            execute(order);
+        }
+    }
+
+    private void execute(RestingOrder order) {
+        try {
+            Account account = order.account();
+            if (order.type() == OrderType.LIMIT_BUY) {
+                account.buyCryptoCoin(order.amount(), order.offeringCode(), cryptoCoinsDatabase);
+            } else {
+                account.sellCryptoCoin(order.offeringCode(), order.amount(), CostBasisMethod.FIFO,
+                        cryptoCoinsDatabase);
+            }
+        } catch (InsufficientBalanceException | InvalidCryptoCoinException | IllegalArgumentException e) {
+            System.out.println("Resting order " + order.id() + " could not be executed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The orders of one coin by trigger price, oldest first among equal trigger prices.
+     */
+    private static class CoinOrders {
+        // fire when the price is at or below their trigger price
+        private final NavigableMap<Long, ArrayDeque<RestingOrder>> onFall = new TreeMap<>();
+        // fire when the price is at or above their trigger price
+        private final NavigableMap<Long, ArrayDeque<RestingOrder>> onRise = new TreeMap<>();
+        private int size;
+
+        synchronized void add(RestingOrder order) {
+            NavigableMap<Long, ArrayDeque<RestingOrder>> orders = order.type().triggersOnFall() ? onFall : onRise;
+            orders.computeIfAbsent(order.triggerPrice(), price -> new ArrayDeque<>()).add(order);
+            size++;
+        }
+
+        /**
+         * @return the orders whose trigger price {@code price} reached, which are removed, the best priced first
+         */
+        synchronized List<RestingOrder> takeTriggered(long price) {
+            List<RestingOrder> triggered = new ArrayList<>();
+            take(onFall.tailMap(price, true).descendingMap(), triggered);
+            take(onRise.headMap(price, true), triggered);
+            size -= triggered.size();
+            return triggered;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private static void take(NavigableMap<Long, ArrayDeque<RestingOrder>> crossed, List<RestingOrder> triggered) {
+            for (ArrayDeque<RestingOrder> orders : crossed.values()) {
+                triggered.addAll(orders);
+            }
+
+            crossed.clear();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package crypto.wallet.manager.protocol;
+
+import crypto.wallet.manager.account.CostBasisMethod;
+import crypto.wallet.manager.commands.Command;
+import crypto.wallet.manager.commands.CommandErrorMessageType;
+import crypto.wallet.manager.commands.CommandType;
+import crypto.wallet.manager.commands.TypedArguments;
+import crypto.wallet.manager.database.CoinSortOrder;
+import crypto.wallet.manager.exceptions.ParseException;
+import crypto.wallet.manager.money.FixedPoint;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact length-prefixed protocol for machine clients.
+ * <p>
+ * A binary connection starts with the {@link #MAGIC} byte. After it every request is
+ * {@code int length | byte opcode | fields}, where the length counts the bytes after itself and
+ * the opcode is {@link CommandType#getOpcode()}. Fields are strings ({@code unsigned short length | UTF-8}),
+ * offering codes ({@code unsigned byte length | ASCII}) and amounts (a {@code long} with
+ * {@link #AMOUNT_SCALE} implied decimal places). Every response is {@code int length | byte status | payload}:
+ * the status is {@link #STATUS_OK} followed by a UTF-8 payload, or the code of a
+ * {@link CommandErrorMessageType} without a payload. A sell may end with an amount and the ordinal of a
+ * {@link CostBasisMethod} byte to sell only part of a holding. A multi command is the tokens of its text form as
+ * strings, up to the end of the request. An exchange cancel is an offering code and the order id as a {@code long}.
+ * A search is its prefix as a string, and a top is the count as an {@code unsigned short}, optionally followed
+ * by the ordinal of a {@link CoinSortOrder} byte. A list_cryptos is either empty or the page as an {@code int},
+ * the page size as an {@code unsigned short} and the ordinal of a {@link CoinSortOrder} byte. A history is an
+ * offering code, optionally followed by the number of points as an {@code unsigned short}.
+ * Numbers and amounts are decoded into {@link TypedArguments}, so they are never formatted or parsed as text.
+ * <p>
+ * Price updates of a {@code subscribe} command are pushed as {@code int length | byte STATUS_PRICE_UPDATE |
+ * offering code | amount}, so clients can tell them apart from responses.
+ */
+public final class BinaryProtocol {
+    public static final byte MAGIC = (byte) 0xB7;
+    public static final int AMOUNT_SCALE = FixedPoint.SCALE;
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_PRICE_UPDATE = (byte) 0xFF;
+    public static final int LENGTH_FIELD_SIZE = Integer.BYTES;
+
+    private static final CoinCodeInterner COIN_CODES = new CoinCodeInterner();
+    private static final ByteBuffer[] STATUS_RESPONSES = new ByteBuffer[CommandErrorMessageType.values().length];
+
+    static {
+        for (CommandErrorMessageType messageType : CommandErrorMessageType.values()) {
+            ByteBuffer encoded = ByteBuffer.allocate(LENGTH_FIELD_SIZE + 1);
+            encoded.putInt(1).put(messageType.getCode()).flip();
+            STATUS_RESPONSES[messageType.ordinal()] = encoded.asReadOnlyBuffer();
+        }
+    }
+
+    private BinaryProtocol() {
+    }
+
+    /**
+     * @return the length of the request at the current position of {@code input} (in read mode),
+     * or -1 if its length field has not been fully received yet
+     */
+    public static int frameLength(ByteBuffer input) {
+        if (input.remaining() < LENGTH_FIELD_SIZE) {
+            return -1;
+        }
+
+        return input.getInt(input.position());
+    }
+
+    /**
+     * Decodes one request. The buffer must be positioned at the opcode and limited to the end of the request.
+     */
+    public static Command decode(ByteBuffer frame) {
+        try {
+            CommandType type = CommandType.fromOpcode(frame.get());
+            return switch (type) {
+                case LOGIN, REGISTER -> new Command(type, new String[] {readString(frame), readString(frame)});
+                case DEPOSIT -> new Command(type, null, new TypedArguments.Amount(frame.getLong()));
+                case BUY_CRYPTO ->
+                        new Command(type, null, new TypedArguments.CoinAmount(readCoinCode(frame), frame.getLong()));
+                case SELL_CRYPTO -> readSell(frame);
+                case SUBSCRIBE -> new Command(type, readCoinCodes(frame));
+                case RESUME, SEARCH -> new Command(type, new String[] {readString(frame)});
+                case MULTI -> new Command(type, readStrings(frame));
+                case LIMIT_BUY, LIMIT_SELL, STOP_LOSS, EXCHANGE_BUY, EXCHANGE_SELL -> new Command(type, null,
+                        new TypedArguments.Order(readCoinCode(frame), frame.getLong(), frame.getLong()));
+                case EXCHANGE_CANCEL ->
+                        new Command(type, null, new TypedArguments.OrderId(readCoinCode(frame), frame.getLong()));
+                case LIST_CRYPTOS -> readListCryptos(frame);
+                case TOP -> new Command(type, null, readTop(frame));
+                case HISTORY -> new Command(type, null, readHistory(frame));
+                default -> new Command(type, null);
+            };
+        } catch (BufferUnderflowException e) {
+            throw new ParseException("Binary request is shorter than its fields", e);
+        }
+    }
+
+    /**
+     * @return a response consisting only of the code of the message, shared and read-only
+     */
+    public static ByteBuffer encodeStatus(CommandErrorMessageType messageType) {
+        return STATUS_RESPONSES[messageType.ordinal()].duplicate();
+    }
+
+    /**
+     * @return the header of an OK response whose payload of {@code payloadLength} bytes is sent separately
+     */
+    public static ByteBuffer encodeOkHeader(int payloadLength) {
+        ByteBuffer header = ByteBuffer.allocate(LENGTH_FIELD_SIZE + 1);
+        header.putInt(1 + payloadLength).put(STATUS_OK).flip();
+        return header;
+    }
+
+    /**
+     * @param priceUnits the price as {@link FixedPoint} units, which are sent as they are
+     * @return a complete price update frame, read-only so that it can be shared between subscribers
+     */
+    public static ByteBuffer encodePriceUpdate(String offeringCode, long priceUnits) {
+        byte[] code = offeringCode.getBytes(StandardCharsets.US_ASCII);
+        int length = 1 + 1 + code.length + Long.BYTES;
+        ByteBuffer frame = ByteBuffer.allocate(LENGTH_FIELD_SIZE + length);
+        frame.putInt(length).put(STATUS_PRICE_UPDATE);
+        writeCoinCode(frame, offeringCode);
+        frame.putLong(priceUnits).flip();
+        return frame.asReadOnlyBuffer();
+    }
+
+    public static void writeString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    public static void writeCoinCode(ByteBuffer buffer, String offeringCode) {
+        byte[] bytes = offeringCode.getBytes(StandardCharsets.US_ASCII);
+        buffer.put((byte) bytes.length).put(bytes);
+    }
+
+    private static String readString(ByteBuffer frame) {
+        int length = Short.toUnsignedInt(frame.getShort());
+        byte[] bytes = new byte[length];
+        frame.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String readCoinCode(ByteBuffer frame) {
+        int length = Byte.toUnsignedInt(frame.get());
+        if (frame.remaining() < length) {
+            throw new BufferUnderflowException();
+        }
+
+        return COIN_CODES.intern(frame, length);
+    }
+
+    private static String[] readCoinCodes(ByteBuffer frame) {
+        String[] codes = new String[Byte.toUnsignedInt(frame.get())];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = readCoinCode(frame);
+        }
+
+        return codes;
+    }
+
+    private static String[] readStrings(ByteBuffer frame) {
+        List<String> strings = new ArrayList<>();
+        while (frame.hasRemaining()) {
+            strings.add(readString(frame));
+        }
+
+        return strings.isEmpty() ? null : strings.toArray(new String[0]);
+    }
+
+    private static Command readSell(ByteBuffer frame) {
+        String offeringCode = readCoinCode(frame);
+        if (!frame.hasRemaining()) {
+            return new Command(CommandType.SELL_CRYPTO, new String[] {offeringCode});
+        }
+
+        long amount = frame.getLong();
+        CostBasisMethod method = TypedArguments.Sell.DEFAULT_METHOD;
+        if (frame.hasRemaining()) {
+            CostBasisMethod[] methods = CostBasisMethod.values();
+            int ordinal = Byte.toUnsignedInt(frame.get());
+            if (ordinal >= methods.length) {
+                throw new ParseException("Unknown cost basis method: " + ordinal);
+            }
+
+            method = methods[ordinal];
+        }
+
+        return new Command(CommandType.SELL_CRYPTO, null, new TypedArguments.Sell(offeringCode, amount, method));
+    }
+
+    private static Command readListCryptos(ByteBuffer frame) {
+        if (!frame.hasRemaining()) {
+            return new Command(CommandType.LIST_CRYPTOS, null);
+        }
+
+        int page = frame.getInt();
+        int size = Short.toUnsignedInt(frame.getShort());
+        return new Command(CommandType.LIST_CRYPTOS, null, new TypedArguments.Page(page, size, readSortOrder(frame)));
+    }
+
+    private static CoinSortOrder readSortOrder(ByteBuffer frame) {
+        CoinSortOrder[] orders = CoinSortOrder.values();
+        int order = Byte.toUnsignedInt(frame.get());
+        if (order >= orders.length) {
+            throw new ParseException("Unknown sort order: " + order);
+        }
+
+        return orders[order];
+    }
+
+    private static TypedArguments.Top readTop(ByteBuffer frame) {
+        int count = Short.toUnsignedInt(frame.getShort());
+        CoinSortOrder order = frame.hasRemaining() ? readSortOrder(frame) : TypedArguments.Top.DEFAULT_ORDER;
+        return new TypedArguments.Top(count, order);
+    }
+
+    private static TypedArguments.History readHistory(ByteBuffer frame) {
+        String offeringCode = readCoinCode(frame);
+        int points = frame.hasRemaining()
+                ? Short.toUnsignedInt(frame.getShort()) : TypedArguments.History.DEFAULT_POINTS;
+        return new TypedArguments.History(offeringCode, points);
+    }
+}
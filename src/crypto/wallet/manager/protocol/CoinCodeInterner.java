@@ -0,0 +1,77 @@
+package crypto.wallet.manager.protocol;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Direct-mapped cache of offering codes, so decoding a code that was seen before returns
+ * the same String instance without allocating. Codes of up to seven ASCII characters are
+ * packed into a long together with their length, which serves as the cache key; longer codes
+ * are decoded every time.
+ * Codes of every length are returned in upper case.
+ * Entries are immutable, so the cache can be shared by all threads without locking.
+ */
+public class CoinCodeInterner {
+    // the top byte of the key holds the length
+    private static final int MAX_PACKED_LENGTH = Long.BYTES - 1;
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    private record Entry(long packedCode, String code) {
+    }
+
+    private final Entry[] entries;
+    private final int mask;
+
+    public CoinCodeInterner() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CoinCodeInterner(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+
+        this.entries = new Entry[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Reads a code of {@code length} bytes from the current position of the buffer.
+     */
+    public String intern(ByteBuffer buffer, int length) {
+        if (length > MAX_PACKED_LENGTH) {
+            return decode(buffer, length);
+        }
+
+        int start = buffer.position();
+        long packedCode = 0;
+        for (int i = 0; i < length; i++) {
+            packedCode = (packedCode << Byte.SIZE) | (buffer.get(start + i) & 0xFF);
+        }
+        // the length keeps codes with leading zero bytes apart
+        packedCode |= (long) length << (Long.SIZE - Byte.SIZE);
+
+        int slot = (int) (mix(packedCode) & mask);
+        Entry entry = entries[slot];
+        if (entry != null && entry.packedCode() == packedCode) {
+            buffer.position(start + length);
+            return entry.code();
+        }
+
+        String code = decode(buffer, length);
+        entries[slot] = new Entry(packedCode, code);
+        return code;
+    }
+
+    private static String decode(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII).toUpperCase();
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        return value ^ (value >>> 33);
+    }
+}
@@ -0,0 +1,15 @@
+package crypto.wallet.manager.protocol;
+
+public enum ProtocolType {
+    TEXT,
+    BINARY;
+
+    /**
+     * Detects the protocol of a connection from the first byte the client sent.
+     * Binary clients open the connection with {@link BinaryProtocol#MAGIC}, which is never
+     * the first byte of a UTF-8 text command.
+     */
+    public static ProtocolType detect(byte firstByte) {
+        return firstByte == BinaryProtocol.MAGIC ? BINARY : TEXT;
+    }
+}
@@ -0,0 +1,26 @@
+package crypto.wallet.manager.server;
+
+public record AdmissionConfiguration(double authRequestsPerSecond, int authBurst) {
+    public static final String AUTH_RATE_PROPERTY = "wallet.admission.auth.rate";
+    public static final String AUTH_BURST_PROPERTY = "wallet.admission.auth.burst";
+
+    private static final double DEFAULT_AUTH_REQUESTS_PER_SECOND = 2.0;
+    private static final int DEFAULT_AUTH_BURST = 10;
+
+    public AdmissionConfiguration {
+        if (authRequestsPerSecond <= 0 || authBurst <= 0) {
+            throw new IllegalArgumentException("authRequestsPerSecond and authBurst must be positive numbers");
+        }
+    }
+
+    public static AdmissionConfiguration defaultConfiguration() {
+        return new AdmissionConfiguration(DEFAULT_AUTH_REQUESTS_PER_SECOND, DEFAULT_AUTH_BURST);
+    }
+
+    public static AdmissionConfiguration fromSystemProperties() {
+        String rate = System.getProperty(AUTH_RATE_PROPERTY);
+        return new AdmissionConfiguration(
+                rate == null ? DEFAULT_AUTH_REQUESTS_PER_SECOND : Double.parseDouble(rate),
+                Integer.getInteger(AUTH_BURST_PROPERTY, DEFAULT_AUTH_BURST));
+    }
+}
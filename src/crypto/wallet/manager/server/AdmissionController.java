@@ -0,0 +1,52 @@
+package crypto.wallet.manager.server;
+
+import java.net.InetAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rate limits the commands that hash passwords per remote address with token buckets, so one client
+ * cannot fill the queue of the {@link crypto.wallet.manager.account.PasswordHashingService} on its own.
+ * A command without a token is refused right away instead of piling up.
+ * <p>
+ * The buckets of at most {@value #MAX_TRACKED_ADDRESSES} addresses are kept. Past that the bucket of the
+ * address seen least recently is forgotten, so a burst from many addresses costs O(1) per command and
+ * a bounded amount of memory.
+ */
+public class AdmissionController {
+    static final int MAX_TRACKED_ADDRESSES = 10_000;
+
+    private final AdmissionConfiguration configuration;
+    // in the order the addresses were last seen in
+    private final Map<InetAddress, TokenBucket> buckets;
+
+    public AdmissionController(AdmissionConfiguration configuration) {
+        this.configuration = configuration;
+        this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<InetAddress, TokenBucket> eldest) {
+                return size() > MAX_TRACKED_ADDRESSES;
+            }
+        };
+    }
+
+    /**
+     * Takes a token from the bucket of the address. Clients whose address is unknown share one bucket.
+     */
+    public boolean tryAcquireToken(InetAddress address) {
+        long now = System.nanoTime();
+        TokenBucket bucket;
+        synchronized (buckets) {
+            bucket = buckets.computeIfAbsent(address == null ? InetAddress.getLoopbackAddress() : address,
+                    ignored -> new TokenBucket(configuration.authBurst(), configuration.authRequestsPerSecond(), now));
+        }
+
+        return bucket.tryAcquire(now);
+    }
+
+    int trackedAddresses() {
+        synchronized (buckets) {
+            return buckets.size();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package crypto.wallet.manager.server;
+
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Selection key of a connection served by its own thread with blocking I/O. It is never registered
+ * with a selector; it only gives such connections the same identity and attachment (the logged in
+ * account) that {@link crypto.wallet.manager.commands.CommandExecutor} expects from the selector engine.
+ */
+public class BlockingConnectionKey extends SelectionKey {
+    private final SocketChannel channel;
+    private volatile boolean valid;
+
+    public BlockingConnectionKey(SocketChannel channel) {
+        this.channel = channel;
+        this.valid = true;
+    }
+
+    @Override
+    public SelectableChannel channel() {
+        return channel;
+    }
+
+    @Override
+    public Selector selector() {
+        return null;
+    }
+
+    @Override
+    public boolean isValid() {
+        return valid && channel.isOpen();
+    }
+
+    @Override
+    public void cancel() {
+        valid = false;
+    }
+
+    @Override
+    public int interestOps() {
+        return 0;
+    }
+
+    @Override
+    public SelectionKey interestOps(int ops) {
+        // Blocking connections are driven by their own thread, there is nothing to select on.
+        return this;
+    }
+
+    @Override
+    public int readyOps() {
+        return 0;
+    }
+}
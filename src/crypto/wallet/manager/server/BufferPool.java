@@ -0,0 +1,51 @@
+package crypto.wallet.manager.server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Pool of equally sized direct buffers. It is meant to be used only by the selector thread,
+ * so it does not synchronize.
+ */
+public class BufferPool {
+    private final int bufferSize;
+    private final int maxPooledBuffers;
+    private final Deque<ByteBuffer> freeBuffers;
+
+    public BufferPool(int bufferSize, int maxPooledBuffers) {
+        if (bufferSize <= 0 || maxPooledBuffers < 0) {
+            throw new IllegalArgumentException("Buffer size must be positive and pool size cannot be negative");
+        }
+
+        this.bufferSize = bufferSize;
+        this.maxPooledBuffers = maxPooledBuffers;
+        this.freeBuffers = new ArrayDeque<>();
+    }
+
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = freeBuffers.pollFirst();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || buffer.capacity() != bufferSize || freeBuffers.size() >= maxPooledBuffers) {
+            return;
+        }
+
+        freeBuffers.addFirst(buffer);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getFreeBuffers() {
+        return freeBuffers.size();
+    }
+}
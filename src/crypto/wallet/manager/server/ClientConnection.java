@@ -0,0 +1,329 @@
+package crypto.wallet.manager.server;
+
+import crypto.wallet.manager.commands.Command;
+import crypto.wallet.manager.commands.CommandParser;
+import crypto.wallet.manager.commands.CommandType;
+import crypto.wallet.manager.exceptions.ParseException;
+import crypto.wallet.manager.protocol.BinaryProtocol;
+import crypto.wallet.manager.protocol.ProtocolType;
+import crypto.wallet.manager.subscription.PriceUpdateFrame;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import static crypto.wallet.manager.commands.CommandErrorMessageType.COMMAND_TOO_LONG;
+
+/**
+ * Per-connection state owned by the selector thread: a pooled input buffer holding
+ * the bytes of not yet complete commands and a queue of pending outbound responses.
+ * The protocol is detected from the first byte the client sends. Text commands are
+ * delimited by a new line, a trailing carriage return is ignored; binary commands are
+ * length-prefixed as described in {@link BinaryProtocol}.
+ */
+public class ClientConnection {
+    public static final byte FRAME_DELIMITER = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final int MAX_GATHERED_BUFFERS = 64;
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final InetAddress remoteAddress;
+    private final ByteBuffer input;
+    private final Deque<ByteBuffer> outbound;
+    private final ByteBuffer[] gatheredBuffers;
+    private final int outboundHighWatermark;
+    private final CommandParser parser;
+    private final ResponseEncoder responseEncoder;
+    private ProtocolType protocol;
+    private long pendingOutboundBytes;
+    private boolean commandInFlight;
+    private boolean closeAfterFlush;
+    private TimingWheel.Timeout<ClientConnection> timeout;
+
+    public ClientConnection(SocketChannel channel, SelectionKey key, ByteBuffer input,
+                            ResponseEncoder responseEncoder, int outboundHighWatermark) {
+        this.channel = channel;
+        this.key = key;
+        this.remoteAddress = resolveRemoteAddress(channel);
+        this.input = input;
+        this.outbound = new ArrayDeque<>();
+        this.gatheredBuffers = new ByteBuffer[MAX_GATHERED_BUFFERS];
+        this.outboundHighWatermark = outboundHighWatermark;
+        this.parser = new CommandParser();
+        this.responseEncoder = responseEncoder;
+    }
+
+    private static InetAddress resolveRemoteAddress(SocketChannel channel) {
+        try {
+            if (channel != null && channel.getRemoteAddress() instanceof InetSocketAddress address) {
+                return address.getAddress();
+            }
+        } catch (IOException e) {
+            // the client is already gone, it will be disconnected on the next read
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads whatever the socket has available into the input buffer.
+     *
+     * @return the number of bytes read or -1 if the client closed the connection
+     */
+    public int read() throws IOException {
+        return channel.read(input);
+    }
+
+    public boolean isInputFull() {
+        return !input.hasRemaining();
+    }
+
+    public void discardInput() {
+        input.clear();
+    }
+
+    /**
+     * Removes up to {@code maxCommands} complete commands from the input buffer, in the order they were sent.
+     */
+    public List<Command> nextCommands(int maxCommands) {
+        List<Command> commands = new ArrayList<>();
+        Command command;
+        while (commands.size() < maxCommands && (command = nextCommand()) != null) {
+            commands.add(command);
+        }
+
+        return commands;
+    }
+
+    /**
+     * Removes the next complete command from the input buffer.
+     *
+     * @return the command or null if no complete command has been received yet
+     */
+    public Command nextCommand() {
+        if (protocol == null) {
+            if (input.position() == 0) {
+                return null;
+            }
+
+            protocol = ProtocolType.detect(input.get(0));
+            if (protocol == ProtocolType.BINARY) {
+                compactInput(1);
+            }
+        }
+
+        if (protocol == ProtocolType.BINARY) {
+            return nextBinaryCommand();
+        }
+
+        return nextTextCommand();
+    }
+
+    private Command nextTextCommand() {
+        int limit = input.position();
+        for (int i = 0; i < limit; i++) {
+            if (input.get(i) == FRAME_DELIMITER) {
+                int end = (i > 0 && input.get(i - 1) == CARRIAGE_RETURN) ? i - 1 : i;
+                Command command = parser.parse(input, 0, end);
+                compactInput(i + 1);
+                return command;
+            }
+        }
+
+        return null;
+    }
+
+    private Command nextBinaryCommand() {
+        input.flip();
+        int length = BinaryProtocol.frameLength(input);
+        if (length < 0 || input.remaining() < BinaryProtocol.LENGTH_FIELD_SIZE + length) {
+            input.position(input.limit()).limit(input.capacity());
+            return null;
+        }
+
+        int frameEnd = BinaryProtocol.LENGTH_FIELD_SIZE + length;
+        ByteBuffer frame = input.duplicate().position(BinaryProtocol.LENGTH_FIELD_SIZE).limit(frameEnd);
+        Command command;
+        try {
+            command = BinaryProtocol.decode(frame);
+        } catch (ParseException e) {
+            command = new Command(CommandType.UNKNOWN, null);
+        }
+
+        input.position(frameEnd);
+        input.compact();
+        return command;
+    }
+
+    /**
+     * @return true if the client sent a command that can never fit in the input buffer
+     */
+    public boolean isFrameTooLong() {
+        if (protocol == ProtocolType.BINARY && input.position() >= BinaryProtocol.LENGTH_FIELD_SIZE) {
+            int length = input.getInt(0);
+            return length < 0 || length > input.capacity() - BinaryProtocol.LENGTH_FIELD_SIZE;
+        }
+
+        return isInputFull();
+    }
+
+    /**
+     * Drops the buffered input and tells the client its command was too long. A binary stream
+     * cannot be resynchronized after that, so such connections are closed once the reply is sent.
+     */
+    public void rejectOversizedFrame() {
+        discardInput();
+        enqueueResponse(COMMAND_TOO_LONG.getMessage());
+        if (protocol == ProtocolType.BINARY) {
+            closeAfterFlush = true;
+        }
+    }
+
+    private void compactInput(int consumed) {
+        input.flip();
+        input.position(consumed);
+        input.compact();
+    }
+
+    /**
+     * Queues a response encoded for the protocol of the connection.
+     */
+    public void enqueueResponse(String response) {
+        responseEncoder.encode(response, protocol == null ? ProtocolType.TEXT : protocol, this);
+    }
+
+    /**
+     * Queues a pushed price update, unless the client is not reading its responses fast enough.
+     * A dropped update is harmless, the next one carries the current price again.
+     *
+     * @return false if the update was dropped
+     */
+    public boolean enqueuePriceUpdate(PriceUpdateFrame frame) {
+        if (pendingOutboundBytes >= outboundHighWatermark) {
+            return false;
+        }
+
+        enqueue(frame.encodedFor(protocol == null ? ProtocolType.TEXT : protocol));
+        return true;
+    }
+
+    public void enqueue(ByteBuffer response) {
+        pendingOutboundBytes += response.remaining();
+        outbound.addLast(response);
+    }
+
+    /**
+     * Writes as much of the outbound queue as the socket accepts without blocking.
+     * Queued responses are sent with gathering writes, so a batch of pipelined
+     * responses usually leaves in a single system call.
+     *
+     * @return true if the whole queue has been written
+     */
+    public boolean flush() throws IOException {
+        while (!outbound.isEmpty()) {
+            int gathered = 0;
+            for (ByteBuffer buffer : outbound) {
+                if (gathered == gatheredBuffers.length) {
+                    break;
+                }
+                gatheredBuffers[gathered++] = buffer;
+            }
+
+            long written = channel.write(gatheredBuffers, 0, gathered);
+            pendingOutboundBytes -= written;
+            Arrays.fill(gatheredBuffers, 0, gathered, null);
+
+            while (!outbound.isEmpty() && !outbound.peekFirst().hasRemaining()) {
+                outbound.pollFirst();
+            }
+
+            if (!outbound.isEmpty() && written == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public void updateInterestOps() {
+        if (!key.isValid()) {
+            return;
+        }
+
+        int ops = 0;
+        if (!commandInFlight && !closeAfterFlush && pendingOutboundBytes < outboundHighWatermark) {
+            ops |= SelectionKey.OP_READ;
+        }
+
+        if (!outbound.isEmpty()) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+
+        key.interestOps(ops);
+    }
+
+    public boolean canProcessNextCommand() {
+        return !commandInFlight && !closeAfterFlush && pendingOutboundBytes < outboundHighWatermark;
+    }
+
+    public boolean hasPendingOutput() {
+        return !outbound.isEmpty();
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    public SelectionKey getKey() {
+        return key;
+    }
+
+    public InetAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    public boolean isLoggedIn() {
+        return key.attachment() != null;
+    }
+
+    public TimingWheel.Timeout<ClientConnection> getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(TimingWheel.Timeout<ClientConnection> timeout) {
+        this.timeout = timeout;
+    }
+
+    public ProtocolType getProtocol() {
+        return protocol;
+    }
+
+    public ByteBuffer getInputBuffer() {
+        return input;
+    }
+
+    public boolean isCommandInFlight() {
+        return commandInFlight;
+    }
+
+    public void setCommandInFlight(boolean commandInFlight) {
+        this.commandInFlight = commandInFlight;
+    }
+
+    public boolean isCloseAfterFlush() {
+        return closeAfterFlush;
+    }
+
+    public void setCloseAfterFlush(boolean closeAfterFlush) {
+        this.closeAfterFlush = closeAfterFlush;
+    }
+}
@@ -0,0 +1,56 @@
+package crypto.wallet.manager.server;
+
+import crypto.wallet.manager.commands.Command;
+
+import java.net.InetAddress;
+import java.nio.channels.SelectionKey;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pipelined commands of one connection. While a command that hashes a password is executed
+ * asynchronously the batch waits, and the worker that picks it up afterwards continues with the next
+ * command. It is only ever touched by one thread at a time, and the responses keep the order of the commands.
+ */
+public class CommandBatch {
+    private final List<Command> commands;
+    private final SelectionKey key;
+    private final InetAddress remoteAddress;
+    private final List<String> responses;
+    private int nextCommand;
+
+    public CommandBatch(List<Command> commands, SelectionKey key, InetAddress remoteAddress) {
+        this.commands = commands;
+        this.key = key;
+        this.remoteAddress = remoteAddress;
+        this.responses = new ArrayList<>(commands.size());
+    }
+
+    public boolean hasNext() {
+        return nextCommand < commands.size();
+    }
+
+    public Command peek() {
+        return commands.get(nextCommand);
+    }
+
+    /**
+     * Records the response of the current command and moves on to the next one.
+     */
+    public void complete(String response) {
+        responses.add(response);
+        nextCommand++;
+    }
+
+    public SelectionKey getKey() {
+        return key;
+    }
+
+    public InetAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    public List<String> getResponses() {
+        return responses;
+    }
+}
@@ -1,56 +1,120 @@
 package crypto.wallet.manager.server;
 
+import crypto.wallet.manager.account.PasswordHashingMetrics;
+import crypto.wallet.manager.account.PasswordHashingService;
 import crypto.wallet.manager.api.Api;
 import crypto.wallet.manager.api.ApiRunnable;
+import crypto.wallet.manager.commands.Command;
 import crypto.wallet.manager.commands.CommandExecutor;
 import crypto.wallet.manager.database.CryptoCoinsDatabase;
 import crypto.wallet.manager.database.UserAccountsDatabase;
-import crypto.wallet.manager.exceptions.ParseException;
+import crypto.wallet.manager.subscription.PriceUpdateFrame;
+import crypto.wallet.manager.subscription.PriceUpdateSink;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
-import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import static crypto.wallet.manager.commands.Command.newCommand;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.INPUT_READING_PROBLEM;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.SERVER_BUSY;
 
 public class CryptoWalletManagerServer {
-    private static final int SERVER_PORT = 8888;
-    private static final String SERVER_HOST = "localhost";
-    private static final String DISCONNECT = "disconnect";
-    private static final int BUFFER_SIZE = 65536;
+    static final int SERVER_PORT = 8888;
+    static final String SERVER_HOST = "localhost";
+    static final String DISCONNECT = "disconnect";
+    static final int BUFFER_SIZE = 8192;
+    private static final int MAX_POOLED_BUFFERS = 1024;
+    static final int OUTBOUND_HIGH_WATERMARK = 65536;
+    static final int MAX_PIPELINED_COMMANDS = 32;
+    static final long TIMEOUT_TICK_MILLIS = 1000;
+    static final int TIMEOUT_WHEEL_SIZE = 512;
     private static final int TIME_BETWEEN_API_REQUESTS = 30;
+    private static final int TIME_BETWEEN_METRICS_REPORTS = 1;
     private static final String ACCOUNTS_PATH = "database" + File.separator + "accounts.dat";
 
     private static final int INITIAL_DELAY = 0;
     private boolean isServerWorking;
     private int connectedClients;
-    private ByteBuffer buffer;
+    private Selector selector;
     private final CommandExecutor commandExecutor;
+    private final ServerConfiguration configuration;
+    private final ExecutorService workers;
+    private final AdmissionController admissionController;
+    private final Queue<CommandResponse> completedResponses;
+    private final Queue<PushedPriceUpdate> pushedPriceUpdates;
+    private final Map<SelectionKey, ClientConnection> connections;
+    private final BufferPool bufferPool;
+    private final ResponseEncoder responseEncoder;
+    private TimingWheel<ClientConnection> timeouts;
+    private PasswordHashingMetrics reportedHashingMetrics;
     private static CryptoWalletManagerServer instance;
 
-    private CryptoWalletManagerServer(CommandExecutor commandExecutor, boolean isServerWorking) {
+    private record CommandResponse(SelectionKey key, List<String> responses) {
+    }
+
+    private record PushedPriceUpdate(SelectionKey key, PriceUpdateFrame frame) {
+    }
+
+    /**
+     * Hands price updates over to the selector thread, which owns the outbound queues of the connections.
+     */
+    private class SelectorPriceUpdateSink implements PriceUpdateSink {
+        @Override
+        public void push(SelectionKey subscriber, PriceUpdateFrame frame) {
+            pushedPriceUpdates.add(new PushedPriceUpdate(subscriber, frame));
+        }
+
+        @Override
+        public void pushCompleted() {
+            selector.wakeup();
+        }
+    }
+
+    private CryptoWalletManagerServer(CommandExecutor commandExecutor, ServerConfiguration configuration,
+                                      boolean isServerWorking) {
         this.commandExecutor = commandExecutor;
         this.isServerWorking = isServerWorking;
+        this.configuration = configuration;
+        this.workers = configuration.workerPoolType().newExecutor(configuration.workerThreads());
+        this.admissionController = new AdmissionController(configuration.admission());
+        this.completedResponses = new ConcurrentLinkedQueue<>();
+        this.pushedPriceUpdates = new ConcurrentLinkedQueue<>();
+        this.connections = new HashMap<>();
+        this.bufferPool = new BufferPool(BUFFER_SIZE, MAX_POOLED_BUFFERS);
+        this.responseEncoder = new ResponseEncoder(commandExecutor.getCryptoCoinsDatabase());
         connectedClients = 0;
     }
 
     public static CryptoWalletManagerServer getInstance() throws IOException {
+        return getInstance(ServerConfiguration.defaultConfiguration());
+    }
+
+    public static CryptoWalletManagerServer getInstance(ServerConfiguration configuration) throws IOException {
         if (instance == null) {
+            PasswordHashingService.getInstance(configuration.hashing());
             instance = new CryptoWalletManagerServer(
                     CommandExecutor.getInstance(UserAccountsDatabase.getInstance(ACCOUNTS_PATH),
                             new CryptoCoinsDatabase()),
-                    true);
+                    configuration, true);
         }
 
         return instance;
@@ -58,12 +122,16 @@ public class CryptoWalletManagerServer {
 
     public void startServer() {
         try (ServerSocketChannel serverSocketChannel = ServerSocketChannel.open()) {
-            Selector selector = Selector.open();
+            selector = Selector.open();
             configureServerSocketChannel(serverSocketChannel, selector);
-            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            timeouts = new TimingWheel<>(TIMEOUT_TICK_MILLIS, TIMEOUT_WHEEL_SIZE, System.currentTimeMillis());
+            commandExecutor.getPriceSubscriptions().setSink(new SelectorPriceUpdateSink());
             isServerWorking = true;
             while (isServerWorking) {
-                int readyChannels = selector.select();
+                int readyChannels = selector.select(timeouts.getTickMillis());
+                writeCompletedResponses();
+                writePushedPriceUpdates();
+                timeouts.advance(System.currentTimeMillis(), this::expireConnection);
                 if (readyChannels == 0) {
                     continue;
                 }
@@ -72,9 +140,12 @@ public class CryptoWalletManagerServer {
                 Iterator<SelectionKey> keyIterator = selectedKeys.iterator();
                 while (keyIterator.hasNext()) {
                     SelectionKey key = keyIterator.next();
-                    if (key.isReadable()) {
+                    if (key.isValid() && key.isWritable()) {
+                        handleWritableKey(key);
+                    }
+                    if (key.isValid() && key.isReadable()) {
                         handleReadableKey(key);
-                    } else if (key.isAcceptable()) {
+                    } else if (key.isValid() && key.isAcceptable()) {
                         accept(selector, key);
                     }
                     keyIterator.remove();
@@ -84,28 +155,214 @@ public class CryptoWalletManagerServer {
             throw new RuntimeException("There is a problem with the server socket", e);
         } catch (Exception e) {
             throw new RuntimeException("AutoCloseable object threw exception");
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    private void handleReadableKey(SelectionKey key) {
+        ClientConnection connection = connections.get(key);
+        try {
+            if (!readClientInput(connection)) {
+                return;
+            }
+
+            refreshTimeout(connection);
+            dispatchNextCommand(connection);
+        } catch (IOException e) {
+            handleIOException(connection, e);
+        }
+    }
+
+    private void handleWritableKey(SelectionKey key) {
+        ClientConnection connection = connections.get(key);
+        try {
+            flushConnection(connection);
+            dispatchNextCommand(connection);
+        } catch (IOException e) {
+            handleIOException(connection, e);
         }
     }
 
-    private void handleReadableKey(SelectionKey key) throws IOException {
-        SocketChannel sc = (SocketChannel) key.channel();
+    /**
+     * Disconnects the client whose channel failed, whatever the cause. With writes waiting for OP_WRITE and
+     * price updates pushed at any time, writing to a peer that went away is routine and must not stop the
+     * selector loop.
+     */
+    private void handleIOException(ClientConnection connection, IOException e) {
+        if (!connections.containsKey(connection.getKey())) {
+            return;
+        }
+
         try {
-            String clientInput = readClientInput(sc, key);
-            if (clientInput == null || !key.isValid()) {
+            handleDisconnect(connection);
+        } catch (IOException closeException) {
+            System.out.println("Could not close a client connection: " + closeException.getMessage());
+        }
+    }
+
+    /**
+     * Takes the complete commands the connection has sent so far, if any, and hands them to the workers
+     * as one batch. The commands of a batch are executed in order and only one batch per connection is
+     * in flight at a time, so pipelined commands are answered in the order they were sent.
+     * Commands that hash passwords must get a token from the {@link AdmissionController} and are then
+     * executed on the {@link PasswordHashingService}, so they never hold a worker while hashing.
+     */
+    private void dispatchNextCommand(ClientConnection connection) throws IOException {
+        if (!connection.getKey().isValid()) {
+            return;
+        }
+
+        if (connection.canProcessNextCommand()) {
+            List<Command> commands = connection.nextCommands(MAX_PIPELINED_COMMANDS);
+            if (!commands.isEmpty()) {
+                connection.setCommandInFlight(true);
+                CommandBatch batch = new CommandBatch(commands, connection.getKey(), connection.getRemoteAddress());
+                workers.execute(() -> executeCommands(batch));
+            } else if (connection.isFrameTooLong()) {
+                connection.rejectOversizedFrame();
+                flushConnection(connection);
+                return;
+            }
+        }
+
+        connection.updateInterestOps();
+    }
+
+    private void executeCommands(CommandBatch batch) {
+        while (batch.hasNext()) {
+            Command command = batch.peek();
+            if (!command.type().isPasswordHashing()) {
+                batch.complete(executeCommand(command, batch.getKey()));
+            } else if (!admissionController.tryAcquireToken(batch.getRemoteAddress())) {
+                batch.complete(SERVER_BUSY.getMessage());
+            } else {
+                commandExecutor.executeAsync(command, batch.getKey())
+                        .whenComplete((response, error) -> resumeCommands(batch, response, error));
                 return;
             }
-            String response = null;
+        }
+
+        completedResponses.add(new CommandResponse(batch.getKey(), batch.getResponses()));
+        selector.wakeup();
+    }
+
+    /**
+     * Hands the rest of the batch back to the workers, so the hashing thread can go on hashing.
+     */
+    private void resumeCommands(CommandBatch batch, String response, Throwable error) {
+        batch.complete(error == null ? response : asyncFailureResponse(error));
+        workers.execute(() -> executeCommands(batch));
+    }
+
+    /**
+     * @return the response to a command whose asynchronous execution failed, null if it is not known
+     */
+    static String asyncFailureResponse(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            return SERVER_BUSY.getMessage();
+        }
+
+        System.out.println("Exception when executing the client's command: " + cause.getMessage());
+        return null;
+    }
+
+    private String executeCommand(Command command, SelectionKey key) {
+        try {
+            return commandExecutor.execute(command, key);
+        } catch (Exception e) {
+            System.out.println("Exception when executing the client's command: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeCompletedResponses() {
+        CommandResponse completed;
+        while ((completed = completedResponses.poll()) != null) {
+            ClientConnection connection = connections.get(completed.key());
+            if (connection == null || !completed.key().isValid()) {
+                continue;
+            }
+
             try {
-                response = commandExecutor.execute(newCommand(clientInput), key);
-            } catch (Exception e) {
-                throw new ParseException("Exception when parsing the clientInput", e);
-            } finally {
-                sendResponseToClient(sc, response);
+                connection.setCommandInFlight(false);
+                refreshTimeout(connection);
+                sendResponsesToClient(connection, completed.responses());
+                dispatchNextCommand(connection);
+            } catch (IOException e) {
+                handleIOException(connection, e);
             }
-        } catch (IOException e) {
-            if (e.getMessage().contains("Connection reset")) {
-                handleDisconnect(sc, key);
+        }
+    }
+
+    /**
+     * Queues every pushed price update before flushing, so a subscriber gets all updates of one
+     * refresh in a single write.
+     */
+    private void writePushedPriceUpdates() {
+        if (pushedPriceUpdates.isEmpty()) {
+            return;
+        }
+
+        Set<ClientConnection> updatedConnections = new HashSet<>();
+        PushedPriceUpdate pushed;
+        while ((pushed = pushedPriceUpdates.poll()) != null) {
+            ClientConnection connection = connections.get(pushed.key());
+            if (connection == null || !pushed.key().isValid() || connection.isCloseAfterFlush()) {
+                continue;
             }
+
+            if (connection.enqueuePriceUpdate(pushed.frame())) {
+                updatedConnections.add(connection);
+            }
+        }
+
+        for (ClientConnection connection : updatedConnections) {
+            try {
+                flushConnection(connection);
+            } catch (IOException e) {
+                handleIOException(connection, e);
+            }
+        }
+    }
+
+    /**
+     * Restarts the idle timeout of a logged in connection. A connection that has not logged in yet keeps
+     * the deadline it got when it connected, so clients cannot hold a connection open without logging in.
+     */
+    private void refreshTimeout(ClientConnection connection) {
+        boolean isLoggedIn = connection.isLoggedIn();
+        TimingWheel.Timeout<ClientConnection> timeout = connection.getTimeout();
+        if (!isLoggedIn && timeout != null && timeout.isPending()) {
+            return;
+        }
+
+        long timeoutMillis = configuration.connectionTimeoutMillis(isLoggedIn);
+        if (timeoutMillis == 0) {
+            timeouts.cancel(timeout);
+        } else if (timeout == null) {
+            connection.setTimeout(timeouts.schedule(connection, timeoutMillis));
+        } else {
+            timeouts.reschedule(timeout, timeoutMillis);
+        }
+    }
+
+    private void expireConnection(ClientConnection connection) {
+        if (!connection.getKey().isValid()) {
+            return;
+        }
+
+        if (connection.isCommandInFlight()) {
+            refreshTimeout(connection);
+            return;
+        }
+
+        try {
+            System.out.println("Closing a connection that timed out.");
+            handleDisconnect(connection);
+        } catch (IOException e) {
+            System.out.println("Could not close a connection that timed out: " + e.getMessage());
         }
     }
 
@@ -115,61 +372,93 @@ public class CryptoWalletManagerServer {
         channel.register(selector, SelectionKey.OP_ACCEPT);
     }
 
-    private String readClientInput(SocketChannel sc, SelectionKey key) throws IOException {
-        buffer.clear();
-        int r = sc.read(buffer);
+    private boolean readClientInput(ClientConnection connection) throws IOException {
+        int r = connection.read();
         if (r < 0) {
-            handleDisconnect(sc, key);
-            return null;
+            handleDisconnect(connection);
+            return false;
         }
 
-        buffer.flip();
-        byte[] byteArray = new byte[buffer.remaining()];
-        buffer.get(byteArray);
-        return new String(byteArray, StandardCharsets.UTF_8);
+        return true;
     }
 
-    private void handleDisconnect(SocketChannel sc, SelectionKey key) throws IOException {
-        commandExecutor.execute(newCommand(DISCONNECT), key);
-        sc.close();
-        key.cancel();
+    private void handleDisconnect(ClientConnection connection) throws IOException {
+        SelectionKey key = connection.getKey();
+        // the connection is forgotten even if closing the channel fails
+        try (SocketChannel channel = connection.getChannel()) {
+            commandExecutor.execute(newCommand(DISCONNECT), key);
+            timeouts.cancel(connection.getTimeout());
+            key.cancel();
+            connections.remove(key);
+            bufferPool.release(connection.getInputBuffer());
 
-        connectedClients--;
-        if (connectedClients == 0) {
-            System.out.println("No clients connected. Server is stopping.");
-            isServerWorking = false;
-        }
+            connectedClients--;
+            if (connectedClients == 0) {
+                System.out.println("No clients connected. Server is stopping.");
+                isServerWorking = false;
+            }
 
-        System.out.println("Client disconnected. Remaining clients: " + connectedClients);
+            System.out.println("Client disconnected. Remaining clients: " + connectedClients);
+        }
     }
 
-    private void sendResponseToClient(SocketChannel sc, String response) throws IOException {
-        if (response == null) {
-            response = "There was a problem with reading your input. Try again.";
+    private void sendResponsesToClient(ClientConnection connection, List<String> responses) throws IOException {
+        for (String response : responses) {
+            if (response == null) {
+                response = INPUT_READING_PROBLEM.getMessage();
+            }
+
+            connection.enqueueResponse(response);
+            if (response.equals("disconnect")) {
+                connection.setCloseAfterFlush(true);
+            } else if ("shutdown".equals(response) && connectedClients == 0) {
+                connection.setCloseAfterFlush(true);
+                isServerWorking = false;
+            }
         }
 
-        buffer.clear();
-        buffer.put(response.getBytes());
-        buffer.flip();
-        sc.write(buffer);
-        if (response.equals("disconnect")) {
-            sc.close();
-        } else if ("shutdown".equals(response) && connectedClients == 0) {
-            sc.close();
-            isServerWorking = false;
+        flushConnection(connection);
+    }
+
+    private void flushConnection(ClientConnection connection) throws IOException {
+        boolean flushed = connection.flush();
+        if (flushed && connection.isCloseAfterFlush()) {
+            handleDisconnect(connection);
+            return;
         }
+
+        connection.updateInterestOps();
     }
 
     private void accept(Selector selector, SelectionKey key) throws IOException {
         ServerSocketChannel sockChannel = (ServerSocketChannel) key.channel();
         SocketChannel accept = sockChannel.accept();
+        if (accept == null) {
+            return;
+        }
 
         accept.configureBlocking(false);
-        accept.register(selector, SelectionKey.OP_READ);
+        SelectionKey clientKey = accept.register(selector, SelectionKey.OP_READ);
+        ClientConnection connection = new ClientConnection(accept, clientKey, bufferPool.acquire(), responseEncoder,
+                OUTBOUND_HIGH_WATERMARK);
+        connections.put(clientKey, connection);
+        refreshTimeout(connection);
 
         connectedClients++;
     }
 
+    /**
+     * Prints the queue depth and the timings of password hashing, unless it has been idle since the last report.
+     */
+    private void reportHashingMetrics() {
+        PasswordHashingMetrics metrics = PasswordHashingService.getInstance().getMetrics();
+        if (!metrics.isIdleSince(reportedHashingMetrics)) {
+            System.out.println("Password hashing: " + metrics.describe());
+        }
+
+        reportedHashingMetrics = metrics;
+    }
+
     public void start(Api api) {
         try (ScheduledExecutorService scheduledExecutorService = Executors.newScheduledThreadPool(1)) {
             Runnable apiRunnable = new ApiRunnable(api, commandExecutor.getCryptoCoinsDatabase());
@@ -177,7 +466,15 @@ public class CryptoWalletManagerServer {
             apiRunnable.run();
             scheduledExecutorService.scheduleAtFixedRate(apiThread,
                     INITIAL_DELAY, TIME_BETWEEN_API_REQUESTS, TimeUnit.MINUTES);
-            startServer();
+            scheduledExecutorService.scheduleAtFixedRate(this::reportHashingMetrics,
+                    TIME_BETWEEN_METRICS_REPORTS, TIME_BETWEEN_METRICS_REPORTS, TimeUnit.MINUTES);
+            switch (configuration.engine()) {
+                case SELECTOR -> startServer();
+                case VIRTUAL_THREADS -> {
+                    workers.shutdown();
+                    new VirtualThreadServer(commandExecutor, configuration, admissionController).startServer();
+                }
+            }
         } catch (RuntimeException e) {
             throw new RuntimeException("Problem occurred with client communication or API request.", e);
         }
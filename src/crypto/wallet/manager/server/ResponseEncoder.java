@@ -0,0 +1,46 @@
+package crypto.wallet.manager.server;
+
+import crypto.wallet.manager.commands.CommandErrorMessageType;
+import crypto.wallet.manager.database.CryptoCoinsDatabase;
+import crypto.wallet.manager.protocol.BinaryProtocol;
+import crypto.wallet.manager.protocol.ProtocolType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Turns responses of {@link crypto.wallet.manager.commands.CommandExecutor} into buffers for a connection.
+ * Constant messages and the offerings list are served from buffers encoded in advance, so answering
+ * them neither formats nor copies anything; only other responses are encoded on the fly.
+ */
+public class ResponseEncoder {
+    private static final ByteBuffer RESPONSE_DELIMITER =
+            ByteBuffer.wrap(new byte[] {ClientConnection.FRAME_DELIMITER}).asReadOnlyBuffer();
+
+    private final CryptoCoinsDatabase cryptoCoinsDatabase;
+
+    public ResponseEncoder(CryptoCoinsDatabase cryptoCoinsDatabase) {
+        this.cryptoCoinsDatabase = cryptoCoinsDatabase;
+    }
+
+    public void encode(String response, ProtocolType protocol, ClientConnection connection) {
+        Optional<CommandErrorMessageType> messageType = CommandErrorMessageType.fromMessage(response);
+        if (protocol == ProtocolType.BINARY && messageType.isPresent()) {
+            connection.enqueue(BinaryProtocol.encodeStatus(messageType.get()));
+            return;
+        }
+
+        ByteBuffer payload = messageType.map(CommandErrorMessageType::getEncodedMessage)
+                .or(() -> cryptoCoinsDatabase.getEncodedOfferings(response))
+                .orElseGet(() -> ByteBuffer.wrap(response.getBytes(StandardCharsets.UTF_8)));
+
+        if (protocol == ProtocolType.BINARY) {
+            connection.enqueue(BinaryProtocol.encodeOkHeader(payload.remaining()));
+            connection.enqueue(payload);
+        } else {
+            connection.enqueue(payload);
+            connection.enqueue(RESPONSE_DELIMITER.duplicate());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package crypto.wallet.manager.server;
+
+import crypto.wallet.manager.account.PasswordHashingConfiguration;
+
+import java.util.concurrent.TimeUnit;
+
+public record ServerConfiguration(ServerEngine engine, WorkerPoolType workerPoolType, int workerThreads,
+                                  int idleTimeoutSeconds, int loginTimeoutSeconds, AdmissionConfiguration admission,
+                                  PasswordHashingConfiguration hashing) {
+    public static final String ENGINE_PROPERTY = "wallet.server.engine";
+    public static final String WORKER_POOL_TYPE_PROPERTY = "wallet.workers.type";
+    public static final String WORKER_THREADS_PROPERTY = "wallet.workers.threads";
+    public static final String IDLE_TIMEOUT_PROPERTY = "wallet.timeouts.idle";
+    public static final String LOGIN_TIMEOUT_PROPERTY = "wallet.timeouts.login";
+    public static final int TIMEOUT_DISABLED = 0;
+
+    private static final int DEFAULT_WORKER_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 15 * 60;
+    private static final int DEFAULT_LOGIN_TIMEOUT_SECONDS = 60;
+
+    public ServerConfiguration {
+        if (engine == null) {
+            throw new IllegalArgumentException("engine cannot be null");
+        }
+
+        if (workerPoolType == null) {
+            throw new IllegalArgumentException("workerPoolType cannot be null");
+        }
+
+        if (workerThreads <= 0) {
+            throw new IllegalArgumentException("workerThreads must be a positive number");
+        }
+
+        if (idleTimeoutSeconds < TIMEOUT_DISABLED || loginTimeoutSeconds < TIMEOUT_DISABLED) {
+            throw new IllegalArgumentException("timeouts cannot be negative");
+        }
+
+        if (admission == null || hashing == null) {
+            throw new IllegalArgumentException("admission and hashing cannot be null");
+        }
+    }
+
+    /**
+     * @return how long a connection may stay silent before it is closed, or 0 if it may stay forever.
+     * Connections that have not logged in get the login timeout, falling back to the idle one if it is disabled.
+     */
+    public long connectionTimeoutMillis(boolean isLoggedIn) {
+        int timeoutSeconds = isLoggedIn || loginTimeoutSeconds == TIMEOUT_DISABLED
+                ? idleTimeoutSeconds : loginTimeoutSeconds;
+        return TimeUnit.SECONDS.toMillis(timeoutSeconds);
+    }
+
+    public static ServerConfiguration defaultConfiguration() {
+        return new ServerConfiguration(ServerEngine.SELECTOR, WorkerPoolType.PLATFORM, DEFAULT_WORKER_THREADS,
+                DEFAULT_IDLE_TIMEOUT_SECONDS, DEFAULT_LOGIN_TIMEOUT_SECONDS, AdmissionConfiguration.defaultConfiguration(),
+                PasswordHashingConfiguration.defaultConfiguration());
+    }
+
+    public static ServerConfiguration fromSystemProperties() {
+        return new ServerConfiguration(
+                ServerEngine.fromString(System.getProperty(ENGINE_PROPERTY)),
+                WorkerPoolType.fromString(System.getProperty(WORKER_POOL_TYPE_PROPERTY)),
+                Integer.getInteger(WORKER_THREADS_PROPERTY, DEFAULT_WORKER_THREADS),
+                Integer.getInteger(IDLE_TIMEOUT_PROPERTY, DEFAULT_IDLE_TIMEOUT_SECONDS),
+                Integer.getInteger(LOGIN_TIMEOUT_PROPERTY, DEFAULT_LOGIN_TIMEOUT_SECONDS),
+                AdmissionConfiguration.fromSystemProperties(),
+                PasswordHashingConfiguration.fromSystemProperties());
+    }
+}
@@ -0,0 +1,14 @@
+package crypto.wallet.manager.server;
+
+public enum ServerEngine {
+    SELECTOR,
+    VIRTUAL_THREADS;
+
+    public static ServerEngine fromString(String str) {
+        try {
+            return valueOf(str.toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return SELECTOR;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package crypto.wallet.manager.server;
+
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: timeouts are kept in doubly linked lists, one per slot of a circular array,
+ * so scheduling, rescheduling and cancelling are O(1) no matter how many timeouts are pending.
+ * Time is quantized to ticks; a timeout fires on the first {@link #advance} at or after its tick.
+ * <p>
+ * The wheel is not thread-safe. The selector engine drives it from its own thread.
+ */
+public class TimingWheel<T> {
+    private final long tickMillis;
+    private final Timeout<T>[] slots;
+    private final int mask;
+    private long currentTick;
+    private int pendingTimeouts;
+
+    public static final class Timeout<T> {
+        private final T item;
+        private long remainingRounds;
+        private int slot = -1;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+
+        private Timeout(T item) {
+            this.item = item;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public boolean isPending() {
+            return slot >= 0;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelSize, long nowMillis) {
+        if (tickMillis <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("tickMillis must be positive and wheelSize a power of two");
+        }
+
+        this.tickMillis = tickMillis;
+        this.slots = (Timeout<T>[]) new Timeout<?>[wheelSize];
+        this.mask = wheelSize - 1;
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    public Timeout<T> schedule(T item, long delayMillis) {
+        Timeout<T> timeout = new Timeout<>(item);
+        reschedule(timeout, delayMillis);
+        return timeout;
+    }
+
+    /**
+     * Moves a pending or expired timeout so that it fires {@code delayMillis} from the current tick.
+     */
+    public void reschedule(Timeout<T> timeout, long delayMillis) {
+        cancel(timeout);
+
+        long ticks = Math.max(1, (delayMillis + tickMillis - 1) / tickMillis);
+        long deadlineTick = currentTick + ticks;
+        timeout.remainingRounds = (ticks - 1) / slots.length;
+        insert(timeout, (int) (deadlineTick & mask));
+    }
+
+    public void cancel(Timeout<T> timeout) {
+        if (timeout == null || !timeout.isPending()) {
+            return;
+        }
+
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            slots[timeout.slot] = timeout.next;
+        }
+
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.slot = -1;
+        pendingTimeouts--;
+    }
+
+    /**
+     * Processes every tick up to {@code nowMillis} and hands the items of the expired timeouts to {@code onExpiry}.
+     * The callback may schedule new timeouts and reschedule or cancel the timeout of the expired item.
+     */
+    public void advance(long nowMillis, Consumer<T> onExpiry) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            expireSlot((int) (currentTick & mask), onExpiry);
+        }
+    }
+
+    private void expireSlot(int slot, Consumer<T> onExpiry) {
+        Timeout<T> timeout = slots[slot];
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+            } else {
+                cancel(timeout);
+                onExpiry.accept(timeout.item);
+            }
+            timeout = next;
+        }
+    }
+
+    private void insert(Timeout<T> timeout, int slot) {
+        Timeout<T> head = slots[slot];
+        timeout.slot = slot;
+        timeout.next = head;
+        if (head != null) {
+            head.previous = timeout;
+        }
+        slots[slot] = timeout;
+        pendingTimeouts++;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    public int getPendingTimeouts() {
+        return pendingTimeouts;
+    }
+}
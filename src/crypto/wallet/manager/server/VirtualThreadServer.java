@@ -0,0 +1,318 @@
+package crypto.wallet.manager.server;
+
+import crypto.wallet.manager.commands.Command;
+import crypto.wallet.manager.commands.CommandExecutor;
+import crypto.wallet.manager.subscription.PriceUpdateFrame;
+import crypto.wallet.manager.subscription.PriceUpdateSink;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static crypto.wallet.manager.commands.Command.newCommand;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.INPUT_READING_PROBLEM;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.SERVER_BUSY;
+import static crypto.wallet.manager.server.CryptoWalletManagerServer.BUFFER_SIZE;
+import static crypto.wallet.manager.server.CryptoWalletManagerServer.DISCONNECT;
+import static crypto.wallet.manager.server.CryptoWalletManagerServer.MAX_PIPELINED_COMMANDS;
+import static crypto.wallet.manager.server.CryptoWalletManagerServer.OUTBOUND_HIGH_WATERMARK;
+import static crypto.wallet.manager.server.CryptoWalletManagerServer.SERVER_HOST;
+import static crypto.wallet.manager.server.CryptoWalletManagerServer.SERVER_PORT;
+import static crypto.wallet.manager.server.CryptoWalletManagerServer.TIMEOUT_TICK_MILLIS;
+import static crypto.wallet.manager.server.CryptoWalletManagerServer.TIMEOUT_WHEEL_SIZE;
+import static crypto.wallet.manager.server.CryptoWalletManagerServer.asyncFailureResponse;
+
+/**
+ * Server engine that serves every client on its own virtual thread with blocking sockets.
+ * It speaks the same protocol and executes commands through the same {@link CommandExecutor}
+ * as the selector engine, so both can be benchmarked against each other.
+ */
+public class VirtualThreadServer {
+    private final CommandExecutor commandExecutor;
+    private final ServerConfiguration configuration;
+    private final ResponseEncoder responseEncoder;
+    private final AtomicInteger connectedClients;
+    private final TimingWheel<ClientConnection> timeouts;
+    private final AdmissionController admissionController;
+    private final Map<SelectionKey, ServedConnection> servedConnections;
+    private volatile boolean isServerWorking;
+    private ServerSocketChannel serverSocketChannel;
+
+    /**
+     * The lock guards the outbound queue, which is written both by the thread serving the client
+     * and by the threads delivering pushed price updates.
+     */
+    private record ServedConnection(ClientConnection connection, ReentrantLock outboundLock) {
+    }
+
+    /**
+     * Collects the updates of one refresh per subscriber and delivers them with one write per
+     * subscriber, each on its own virtual thread so a slow client does not hold up the others.
+     */
+    private class VirtualThreadPriceUpdateSink implements PriceUpdateSink {
+        private final Map<SelectionKey, List<PriceUpdateFrame>> pendingUpdates = new HashMap<>();
+
+        @Override
+        public void push(SelectionKey subscriber, PriceUpdateFrame frame) {
+            pendingUpdates.computeIfAbsent(subscriber, key -> new ArrayList<>()).add(frame);
+        }
+
+        @Override
+        public void pushCompleted() {
+            for (Map.Entry<SelectionKey, List<PriceUpdateFrame>> entry : pendingUpdates.entrySet()) {
+                ServedConnection served = servedConnections.get(entry.getKey());
+                if (served != null) {
+                    List<PriceUpdateFrame> frames = entry.getValue();
+                    Thread.startVirtualThread(() -> writePriceUpdates(served, frames));
+                }
+            }
+
+            pendingUpdates.clear();
+        }
+    }
+
+    public VirtualThreadServer(CommandExecutor commandExecutor, ServerConfiguration configuration,
+                               AdmissionController admissionController) {
+        this.commandExecutor = commandExecutor;
+        this.configuration = configuration;
+        this.admissionController = admissionController;
+        this.timeouts = new TimingWheel<>(TIMEOUT_TICK_MILLIS, TIMEOUT_WHEEL_SIZE, System.currentTimeMillis());
+        this.responseEncoder = new ResponseEncoder(commandExecutor.getCryptoCoinsDatabase());
+        this.connectedClients = new AtomicInteger();
+        this.servedConnections = new ConcurrentHashMap<>();
+    }
+
+    public void startServer() {
+        try (ServerSocketChannel channel = ServerSocketChannel.open();
+             ExecutorService connectionThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            serverSocketChannel = channel;
+            channel.bind(new InetSocketAddress(SERVER_HOST, SERVER_PORT));
+            commandExecutor.getPriceSubscriptions().setSink(new VirtualThreadPriceUpdateSink());
+            isServerWorking = true;
+            connectionThreads.execute(this::reapTimedOutConnections);
+            while (isServerWorking) {
+                SocketChannel client = accept(channel);
+                if (client != null) {
+                    connectedClients.incrementAndGet();
+                    connectionThreads.execute(() -> serveClient(client));
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("There is a problem with the server socket", e);
+        }
+    }
+
+    private SocketChannel accept(ServerSocketChannel channel) throws IOException {
+        try {
+            return channel.accept();
+        } catch (IOException e) {
+            if (!isServerWorking) {
+                return null;
+            }
+
+            throw e;
+        }
+    }
+
+    private void serveClient(SocketChannel channel) {
+        BlockingConnectionKey key = new BlockingConnectionKey(channel);
+        ClientConnection connection = new ClientConnection(channel, key,
+                ByteBuffer.allocate(BUFFER_SIZE), responseEncoder, OUTBOUND_HIGH_WATERMARK);
+        ReentrantLock outboundLock = new ReentrantLock();
+        servedConnections.put(key, new ServedConnection(connection, outboundLock));
+        refreshTimeout(connection);
+        try (channel) {
+            while (!connection.isCloseAfterFlush() && connection.read() >= 0) {
+                refreshTimeout(connection);
+                // like the selector engine, every complete command already received is served a batch at a time
+                // before blocking on the next read, or a pipelining client would wait for input it already sent
+                List<Command> commands;
+                do {
+                    commands = connection.nextCommands(MAX_PIPELINED_COMMANDS);
+                    executeBatch(connection, outboundLock, commands);
+                } while (!commands.isEmpty() && !connection.isCloseAfterFlush());
+            }
+        } catch (AsynchronousCloseException e) {
+            // the connection timed out and was closed by the reaper
+        } catch (IOException e) {
+            System.out.println("Connection with a client failed: " + e.getMessage());
+        } finally {
+            servedConnections.remove(key);
+            cancelTimeout(connection);
+            handleDisconnect(key);
+        }
+    }
+
+    private void executeBatch(ClientConnection connection, ReentrantLock outboundLock, List<Command> commands)
+            throws IOException {
+        outboundLock.lock();
+        try {
+            if (commands.isEmpty() && connection.isFrameTooLong()) {
+                connection.rejectOversizedFrame();
+            }
+
+            for (Command command : commands) {
+                executeCommand(connection, command);
+            }
+
+            refreshTimeout(connection);
+            connection.flush();
+        } finally {
+            outboundLock.unlock();
+        }
+    }
+
+    private void writePriceUpdates(ServedConnection served, List<PriceUpdateFrame> frames) {
+        ClientConnection connection = served.connection();
+        served.outboundLock().lock();
+        try {
+            if (connection.isCloseAfterFlush()) {
+                return;
+            }
+
+            for (PriceUpdateFrame frame : frames) {
+                connection.enqueuePriceUpdate(frame);
+            }
+            connection.flush();
+        } catch (IOException e) {
+            // the thread serving the client notices the broken connection on its next read
+        } finally {
+            served.outboundLock().unlock();
+        }
+    }
+
+    /**
+     * Same policy as the selector engine: a logged in connection gets a fresh idle timeout on every
+     * activity, a connection that has not logged in yet keeps the deadline it got when it connected.
+     */
+    private void refreshTimeout(ClientConnection connection) {
+        boolean isLoggedIn = connection.isLoggedIn();
+        long timeoutMillis = configuration.connectionTimeoutMillis(isLoggedIn);
+        synchronized (timeouts) {
+            TimingWheel.Timeout<ClientConnection> timeout = connection.getTimeout();
+            if (!isLoggedIn && timeout != null && timeout.isPending()) {
+                return;
+            }
+
+            if (timeoutMillis == 0) {
+                timeouts.cancel(timeout);
+            } else if (timeout == null) {
+                connection.setTimeout(timeouts.schedule(connection, timeoutMillis));
+            } else {
+                timeouts.reschedule(timeout, timeoutMillis);
+            }
+        }
+    }
+
+    private void cancelTimeout(ClientConnection connection) {
+        synchronized (timeouts) {
+            timeouts.cancel(connection.getTimeout());
+        }
+    }
+
+    private void reapTimedOutConnections() {
+        try {
+            while (isServerWorking) {
+                Thread.sleep(timeouts.getTickMillis());
+                synchronized (timeouts) {
+                    timeouts.advance(System.currentTimeMillis(), this::expireConnection);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Closing the channel wakes up the thread blocked on reading from it, which then
+     * disconnects the client through the usual path.
+     */
+    private void expireConnection(ClientConnection connection) {
+        try {
+            System.out.println("Closing a connection that timed out.");
+            connection.getChannel().close();
+        } catch (IOException e) {
+            System.out.println("Could not close a connection that timed out: " + e.getMessage());
+        }
+    }
+
+    private void executeCommand(ClientConnection connection, Command command) {
+        String response = null;
+        try {
+            response = command.type().isPasswordHashing()
+                    ? executePasswordHashingCommand(connection, command)
+                    : commandExecutor.execute(command, connection.getKey());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.out.println("Exception when executing the client's command: " + e.getMessage());
+        }
+
+        if (response == null) {
+            response = INPUT_READING_PROBLEM.getMessage();
+        }
+
+        connection.enqueueResponse(response);
+        if (response.equals("disconnect")) {
+            connection.setCloseAfterFlush(true);
+        } else if ("shutdown".equals(response) && connectedClients.get() == 0) {
+            connection.setCloseAfterFlush(true);
+            stopServer();
+        }
+    }
+
+    /**
+     * Waits for the {@link crypto.wallet.manager.account.PasswordHashingService} on this virtual thread,
+     * so these commands are limited the same way as in the selector engine.
+     */
+    private String executePasswordHashingCommand(ClientConnection connection, Command command)
+            throws InterruptedException {
+        if (!admissionController.tryAcquireToken(connection.getRemoteAddress())) {
+            return SERVER_BUSY.getMessage();
+        }
+
+        try {
+            return commandExecutor.executeAsync(command, connection.getKey()).get();
+        } catch (ExecutionException e) {
+            return asyncFailureResponse(e.getCause());
+        }
+    }
+
+    private void handleDisconnect(BlockingConnectionKey key) {
+        commandExecutor.execute(newCommand(DISCONNECT), key);
+        key.cancel();
+
+        int remainingClients = connectedClients.decrementAndGet();
+        if (remainingClients == 0) {
+            System.out.println("No clients connected. Server is stopping.");
+            stopServer();
+        }
+
+        System.out.println("Client disconnected. Remaining clients: " + remainingClients);
+    }
+
+    private void stopServer() {
+        isServerWorking = false;
+        try {
+            if (serverSocketChannel != null) {
+                serverSocketChannel.close();
+            }
+        } catch (IOException e) {
+            System.out.println("Could not close the server socket: " + e.getMessage());
+        }
+    }
+}
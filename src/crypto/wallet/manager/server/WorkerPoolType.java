@@ -0,0 +1,24 @@
+package crypto.wallet.manager.server;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public enum WorkerPoolType {
+    PLATFORM,
+    VIRTUAL;
+
+    public ExecutorService newExecutor(int threads) {
+        return switch (this) {
+            case PLATFORM -> Executors.newFixedThreadPool(threads);
+            case VIRTUAL -> Executors.newVirtualThreadPerTaskExecutor();
+        };
+    }
+
+    public static WorkerPoolType fromString(String str) {
+        try {
+            return valueOf(str.toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return PLATFORM;
+        }
+    }
+}
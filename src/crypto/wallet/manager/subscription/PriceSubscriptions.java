@@ -0,0 +1,87 @@
+package crypto.wallet.manager.subscription;
+
+import crypto.wallet.manager.crypto.CryptoCoin;
+import crypto.wallet.manager.database.PriceUpdateListener;
+
+import java.nio.channels.SelectionKey;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the connections subscribed to each coin. On a price refresh only the subscribers of the
+ * coins that changed are visited, and each changed coin is encoded into a frame just once.
+ */
+public class PriceSubscriptions implements PriceUpdateListener {
+    private final Map<String, Set<SelectionKey>> subscribersByCoin;
+    private final Map<SelectionKey, Set<String>> coinsBySubscriber;
+    private volatile PriceUpdateSink sink;
+
+    public PriceSubscriptions() {
+        this.subscribersByCoin = new ConcurrentHashMap<>();
+        this.coinsBySubscriber = new ConcurrentHashMap<>();
+    }
+
+    public void setSink(PriceUpdateSink sink) {
+        this.sink = sink;
+    }
+
+    public void subscribe(SelectionKey subscriber, Collection<String> offeringCodes) {
+        Set<String> coins = coinsBySubscriber.computeIfAbsent(subscriber, key -> ConcurrentHashMap.newKeySet());
+        for (String offeringCode : offeringCodes) {
+            if (coins.add(offeringCode)) {
+                // compute, not computeIfAbsent and add, so the set cannot be dropped by unsubscribeAll in between
+                subscribersByCoin.compute(offeringCode, (code, subscribers) -> {
+                    Set<SelectionKey> result = subscribers == null ? ConcurrentHashMap.newKeySet() : subscribers;
+                    result.add(subscriber);
+                    return result;
+                });
+            }
+        }
+    }
+
+    public void unsubscribeAll(SelectionKey subscriber) {
+        Set<String> coins = coinsBySubscriber.remove(subscriber);
+        if (coins == null) {
+            return;
+        }
+
+        for (String offeringCode : coins) {
+            subscribersByCoin.computeIfPresent(offeringCode, (code, subscribers) -> {
+                subscribers.remove(subscriber);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+    }
+
+    public Set<String> getSubscriptions(SelectionKey subscriber) {
+        return coinsBySubscriber.getOrDefault(subscriber, Set.of());
+    }
+
+    @Override
+    public void onPricesUpdated(Collection<CryptoCoin> changedCoins) {
+        PriceUpdateSink currentSink = sink;
+        if (currentSink == null) {
+            return;
+        }
+
+        boolean isPushed = false;
+        for (CryptoCoin coin : changedCoins) {
+            Set<SelectionKey> subscribers = subscribersByCoin.get(coin.offeringCode());
+            if (subscribers == null || subscribers.isEmpty()) {
+                continue;
+            }
+
+            PriceUpdateFrame frame = PriceUpdateFrame.of(coin);
+            for (SelectionKey subscriber : subscribers) {
+                currentSink.push(subscriber, frame);
+                isPushed = true;
+            }
+        }
+
+        if (isPushed) {
+            currentSink.pushCompleted();
+        }
+    }
+}
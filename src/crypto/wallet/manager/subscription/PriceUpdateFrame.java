@@ -0,0 +1,31 @@
+package crypto.wallet.manager.subscription;
+
+import crypto.wallet.manager.crypto.CryptoCoin;
+import crypto.wallet.manager.money.FixedPoint;
+import crypto.wallet.manager.protocol.BinaryProtocol;
+import crypto.wallet.manager.protocol.ProtocolType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A price update encoded once for each protocol. The buffers are read-only and every subscriber
+ * gets its own duplicate, so one frame is shared by all connections it is pushed to.
+ * In the text protocol an update is the line {@code price {id} {price in US dollars}}.
+ */
+public record PriceUpdateFrame(String offeringCode, ByteBuffer text, ByteBuffer binary) {
+    private static final String TEXT_PREFIX = "price ";
+    private static final char TEXT_DELIMITER = '\n';
+
+    public static PriceUpdateFrame of(CryptoCoin coin) {
+        String line = TEXT_PREFIX + coin.offeringCode() + " " + FixedPoint.toPlainString(coin.priceUnits())
+                + TEXT_DELIMITER;
+        ByteBuffer text = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+        return new PriceUpdateFrame(coin.offeringCode(), text,
+                BinaryProtocol.encodePriceUpdate(coin.offeringCode(), coin.priceUnits()));
+    }
+
+    public ByteBuffer encodedFor(ProtocolType protocol) {
+        return protocol == ProtocolType.BINARY ? binary.duplicate() : text.duplicate();
+    }
+}
@@ -0,0 +1,18 @@
+package crypto.wallet.manager.subscription;
+
+import java.nio.channels.SelectionKey;
+
+/**
+ * Delivers pushed frames to connections. Implemented by the server engine that owns the connections.
+ */
+public interface PriceUpdateSink {
+    /**
+     * Called on the refreshing thread, so implementations must not block on the connection.
+     */
+    void push(SelectionKey subscriber, PriceUpdateFrame frame);
+
+    /**
+     * Called once after all frames of one price refresh have been pushed.
+     */
+    void pushCompleted();
+}
@@ -0,0 +1,117 @@
+package crypto.wallet.manager.account;
+
+import crypto.wallet.manager.crypto.CryptoCoin;
+import crypto.wallet.manager.database.CryptoCoinsDatabase;
+import crypto.wallet.manager.exceptions.InsufficientBalanceException;
+import crypto.wallet.manager.exceptions.InvalidCryptoCoinException;
+import crypto.wallet.manager.money.FixedPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Runs interleaved deposits, buys and sells on one account from many threads. Prices stay fixed and every
+ * amount is exact in fixed point, so the money that went in must equal the balance plus the holdings at cost.
+ */
+class AccountConcurrencyTest {
+    private static final int THREADS_COUNT = 8;
+    private static final int OPERATIONS_PER_THREAD = 5_000;
+    private static final double INITIAL_DEPOSIT = 1000.0;
+    private static final String[] OFFERING_CODES = {"BTC", "ETH"};
+
+    private Account account;
+    private CryptoCoinsDatabase cryptoCoinsDatabase;
+
+    @BeforeEach
+    void setUp() {
+        account = new Account("stressUser", "stressPassword");
+        cryptoCoinsDatabase = new CryptoCoinsDatabase();
+        cryptoCoinsDatabase.updateCryptoCoinSet(Set.of(
+                new CryptoCoin("BTC", "Bitcoin", 4.0, 1),
+                new CryptoCoin("ETH", "Ethereum", 2.0, 1)));
+        account.deposit(FixedPoint.fromDouble(INITIAL_DEPOSIT));
+    }
+
+    @Test
+    void mutators_interleavedFromManyThreads_shouldKeepMoneyConserved() throws InterruptedException {
+        AtomicLong deposited = new AtomicLong(FixedPoint.fromDouble(INITIAL_DEPOSIT));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS_COUNT];
+        for (int i = 0; i < THREADS_COUNT; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                    runRandomOperations(deposited);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            threads[i].start();
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertNull(failure.get(), "No operation should fail unexpectedly");
+        assertEquals(deposited.get(), account.getAmountAvailableUnits() + holdingsAtCost(),
+                "The deposited money should equal the balance plus the holdings at cost");
+        assertEquals(0.0, account.getRealizedProfitLoss(), "Selling at the purchase price should realize nothing");
+        account.getCryptoCoins().values().forEach(this::assertTotalsMatchLots);
+    }
+
+    private void runRandomOperations(AtomicLong deposited) throws InvalidCryptoCoinException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        CostBasisMethod[] methods = CostBasisMethod.values();
+
+        for (int operation = 0; operation < OPERATIONS_PER_THREAD; operation++) {
+            String offeringCode = OFFERING_CODES[random.nextInt(OFFERING_CODES.length)];
+            try {
+                switch (random.nextInt(4)) {
+                    case 0 -> {
+                        account.deposit(FixedPoint.fromDouble(1.0));
+                        deposited.addAndGet(FixedPoint.ONE);
+                    }
+                    case 1 -> account.buyCryptoCoin(FixedPoint.fromDouble(0.5), offeringCode, cryptoCoinsDatabase);
+                    case 2 -> account.sellCryptoCoin(offeringCode, FixedPoint.fromDouble(0.25),
+                            methods[random.nextInt(methods.length)], cryptoCoinsDatabase);
+                    default -> account.walletInformation();
+                }
+            } catch (InsufficientBalanceException e) {
+                // another thread spent the money or sold the coins first
+            }
+        }
+    }
+
+    private long holdingsAtCost() {
+        long total = 0;
+        for (Map.Entry<String, LotLedger> entry : account.getCryptoCoins().entrySet()) {
+            total += entry.getValue().getTotalCost();
+        }
+
+        return total;
+    }
+
+    private void assertTotalsMatchLots(LotLedger lots) {
+        long amount = 0;
+        long cost = 0;
+        for (int lot = 0; lot < lots.getLotCount(); lot++) {
+            amount += lots.getAmount(lot);
+            cost += FixedPoint.multiply(lots.getAmount(lot), lots.getPrice(lot));
+        }
+
+        assertEquals(amount, lots.getTotalAmount(), "The running amount should be the sum of the lots");
+        assertEquals(cost, lots.getTotalCost(), "The running cost should be the sum of the lots");
+    }
+}
@@ -3,6 +3,7 @@ package crypto.wallet.manager.account;
 import crypto.wallet.manager.database.CryptoCoinsDatabase;
 import crypto.wallet.manager.exceptions.InsufficientBalanceException;
 import crypto.wallet.manager.exceptions.InvalidCryptoCoinException;
+import crypto.wallet.manager.money.FixedPoint;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -12,6 +13,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import crypto.wallet.manager.crypto.CryptoCoin;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 class AccountTest {
@@ -30,7 +32,7 @@ class AccountTest {
         Set<CryptoCoin> initialCryptoCoins = initializeCryptoCoins();
         cryptoCoinsDatabase.updateCryptoCoinSet(initialCryptoCoins);
 
-        testAccount.deposit(100000.0);
+        testAccount.deposit(FixedPoint.fromDouble(100000.0));
     }
 
     private Set<CryptoCoin> initializeCryptoCoins() {
@@ -43,7 +45,7 @@ class AccountTest {
     @Test
     void buyCryptoCoin_validInput_shouldSucceed() {
         try {
-            testAccount.buyCryptoCoin(10.0, "ETH", cryptoCoinsDatabase);
+            testAccount.buyCryptoCoin(FixedPoint.fromDouble(10.0), "ETH", cryptoCoinsDatabase);
         } catch (Exception e) {
             fail("Unexpected exception: " + e.getMessage());
         }
@@ -52,16 +54,30 @@ class AccountTest {
         assertTrue(testAccount.getCryptoCoins().containsKey("ETH"), "Account should contain ETH crypto coins");
     }
 
+    @Test
+    void buyCryptoCoin_sameAmountTwice_shouldKeepBothLots()
+            throws InsufficientBalanceException, InvalidCryptoCoinException {
+        testAccount.buyCryptoCoin(FixedPoint.fromDouble(1), "ETH", cryptoCoinsDatabase);
+        testAccount.buyCryptoCoin(FixedPoint.fromDouble(1), "ETH", cryptoCoinsDatabase);
+
+        LotLedger lots = testAccount.getCryptoCoins().get("ETH");
+        assertEquals(2, lots.getLotCount(), "Two purchases of the same amount should be two lots");
+        assertEquals(FixedPoint.fromDouble(2.0), lots.getTotalAmount(),
+                "Both purchases should count towards the amount held");
+        assertEquals(FixedPoint.fromDouble(6000.0), lots.getTotalCost(),
+                "Both purchases should count towards the cost basis");
+    }
+
     @Test
     void buyCryptoCoin_insufficientBalance_shouldThrowException() {
         assertThrows(InsufficientBalanceException.class,
-                () -> testAccount.buyCryptoCoin(5000.0, "BTC", cryptoCoinsDatabase),
+                () -> testAccount.buyCryptoCoin(FixedPoint.fromDouble(5000.0), "BTC", cryptoCoinsDatabase),
                 "Buying crypto coins with insufficient balance should throw InsufficientBalanceException");
     }
 
     @Test
     void sellCryptoCoin_validInput_shouldSucceed() throws InsufficientBalanceException, InvalidCryptoCoinException {
-        testAccount.buyCryptoCoin(1, "ETH", cryptoCoinsDatabase);
+        testAccount.buyCryptoCoin(FixedPoint.fromDouble(1), "ETH", cryptoCoinsDatabase);
         try {
             testAccount.sellCryptoCoin("ETH", cryptoCoinsDatabase);
         } catch (Exception e) {
@@ -73,6 +89,82 @@ class AccountTest {
         assertFalse(testAccount.getCryptoCoins().containsKey("ETH"), "Account should not contain ETH crypto coins");
     }
 
+    @Test
+    void sellCryptoCoin_partialAmount_shouldKeepTheRestAndRecordProfit()
+            throws InsufficientBalanceException, InvalidCryptoCoinException {
+        testAccount.buyCryptoCoin(FixedPoint.fromDouble(2), "ETH", cryptoCoinsDatabase);
+        cryptoCoinsDatabase.updateCryptoCoinSet(Set.of(new CryptoCoin("ETH", "Ethereum", 3500.0, 1)));
+
+        SellResult result = testAccount.sellCryptoCoin("ETH", FixedPoint.fromDouble(0.5), CostBasisMethod.FIFO,
+                cryptoCoinsDatabase);
+
+        assertEquals(250.0, result.realizedProfitLossUSD(), "The profit should be measured against the purchase price");
+        assertEquals(250.0, testAccount.getRealizedProfitLoss(), "The account should record the realized profit");
+        assertEquals(95750.0, testAccount.getAmountAvailable(), "The proceeds should be added to the balance");
+        assertEquals(FixedPoint.fromDouble(1.5), testAccount.getCryptoCoins().get("ETH").getTotalAmount(),
+                "The coins that were not sold should stay in the wallet");
+    }
+
+    @Test
+    void sellCryptoCoin_wholePartialAmount_shouldRemoveTheCoin()
+            throws InsufficientBalanceException, InvalidCryptoCoinException {
+        testAccount.buyCryptoCoin(FixedPoint.fromDouble(2), "ETH", cryptoCoinsDatabase);
+
+        testAccount.sellCryptoCoin("ETH", FixedPoint.fromDouble(2), CostBasisMethod.LIFO, cryptoCoinsDatabase);
+
+        assertFalse(testAccount.getCryptoCoins().containsKey("ETH"), "A coin sold completely should be removed");
+    }
+
+    @Test
+    void sellCryptoCoin_moreThanHeld_shouldThrowException()
+            throws InsufficientBalanceException, InvalidCryptoCoinException {
+        testAccount.buyCryptoCoin(FixedPoint.fromDouble(1), "ETH", cryptoCoinsDatabase);
+
+        assertThrows(InsufficientBalanceException.class,
+                () -> testAccount.sellCryptoCoin("ETH", FixedPoint.fromDouble(2), CostBasisMethod.FIFO,
+                        cryptoCoinsDatabase),
+                "Selling more coins than held should throw InsufficientBalanceException");
+        assertEquals(FixedPoint.fromDouble(1.0), testAccount.getCryptoCoins().get("ETH").getTotalAmount(),
+                "A refused sell should not change the holding");
+    }
+
+    @Test
+    void executeAtomically_validOperations_shouldApplyAll()
+            throws InsufficientBalanceException, InvalidCryptoCoinException {
+        testAccount.buyCryptoCoin(FixedPoint.fromDouble(2), "ETH", cryptoCoinsDatabase);
+
+        testAccount.executeAtomically(List.of(
+                new AccountOperation.Deposit(FixedPoint.fromDouble(1000.0)),
+                new AccountOperation.Sell("ETH", FixedPoint.fromDouble(1), CostBasisMethod.FIFO),
+                new AccountOperation.Buy("BTC", FixedPoint.fromDouble(1))),
+                cryptoCoinsDatabase.getPriceSnapshot().asMap());
+
+        assertEquals(49000.0, testAccount.getAmountAvailable(), "Every operation should change the balance");
+        assertTrue(testAccount.getCryptoCoins().containsKey("BTC"), "The bought coin should be held");
+        assertEquals(FixedPoint.fromDouble(1.0), testAccount.getCryptoCoins().get("ETH").getTotalAmount(),
+                "The sold coins should no longer be held");
+    }
+
+    @Test
+    void executeAtomically_failingOperation_shouldApplyNothing()
+            throws InsufficientBalanceException, InvalidCryptoCoinException {
+        testAccount.buyCryptoCoin(FixedPoint.fromDouble(2), "ETH", cryptoCoinsDatabase);
+
+        assertThrows(InsufficientBalanceException.class, () -> testAccount.executeAtomically(List.of(
+                        new AccountOperation.Sell("ETH", FixedPoint.fromDouble(1.5), CostBasisMethod.LIFO),
+                        new AccountOperation.Buy("ETH", FixedPoint.fromDouble(1)),
+                        new AccountOperation.Buy("BTC", FixedPoint.fromDouble(5))),
+                        cryptoCoinsDatabase.getPriceSnapshot().asMap()),
+                "A transaction with an operation that cannot be paid for should throw InsufficientBalanceException");
+
+        LotLedger eth = testAccount.getCryptoCoins().get("ETH");
+        assertEquals(94000.0, testAccount.getAmountAvailable(), "The balance should be the one before the transaction");
+        assertFalse(testAccount.getCryptoCoins().containsKey("BTC"), "No coin should be bought");
+        assertEquals(FixedPoint.fromDouble(2.0), eth.getTotalAmount(), "The sold coins should be held again");
+        assertEquals(1, eth.getLotCount(), "The lot bought in the transaction should be gone");
+        assertEquals(0.0, testAccount.getRealizedProfitLoss(), "No profit should be realized");
+    }
+
     @Test
     void sellCryptoCoin_cryptoCoinNotFound_shouldThrowException() {
         assertThrows(InvalidCryptoCoinException.class,
@@ -82,8 +174,8 @@ class AccountTest {
 
     @Test
     void walletInformation_shouldReturnCorrectInfo() throws InsufficientBalanceException, InvalidCryptoCoinException {
-        testAccount.buyCryptoCoin(1, "BTC", cryptoCoinsDatabase);
-        testAccount.buyCryptoCoin(5, "ETH", cryptoCoinsDatabase);
+        testAccount.buyCryptoCoin(FixedPoint.fromDouble(1), "BTC", cryptoCoinsDatabase);
+        testAccount.buyCryptoCoin(FixedPoint.fromDouble(5), "ETH", cryptoCoinsDatabase);
 
         String expectedInfo = "Amount available: 36000,00\n" +
                 "Current investments:\n" +
@@ -102,28 +194,28 @@ class AccountTest {
     @Test
     void buyCryptoCoin_negativeAmount_shouldThrowException() {
         assertThrows(IllegalArgumentException.class,
-                () -> testAccount.buyCryptoCoin(-100.0, "BTC", cryptoCoinsDatabase),
+                () -> testAccount.buyCryptoCoin(FixedPoint.fromDouble(-100.0), "BTC", cryptoCoinsDatabase),
                 "Buying crypto coins with a negative amount should throw IllegalArgumentException");
     }
 
     @Test
     void buyCryptoCoin_zeroAmount_shouldThrowException() {
         assertThrows(IllegalArgumentException.class,
-                () -> testAccount.buyCryptoCoin(0.0, "BTC", cryptoCoinsDatabase),
+                () -> testAccount.buyCryptoCoin(FixedPoint.fromDouble(0.0), "BTC", cryptoCoinsDatabase),
                 "Buying crypto coins with zero amount should throw IllegalArgumentException");
     }
 
     @Test
     void buyCryptoCoin_nullOfferingCode_shouldThrowException() {
         assertThrows(IllegalArgumentException.class,
-                () -> testAccount.buyCryptoCoin(10.0, null, cryptoCoinsDatabase),
+                () -> testAccount.buyCryptoCoin(FixedPoint.fromDouble(10.0), null, cryptoCoinsDatabase),
                 "Buying crypto coins with a null offering code should throw IllegalArgumentException");
     }
 
     @Test
     void buyCryptoCoin_invalidOfferingCode_shouldThrowException() {
         assertThrows(InvalidCryptoCoinException.class,
-                () -> testAccount.buyCryptoCoin(10.0, "XYZ", cryptoCoinsDatabase),
+                () -> testAccount.buyCryptoCoin(FixedPoint.fromDouble(10.0), "XYZ", cryptoCoinsDatabase),
                 "Buying crypto coins with an invalid offering code should throw InvalidCryptoCoinException");
     }
 
@@ -165,8 +257,8 @@ class AccountTest {
 
     @Test
     void walletInvestmentInformation_multipleCoins_shouldReturnCorrectInfo() throws InsufficientBalanceException, InvalidCryptoCoinException {
-        testAccount.buyCryptoCoin(1, "BTC", cryptoCoinsDatabase);
-        testAccount.buyCryptoCoin(3, "ETH", cryptoCoinsDatabase);
+        testAccount.buyCryptoCoin(FixedPoint.fromDouble(1), "BTC", cryptoCoinsDatabase);
+        testAccount.buyCryptoCoin(FixedPoint.fromDouble(3), "ETH", cryptoCoinsDatabase);
 
         String expectedInfo = "BTC - +0,00\nETH - +0,00\n";
         assertEquals(expectedInfo, testAccount.walletInvestmentInformation(cryptoCoinsDatabase),
@@ -175,8 +267,8 @@ class AccountTest {
 
     @Test
     void walletInvestmentInformation_negativeInvestment_shouldReturnCorrectInfo() throws InsufficientBalanceException, InvalidCryptoCoinException {
-        testAccount.buyCryptoCoin(1, "BTC", cryptoCoinsDatabase);
-        testAccount.buyCryptoCoin(5, "ETH", cryptoCoinsDatabase);
+        testAccount.buyCryptoCoin(FixedPoint.fromDouble(1), "BTC", cryptoCoinsDatabase);
+        testAccount.buyCryptoCoin(FixedPoint.fromDouble(5), "ETH", cryptoCoinsDatabase);
         testAccount.sellCryptoCoin("BTC", cryptoCoinsDatabase);
 
         String expectedInfo = "ETH - +0,00\n";
@@ -184,6 +276,38 @@ class AccountTest {
                 "Wallet investment information should be correct for negative investment");
     }
 
+    @Test
+    void walletInformation_unchangedAccount_shouldReturnTheCachedText() {
+        String first = testAccount.walletInformation();
+
+        assertSame(first, testAccount.walletInformation(),
+                "Wallet information should not be rendered again while the account is unchanged");
+    }
+
+    @Test
+    void walletInformation_afterDeposit_shouldRenderTheNewBalance() {
+        String before = testAccount.walletInformation();
+        testAccount.deposit(FixedPoint.fromDouble(50.0));
+
+        assertNotEquals(before, testAccount.walletInformation(),
+                "Wallet information should be rendered again after the account changed");
+    }
+
+    @Test
+    void walletInvestmentInformation_afterPriceRefresh_shouldRenderTheNewPrices()
+            throws InsufficientBalanceException, InvalidCryptoCoinException {
+        testAccount.buyCryptoCoin(FixedPoint.fromDouble(1), "BTC", cryptoCoinsDatabase);
+        String before = testAccount.walletInvestmentInformation(cryptoCoinsDatabase);
+        assertSame(before, testAccount.walletInvestmentInformation(cryptoCoinsDatabase),
+                "Wallet investment information should be cached while neither the account nor the prices change");
+
+        cryptoCoinsDatabase.updateCryptoCoinSet(Set.of(new CryptoCoin("BTC", "Bitcoin", 50000.0, 1)));
+
+        assertEquals(String.format("BTC - +%.2f\n", 1000.0),
+                testAccount.walletInvestmentInformation(cryptoCoinsDatabase),
+                "Wallet investment information should be rendered again after a price refresh");
+    }
+
     @Test
     void walletInvestmentInformation_invalidCryptoCoinsDatabase_shouldThrowException() {
         assertThrows(IllegalArgumentException.class,
@@ -0,0 +1,148 @@
+package crypto.wallet.manager.account;
+
+import crypto.wallet.manager.money.FixedPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LotLedgerTest {
+    private LotLedger lotLedger;
+
+    @BeforeEach
+    void setUp() {
+        lotLedger = new LotLedger();
+    }
+
+    @Test
+    void addLot_manyLots_shouldKeepEveryLotAndRunningTotals() {
+        int lotsCount = 100;
+        for (int i = 1; i <= lotsCount; i++) {
+            lotLedger.addLot(units(i), units(2.0), i);
+        }
+
+        assertEquals(lotsCount, lotLedger.getLotCount(), "Every purchase should be kept as its own lot");
+        assertEquals(units(50.0), lotLedger.getAmount(49), "Lots should keep the order of the purchases");
+        assertEquals(50L, lotLedger.getTimestampMillis(49), "Lots should keep their timestamps");
+        assertEquals(units(5050.0), lotLedger.getTotalAmount(), "The total amount should be the sum of the lots");
+        assertEquals(units(10100.0), lotLedger.getTotalCost(),
+                "The cost basis should be the sum of amount times price");
+    }
+
+    @Test
+    void removeCoins_fifo_shouldSellTheOldestLotsFirst() {
+        lotLedger.addLot(units(1), units(100.0), 1);
+        lotLedger.addLot(units(1), units(200.0), 2);
+        lotLedger.addLot(units(1), units(300.0), 3);
+
+        assertEquals(units(200.0), lotLedger.removeCoins(units(1.5), CostBasisMethod.FIFO),
+                "FIFO should take the first lot and half of the second");
+        assertEquals(2, lotLedger.getLotCount(), "The emptied lot should be removed");
+        assertEquals(units(0.5), lotLedger.getAmount(0), "The split lot should keep the rest of its coins");
+        assertEquals(units(400.0), lotLedger.getTotalCost(),
+                "The cost basis should drop by the cost of the sold coins");
+    }
+
+    @Test
+    void removeCoins_lifo_shouldSellTheNewestLotsFirst() {
+        lotLedger.addLot(units(1), units(100.0), 1);
+        lotLedger.addLot(units(1), units(200.0), 2);
+        lotLedger.addLot(units(1), units(300.0), 3);
+
+        assertEquals(units(400.0), lotLedger.removeCoins(units(1.5), CostBasisMethod.LIFO),
+                "LIFO should take the last lot and half of the second");
+        assertEquals(units(100.0), lotLedger.getPrice(0), "The oldest lot should be untouched");
+        assertEquals(units(1.5), lotLedger.getTotalAmount(), "The amount held should drop by the sold coins");
+    }
+
+    @Test
+    void removeCoins_avg_shouldUseTheAveragePrice() {
+        lotLedger.addLot(units(1), units(100.0), 1);
+        lotLedger.addLot(units(3), units(300.0), 2);
+
+        assertEquals(units(500.0), lotLedger.removeCoins(units(2), CostBasisMethod.AVG),
+                "Average cost should price every sold coin at the average purchase price");
+        assertEquals(units(500.0), lotLedger.getTotalCost(), "The coins left should keep the average price");
+        assertEquals(1, lotLedger.getLotCount(), "Average cost should take the coins from the oldest lots");
+        assertEquals(units(300.0), lotLedger.getPrice(0), "The remaining lot should keep its own price");
+        assertEquals(2L, lotLedger.getTimestampMillis(0), "The remaining lot should keep its own timestamp");
+    }
+
+    @Test
+    void removeCoins_lifoAfterAvg_shouldPriceTheNewestLotAtItsOwnPrice() {
+        lotLedger.addLot(units(2), units(100.0), 1);
+        lotLedger.addLot(units(2), units(300.0), 2);
+
+        lotLedger.removeCoins(units(1), CostBasisMethod.AVG);
+
+        assertEquals(units(300.0), lotLedger.removeCoins(units(1), CostBasisMethod.LIFO),
+                "A later LIFO sell should use the price of the newest lot, not the average");
+    }
+
+    @Test
+    void removeCoins_lotsPricedAboveTheRestAfterAvg_shouldNotTakeMoreThanTheCostLeft() {
+        lotLedger.addLot(units(2), units(0.0), 1);
+        lotLedger.addLot(units(1), units(300.0), 2);
+
+        lotLedger.removeCoins(units(1), CostBasisMethod.AVG);
+        assertEquals(units(200.0), lotLedger.removeCoins(units(1), CostBasisMethod.LIFO),
+                "A sell should never take more cost basis than the holding has left");
+        assertEquals(units(0.0), lotLedger.getTotalCost(), "The cost basis should never become negative");
+        assertEquals(units(0.0), lotLedger.removeCoins(units(1), CostBasisMethod.FIFO),
+                "The last sell should take whatever cost basis is left");
+    }
+
+    @Test
+    void removeCoins_everything_shouldEmptyTheLedger() {
+        lotLedger.addLot(units(1), units(100.0), 1);
+        lotLedger.addLot(units(2), units(200.0), 2);
+
+        lotLedger.removeCoins(units(3), CostBasisMethod.FIFO);
+
+        assertTrue(lotLedger.isEmpty(), "Selling every coin should leave no lots");
+        assertEquals(units(0.0), lotLedger.getTotalCost(), "An empty ledger should have no cost basis");
+    }
+
+    @Test
+    void addLot_afterFifoSells_shouldKeepTheOrderOfLots() {
+        for (int i = 1; i <= 4; i++) {
+            lotLedger.addLot(units(1), units(i), i);
+        }
+
+        lotLedger.removeCoins(units(3), CostBasisMethod.FIFO);
+        lotLedger.addLot(units(1), units(5), 5);
+
+        assertEquals(2, lotLedger.getLotCount(), "Only the unsold and the new lot should be held");
+        assertEquals(4L, lotLedger.getTimestampMillis(0), "The unsold lot should come first");
+        assertEquals(5L, lotLedger.getTimestampMillis(1), "The new lot should come last");
+    }
+
+    @Test
+    void removeCoins_moreThanHeld_shouldThrowException() {
+        lotLedger.addLot(units(1), units(100.0), 1);
+
+        assertThrows(IllegalArgumentException.class, () -> lotLedger.removeCoins(units(2), CostBasisMethod.FIFO),
+                "Removing more coins than held should be refused");
+    }
+
+    @Test
+    void addLot_nonPositiveAmount_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> lotLedger.addLot(units(0), units(2.0), 0),
+                "A lot without coins should be refused");
+        assertTrue(lotLedger.isEmpty(), "A refused lot should not be added");
+    }
+
+    @Test
+    void getAmount_missingLot_shouldThrowException() {
+        lotLedger.addLot(units(1), units(2.0), 0);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> lotLedger.getAmount(1),
+                "Reading past the last lot should throw IndexOutOfBoundsException");
+    }
+
+    private static long units(double value) {
+        return FixedPoint.fromDouble(value);
+    }
+}
@@ -0,0 +1,53 @@
+package crypto.wallet.manager.account;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHashingServiceTest {
+    private static final String PASSWORD = "password";
+
+    private final PasswordHashingService passwordHashingService = PasswordHashingService.getInstance();
+
+    @Test
+    void matches_hashOfSamePassword_shouldReturnTrue() {
+        String hash = passwordHashingService.hash(PASSWORD);
+
+        assertNotEquals(PASSWORD, hash, "The password should not be stored as it is");
+        assertTrue(passwordHashingService.matches(PASSWORD, hash), "The password should match its own hash");
+        assertFalse(passwordHashingService.matches("other", hash), "Another password should not match the hash");
+    }
+
+    @Test
+    void submit_task_shouldCompleteWithItsResult() throws ExecutionException, InterruptedException {
+        assertEquals("done", passwordHashingService.submit(() -> "done").get(),
+                "The future should complete with the result of the task");
+    }
+
+    @Test
+    void getMetrics_afterHashing_shouldCountOperations() {
+        long operationsBefore = passwordHashingService.getMetrics().hashOperations();
+
+        passwordHashingService.hash(PASSWORD);
+        PasswordHashingMetrics metrics = passwordHashingService.getMetrics();
+
+        assertTrue(metrics.hashOperations() > operationsBefore, "Hashing should be counted");
+        assertTrue(metrics.maxHashNanos() >= metrics.averageHashNanos(),
+                "The longest hashing time should not be shorter than the average");
+    }
+
+    @Test
+    void isIdleSince_afterHashing_shouldReturnFalse() {
+        PasswordHashingMetrics before = passwordHashingService.getMetrics();
+
+        passwordHashingService.hash(PASSWORD);
+
+        assertFalse(passwordHashingService.getMetrics().isIdleSince(before),
+                "Metrics taken after hashing should not be idle");
+    }
+}
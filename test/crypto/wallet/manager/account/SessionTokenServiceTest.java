@@ -0,0 +1,118 @@
+package crypto.wallet.manager.account;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionTokenServiceTest {
+    private static final String USERNAME = "user";
+    private static final long TTL_MILLIS = 60_000;
+
+    private final SessionTokenService sessionTokenService = new SessionTokenService(TTL_MILLIS);
+
+    @Test
+    void validate_issuedToken_shouldReturnUsername() {
+        String token = sessionTokenService.issue(USERNAME);
+
+        assertEquals(Optional.of(USERNAME), sessionTokenService.validate(token),
+                "A freshly issued token should identify its user");
+    }
+
+    @Test
+    void validate_tamperedToken_shouldReturnEmpty() {
+        String token = sessionTokenService.issue(USERNAME);
+        int signatureStart = token.indexOf('.') + 1;
+        char first = token.charAt(signatureStart);
+        String tampered = token.substring(0, signatureStart) + (first == 'A' ? 'B' : 'A')
+                + token.substring(signatureStart + 1);
+
+        assertTrue(sessionTokenService.validate(tampered).isEmpty(), "A token with a wrong signature should be refused");
+        assertTrue(sessionTokenService.validate("garbage").isEmpty(), "A malformed token should be refused");
+    }
+
+    @Test
+    void validate_tokenOfAnotherService_shouldReturnEmpty() {
+        String token = new SessionTokenService(TTL_MILLIS).issue(USERNAME);
+
+        assertTrue(sessionTokenService.validate(token).isEmpty(),
+                "A token signed with another key should be refused");
+    }
+
+    @Test
+    void validate_revokedToken_shouldReturnEmpty() {
+        String token = sessionTokenService.issue(USERNAME);
+        String otherToken = sessionTokenService.issue(USERNAME);
+
+        sessionTokenService.revoke(token);
+
+        assertTrue(sessionTokenService.validate(token).isEmpty(), "A revoked token should be refused");
+        assertEquals(Optional.of(USERNAME), sessionTokenService.validate(otherToken),
+                "Revoking one token should not affect the other tokens of the user");
+    }
+
+    @Test
+    void consume_sameTokenTwice_shouldReturnUsernameOnce() {
+        String token = sessionTokenService.issue(USERNAME);
+
+        assertEquals(Optional.of(USERNAME), sessionTokenService.consume(token),
+                "The first use of a token should identify its user");
+        assertTrue(sessionTokenService.consume(token).isEmpty(), "A used token should be refused");
+        assertTrue(sessionTokenService.validate(token).isEmpty(), "A used token should no longer be valid");
+    }
+
+    @Test
+    void consume_concurrently_shouldSucceedOnce() throws InterruptedException {
+        String token = sessionTokenService.issue(USERNAME);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger successes = new AtomicInteger();
+        List<Thread> consumers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread consumer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                sessionTokenService.consume(token).ifPresent(username -> successes.incrementAndGet());
+            });
+            consumer.start();
+            consumers.add(consumer);
+        }
+
+        start.countDown();
+        for (Thread consumer : consumers) {
+            consumer.join();
+        }
+
+        assertEquals(1, successes.get(), "Only one of the concurrent uses of a token should succeed");
+    }
+
+    @Test
+    void validate_afterRevokeAll_shouldReturnEmpty() {
+        String token = sessionTokenService.issue(USERNAME);
+
+        sessionTokenService.revokeAll(USERNAME);
+
+        assertTrue(sessionTokenService.validate(token).isEmpty(), "All tokens of the user should be revoked");
+    }
+
+    @Test
+    void validate_expiredToken_shouldReturnEmpty() throws InterruptedException {
+        SessionTokenService shortLivedTokens = new SessionTokenService(1);
+        String token = shortLivedTokens.issue(USERNAME);
+
+        Thread.sleep(5);
+
+        assertTrue(shortLivedTokens.validate(token).isEmpty(), "An expired token should be refused");
+    }
+}
@@ -1,37 +1,60 @@
 package crypto.wallet.manager.commands;
 
 import crypto.wallet.manager.account.Account;
+import crypto.wallet.manager.account.AccountOperation;
+import crypto.wallet.manager.account.CostBasisMethod;
+import crypto.wallet.manager.account.SellResult;
+import crypto.wallet.manager.crypto.CryptoCoin;
+import crypto.wallet.manager.database.CoinSortOrder;
 import crypto.wallet.manager.database.CryptoCoinsDatabase;
+import crypto.wallet.manager.database.PriceSnapshot;
 import crypto.wallet.manager.database.UserAccountsDatabase;
 import crypto.wallet.manager.exceptions.AccountAlreadyExistsException;
 import crypto.wallet.manager.exceptions.AccountDoesNotExistException;
 import crypto.wallet.manager.exceptions.AccountIsAlreadyLoggedInException;
 import crypto.wallet.manager.exceptions.InsufficientBalanceException;
 import crypto.wallet.manager.exceptions.InvalidCryptoCoinException;
+import crypto.wallet.manager.money.FixedPoint;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.spi.AbstractSelectionKey;
+import java.util.List;
 import java.util.Optional;
 
 import static crypto.wallet.manager.commands.CommandErrorMessageType.ALREADY_LOGGED_IN;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.CRYPTO_COIN_DOES_NOT_EXIST;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.DISCONNECTED;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.INSUFFICIENT_AMOUNT;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.INVALID_FORMAT_AMOUNT;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.INVALID_INPUT_ARGUMENTS;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.INVALID_LOGIN;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.INVALID_SESSION_TOKEN;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.LOGIN_SUCCESSFUL;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.NO_SEARCH_RESULTS;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.NO_SUCH_PAGE;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.ORDER_NOT_FOUND;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.ORDER_PLACED;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.REGISTER_SUCCESSFUL;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.SESSION_RESUMED;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.SUBSCRIBED;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.SUCCESSFUL_OPERATION;
+import static crypto.wallet.manager.commands.CommandErrorMessageType.TRANSACTION_ABORTED;
 import static crypto.wallet.manager.commands.CommandErrorMessageType.UNKNOWN_COMMAND_MESSAGE;
 import static crypto.wallet.manager.commands.CommandType.SHUTDOWN;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -39,7 +62,8 @@ import static org.mockito.Mockito.when;
 public class CommandExecutorTest {
     private static final UserAccountsDatabase userAccountsDatabase = mock(UserAccountsDatabase.class);
     private static final CryptoCoinsDatabase cryptoCoinsDatabase = mock(CryptoCoinsDatabase.class);
-    private static final SelectionKey key = mock(SelectionKey.class);
+    // a real key, since attach and attachment are final and a mock would not keep the attached account
+    private static final SelectionKey key = new AttachableKey();
     private static CommandExecutor commandExecutor;
     private final Account mockedAccount = mock(Account.class);
     private Account account;
@@ -59,7 +83,7 @@ public class CommandExecutorTest {
         }
 
         // Optionally, reset mocks if required
-        Mockito.reset(userAccountsDatabase, cryptoCoinsDatabase, mockedAccount, key);
+        Mockito.reset(userAccountsDatabase, cryptoCoinsDatabase, mockedAccount);
     }
 
     @Test
@@ -84,12 +108,13 @@ public class CommandExecutorTest {
 
     @Test
     public void testExecuteLoginAccountAlreadyLoggedIn() throws AccountDoesNotExistException, AccountIsAlreadyLoggedInException {
+        key.attach(null);
         Account loggedInAccount = new Account("user", "1");
 
         when(userAccountsDatabase.login(anyString(), anyString())).thenReturn(loggedInAccount);
 
         String firstResult = commandExecutor.execute(Command.newCommand("login user 1"), key);
-        assertEquals(LOGIN_SUCCESSFUL.getMessage(), firstResult,
+        assertTrue(firstResult.startsWith(LOGIN_SUCCESSFUL.getMessage()),
                 "Expected LOGIN_SUCCESSFUL message on successful login.");
 
         key.attach(loggedInAccount);
@@ -103,15 +128,49 @@ public class CommandExecutorTest {
 
     @Test
     void testLogin() throws AccountDoesNotExistException, AccountIsAlreadyLoggedInException, AccountAlreadyExistsException {
+        key.attach(null);
         Account loggedInAccount = new Account("user", "1");
         when(userAccountsDatabase.login(anyString(), anyString())).thenReturn(loggedInAccount);
 
         String result = commandExecutor.execute(Command.newCommand("login user 1"), key);
 
-        assertEquals(LOGIN_SUCCESSFUL.getMessage(), result,
+        assertTrue(result.startsWith(LOGIN_SUCCESSFUL.getMessage()),
                 "Expected LOGIN_SUCCESSFUL message when login is successful.");
     }
 
+    @Test
+    void testResumeWithTokenFromLogin() throws AccountDoesNotExistException, AccountIsAlreadyLoggedInException {
+        key.attach(null);
+
+        Account loggedInAccount = new Account("user", "1");
+        when(userAccountsDatabase.login(anyString(), anyString())).thenReturn(loggedInAccount);
+        when(userAccountsDatabase.resumeSession("user")).thenReturn(loggedInAccount);
+
+        String token = sessionToken(commandExecutor.execute(Command.newCommand("login user 1"), key));
+        // every resume comes from a new connection, whose key has no account yet
+        key.attach(null);
+        String result = commandExecutor.execute(Command.newCommand("resume " + token), key);
+
+        assertTrue(result.startsWith(SESSION_RESUMED.getMessage()),
+                "Expected SESSION_RESUMED message when resuming with the token from login.");
+        key.attach(null);
+        assertEquals(INVALID_SESSION_TOKEN.getMessage(),
+                commandExecutor.execute(Command.newCommand("resume " + token), key),
+                "Expected INVALID_SESSION_TOKEN message when a token is used a second time.");
+        assertTrue(commandExecutor.execute(Command.newCommand("resume " + sessionToken(result)), key)
+                        .startsWith(SESSION_RESUMED.getMessage()),
+                "Expected the token returned by resume to be usable.");
+    }
+
+    @Test
+    void testResumeInvalidToken() {
+        key.attach(null);
+
+        assertEquals(INVALID_SESSION_TOKEN.getMessage(),
+                commandExecutor.execute(Command.newCommand("resume not-a-token"), key),
+                "Expected INVALID_SESSION_TOKEN message for a token that was never issued.");
+    }
+
     @Test
     void testUnknownCommand() {
         Command unknownCommand = new Command(CommandType.UNKNOWN, null);
@@ -136,7 +195,7 @@ public class CommandExecutorTest {
         Account loggedInAccount = new Account("user", "1");
         when(userAccountsDatabase.getLoggedAccount(loggedInAccount)).thenReturn(mockedAccount);
 
-        doNothing().when(mockedAccount).buyCryptoCoin(anyDouble(), anyString(), eq(cryptoCoinsDatabase));
+        doNothing().when(mockedAccount).buyCryptoCoin(anyLong(), anyString(), eq(cryptoCoinsDatabase));
 
         key.attach(loggedInAccount);
 
@@ -145,7 +204,7 @@ public class CommandExecutorTest {
         assertEquals("Transaction completed", result,
                 "Expected 'Transaction completed' when buying crypto successfully.");
 
-        verify(mockedAccount).buyCryptoCoin(50.0, "BTC", cryptoCoinsDatabase);
+        verify(mockedAccount).buyCryptoCoin(FixedPoint.fromDouble(50.0), "BTC", cryptoCoinsDatabase);
     }
 
     @Test
@@ -153,7 +212,7 @@ public class CommandExecutorTest {
         Command sellCryptoCommand = new Command(CommandType.SELL_CRYPTO, new String[]{"BTC"});
         Account mockAccount = new Account("username", "password");
 
-        when(key.attachment()).thenReturn(mockAccount);
+        key.attach(mockAccount);
         when(userAccountsDatabase.getLoggedAccount(mockAccount)).thenReturn(mockAccount); // Fix here
         when(cryptoCoinsDatabase.findCryptoCoinByOfferingCode("BTC")).thenReturn(Optional.empty());
 
@@ -174,12 +233,13 @@ public class CommandExecutorTest {
 
     @Test
     void testSellCryptoTooManyArguments() throws AccountDoesNotExistException, AccountIsAlreadyLoggedInException {
+        key.attach(null);
         Account loggedInAccount = new Account("user", "1");
 
         when(userAccountsDatabase.login(anyString(), anyString())).thenReturn(loggedInAccount);
 
         String firstResult = commandExecutor.execute(Command.newCommand("login user 1"), key);
-        assertEquals(LOGIN_SUCCESSFUL.getMessage(), firstResult,
+        assertTrue(firstResult.startsWith(LOGIN_SUCCESSFUL.getMessage()),
                 "Expected LOGIN_SUCCESSFUL message on successful login.");
 
         key.attach(loggedInAccount);
@@ -200,12 +260,238 @@ public class CommandExecutorTest {
                 "Expected 'Transaction completed' when selling crypto is successful.");
     }
 
+    @Test
+    public void testSellCryptoLowercaseCode() throws InvalidCryptoCoinException {
+        when(userAccountsDatabase.getLoggedAccount(account)).thenReturn(mockedAccount);
+
+        commandExecutor.execute(Command.newCommand("sell_crypto btc"), key);
+
+        verify(mockedAccount).sellCryptoCoin("BTC", cryptoCoinsDatabase);
+    }
+
+    @Test
+    public void testSellCryptoPartially() throws InvalidCryptoCoinException, InsufficientBalanceException {
+        when(userAccountsDatabase.getLoggedAccount(account)).thenReturn(mockedAccount);
+        when(mockedAccount.sellCryptoCoin("BTC", FixedPoint.fromDouble(0.5), CostBasisMethod.LIFO, cryptoCoinsDatabase))
+                .thenReturn(new SellResult("BTC", FixedPoint.fromDouble(0.5),
+                        FixedPoint.fromDouble(300.0), FixedPoint.fromDouble(250.0)));
+
+        assertEquals("Transaction completed, realized P&L: " + String.format("%+.2f", 50.0),
+                commandExecutor.execute(Command.newCommand("sell_crypto btc 0.5 --method=lifo"), key),
+                "Expected the realized profit of a partial sell.");
+    }
+
+    @Test
+    public void testSellCryptoUnknownMethod() {
+        when(userAccountsDatabase.getLoggedAccount(account)).thenReturn(mockedAccount);
+
+        assertEquals(INVALID_INPUT_ARGUMENTS.getMessage(),
+                commandExecutor.execute(Command.newCommand("sell_crypto BTC 0.5 --method=hifo"), key),
+                "Expected INVALID_INPUT_ARGUMENTS message for an unknown cost basis method.");
+    }
+
+    @Test
+    public void testSellCryptoTypedArguments() throws InvalidCryptoCoinException, InsufficientBalanceException {
+        when(userAccountsDatabase.getLoggedAccount(account)).thenReturn(mockedAccount);
+        when(mockedAccount.sellCryptoCoin("BTC", 50_000_000L, CostBasisMethod.AVG, cryptoCoinsDatabase))
+                .thenReturn(new SellResult("BTC", 50_000_000L,
+                        FixedPoint.fromDouble(300.0), FixedPoint.fromDouble(250.0)));
+        Command sell = new Command(CommandType.SELL_CRYPTO, null,
+                new TypedArguments.Sell("BTC", 50_000_000L, CostBasisMethod.AVG));
+
+        assertEquals("Transaction completed, realized P&L: " + String.format("%+.2f", 50.0),
+                commandExecutor.execute(sell, key),
+                "Expected a sell with typed arguments to be executed without text arguments.");
+    }
+
+    @Test
+    public void testDepositTypedArguments() {
+        when(userAccountsDatabase.getLoggedAccount(account)).thenReturn(mockedAccount);
+
+        assertEquals(SUCCESSFUL_OPERATION.getMessage(),
+                commandExecutor.execute(new Command(CommandType.DEPOSIT, null, new TypedArguments.Amount(123L)), key),
+                "Expected a deposit with typed arguments to be executed without text arguments.");
+        verify(mockedAccount).deposit(123L);
+    }
+
+    @Test
+    public void testMultiSuccessful() throws InvalidCryptoCoinException, InsufficientBalanceException {
+        when(userAccountsDatabase.getLoggedAccount(account)).thenReturn(mockedAccount);
+        when(cryptoCoinsDatabase.getPriceSnapshot()).thenReturn(PriceSnapshot.empty());
+
+        assertEquals("Transaction completed", commandExecutor.execute(Command.newCommand(
+                        "multi deposit 100; buy_crypto btc 0.5 ; sell_crypto eth 1 --method=avg ; exec"), key),
+                "Expected 'Transaction completed' when every operation of a transaction is applied.");
+
+        verify(mockedAccount).executeAtomically(eq(List.of(
+                new AccountOperation.Deposit(FixedPoint.fromDouble(100.0)),
+                new AccountOperation.Buy("BTC", FixedPoint.fromDouble(0.5)),
+                new AccountOperation.Sell("ETH", FixedPoint.fromDouble(1.0), CostBasisMethod.AVG))), any());
+    }
+
+    @Test
+    public void testMultiAborted() throws InvalidCryptoCoinException, InsufficientBalanceException {
+        when(userAccountsDatabase.getLoggedAccount(account)).thenReturn(mockedAccount);
+        when(cryptoCoinsDatabase.getPriceSnapshot()).thenReturn(PriceSnapshot.empty());
+        doThrow(InsufficientBalanceException.class).when(mockedAccount).executeAtomically(any(), any());
+
+        assertEquals(TRANSACTION_ABORTED.getMessage() + " " + INSUFFICIENT_AMOUNT.getMessage(),
+                commandExecutor.execute(Command.newCommand("multi buy_crypto BTC 5 exec"), key),
+                "Expected TRANSACTION_ABORTED with the reason when an operation fails.");
+    }
+
+    @Test
+    public void testMultiUnsupportedOperation() {
+        when(userAccountsDatabase.getLoggedAccount(account)).thenReturn(mockedAccount);
+
+        assertEquals(INVALID_INPUT_ARGUMENTS.getMessage(),
+                commandExecutor.execute(Command.newCommand("multi deposit 10 ; login user 1 exec"), key),
+                "Expected INVALID_INPUT_ARGUMENTS message when a transaction contains an unsupported command.");
+    }
+
+    @Test
+    public void testMultiWithoutExec() {
+        assertEquals(INVALID_INPUT_ARGUMENTS.getMessage(),
+                commandExecutor.execute(Command.newCommand("multi deposit 10"), key),
+                "Expected INVALID_INPUT_ARGUMENTS message when a transaction is not closed with exec.");
+    }
+
+    @Test
+    public void testLimitBuyPlaced() {
+        when(userAccountsDatabase.getLoggedAccount(account)).thenReturn(account);
+        when(cryptoCoinsDatabase.findCryptoCoinByOfferingCode("BTC"))
+                .thenReturn(Optional.of(new CryptoCoin("BTC", "Bitcoin", 100.0, 1)));
+
+        String result = commandExecutor.execute(Command.newCommand("limit_buy btc 1 50"), key);
+
+        assertTrue(result.startsWith(ORDER_PLACED.getMessage() + ", order id: "),
+                "Expected ORDER_PLACED with the id of the order.");
+    }
+
+    @Test
+    public void testLimitBuyInvalidPrice() {
+        when(userAccountsDatabase.getLoggedAccount(account)).thenReturn(account);
+
+        assertEquals(INVALID_FORMAT_AMOUNT.getMessage(),
+                commandExecutor.execute(Command.newCommand("limit_buy BTC 1 cheap"), key),
+                "Expected INVALID_FORMAT_AMOUNT message when the trigger price is not a number.");
+    }
+
+    @Test
+    public void testListCryptosNoSuchPage() {
+        when(cryptoCoinsDatabase.listOfferings(7, 20, CoinSortOrder.PRICE)).thenReturn(Optional.empty());
+
+        assertEquals(NO_SUCH_PAGE.getMessage(),
+                commandExecutor.execute(Command.newCommand("list_cryptos --page=7 --size=20 --sort=price"), key),
+                "Expected NO_SUCH_PAGE message when the page is after the last one.");
+    }
+
+    @Test
+    public void testListCryptosUnknownOption() {
+        assertEquals(INVALID_INPUT_ARGUMENTS.getMessage(),
+                commandExecutor.execute(Command.newCommand("list_cryptos --sort=volume"), key),
+                "Expected INVALID_INPUT_ARGUMENTS message when the sort order is unknown.");
+    }
+
+    @Test
+    public void testSearchNoMatches() {
+        when(cryptoCoinsDatabase.search("xyz", 50)).thenReturn(List.of());
+
+        assertEquals(NO_SEARCH_RESULTS.getMessage(),
+                commandExecutor.execute(Command.newCommand("search xyz"), key),
+                "Expected NO_SEARCH_RESULTS message when no coin matches the prefix.");
+    }
+
+    @Test
+    public void testSearchMultiWordPrefix() {
+        CryptoCoin bitcoinCash = new CryptoCoin("BCH", "Bitcoin Cash", 250.0, 1);
+        when(cryptoCoinsDatabase.search("bitcoin c", 50)).thenReturn(List.of(bitcoinCash));
+
+        assertEquals(CryptoCoinsDatabase.formatCoins("Matching cryptos:", List.of(bitcoinCash)),
+                commandExecutor.execute(Command.newCommand("search bitcoin c"), key),
+                "Expected the matching coins when searching for a name of several words.");
+    }
+
+    @Test
+    public void testTopUnknownOrder() {
+        assertEquals(INVALID_INPUT_ARGUMENTS.getMessage(),
+                commandExecutor.execute(Command.newCommand("top 5 --by=volume"), key),
+                "Expected INVALID_INPUT_ARGUMENTS message when the sort order is unknown.");
+    }
+
+    @Test
+    public void testTopByPrice() {
+        CryptoCoin bitcoin = new CryptoCoin("BTC", "Bitcoin", 49000.0, 1);
+        when(cryptoCoinsDatabase.top(3, CoinSortOrder.PRICE)).thenReturn(List.of(bitcoin));
+
+        assertEquals(CryptoCoinsDatabase.formatCoins("Top cryptos by price:", List.of(bitcoin)),
+                commandExecutor.execute(Command.newCommand("top 3 --by=price"), key),
+                "Expected the top coins by price.");
+    }
+
+    @Test
+    public void testTopTypedArgumentsNotPositive() {
+        assertEquals(INVALID_INPUT_ARGUMENTS.getMessage(),
+                commandExecutor.execute(new Command(CommandType.TOP, null,
+                        new TypedArguments.Top(0, CoinSortOrder.PRICE)), key),
+                "Expected INVALID_INPUT_ARGUMENTS message when the typed count is not positive.");
+    }
+
+    @Test
+    public void testHistoryUnknownCoin() {
+        assertEquals(CRYPTO_COIN_DOES_NOT_EXIST.getMessage(),
+                commandExecutor.execute(Command.newCommand("history nosuchcoin"), key),
+                "Expected CRYPTO_COIN_DOES_NOT_EXIST message when the coin has no history.");
+    }
+
+    @Test
+    public void testHistoryInvalidPoints() {
+        assertEquals(INVALID_INPUT_ARGUMENTS.getMessage(),
+                commandExecutor.execute(Command.newCommand("history btc --points=0"), key),
+                "Expected INVALID_INPUT_ARGUMENTS message when the number of points is not positive.");
+    }
+
+    @Test
+    public void testExchangeBuyPlaced() {
+        when(userAccountsDatabase.getLoggedAccount(account)).thenReturn(account);
+        when(cryptoCoinsDatabase.findCryptoCoinByOfferingCode("BTC"))
+                .thenReturn(Optional.of(new CryptoCoin("BTC", "Bitcoin", 100.0, 1)));
+        account.deposit(FixedPoint.fromDouble(100.0));
+
+        String result = commandExecutor.execute(Command.newCommand("exchange_buy btc 1 50"), key);
+
+        assertTrue(result.startsWith(ORDER_PLACED.getMessage() + ", order id: "),
+                "Expected ORDER_PLACED with the id of the order.");
+        assertTrue(result.endsWith(", filled: 0.00000000"),
+                "Expected nothing filled when no one sells.");
+    }
+
+    @Test
+    public void testExchangeBuyInsufficientBalance() {
+        when(userAccountsDatabase.getLoggedAccount(account)).thenReturn(account);
+        when(cryptoCoinsDatabase.findCryptoCoinByOfferingCode("BTC"))
+                .thenReturn(Optional.of(new CryptoCoin("BTC", "Bitcoin", 100.0, 1)));
+
+        assertEquals(INSUFFICIENT_AMOUNT.getMessage(),
+                commandExecutor.execute(Command.newCommand("exchange_buy BTC 1 50"), key),
+                "Expected INSUFFICIENT_AMOUNT message when the order cannot be paid for.");
+    }
+
+    @Test
+    public void testExchangeCancelUnknownOrder() {
+        when(userAccountsDatabase.getLoggedAccount(account)).thenReturn(account);
+
+        assertEquals(ORDER_NOT_FOUND.getMessage(),
+                commandExecutor.execute(Command.newCommand("exchange_cancel BTC 999999"), key),
+                "Expected ORDER_NOT_FOUND message when no such order is resting.");
+    }
+
     @Test
     void testDisconnect() {
         Command disconnectCommand = new Command(CommandType.DISCONNECT, null);
         Account mockAccount = new Account("username", "password");
 
-        when(key.attachment()).thenReturn(mockAccount);
+        key.attach(mockAccount);
 
         String result = commandExecutor.execute(disconnectCommand, key);
 
@@ -244,7 +530,7 @@ public class CommandExecutorTest {
     void testRegisterCommand() throws AccountAlreadyExistsException {
         Command registerCommand = new Command(CommandType.REGISTER, new String[]{"username", "password"});
 
-        when(key.attachment()).thenReturn(null);
+        key.attach(null);
         doNothing().when(userAccountsDatabase).createAccount(any());
 
         String result = commandExecutor.execute(registerCommand, key);
@@ -282,4 +568,77 @@ public class CommandExecutorTest {
                 commandExecutor.execute(Command.newCommand("wallet_investment_information"), key)
                 , "Expected 'Test message' for wallet investment information command.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSubscribeSuccessful() {
+        when(cryptoCoinsDatabase.findCryptoCoinByOfferingCode("BTC"))
+                .thenReturn(Optional.of(new CryptoCoin("BTC", "Bitcoin", 49000.0, 1)));
+
+        assertEquals(SUBSCRIBED.getMessage(),
+                commandExecutor.execute(Command.newCommand("subscribe BTC"), key),
+                "Expected SUBSCRIBED message when subscribing to an existing crypto coin.");
+        assertTrue(commandExecutor.getPriceSubscriptions().getSubscriptions(key).contains("BTC"),
+                "Expected the connection to be subscribed to the crypto coin.");
+
+        commandExecutor.getPriceSubscriptions().unsubscribeAll(key);
+    }
+
+    @Test
+    void testSubscribeLowercaseCode() {
+        when(cryptoCoinsDatabase.findCryptoCoinByOfferingCode("BTC"))
+                .thenReturn(Optional.of(new CryptoCoin("BTC", "Bitcoin", 49000.0, 1)));
+
+        assertEquals(SUBSCRIBED.getMessage(),
+                commandExecutor.execute(Command.newCommand("subscribe btc"), key),
+                "Expected SUBSCRIBED message when subscribing with a lowercase code.");
+        assertTrue(commandExecutor.getPriceSubscriptions().getSubscriptions(key).contains("BTC"),
+                "Expected the subscription to use the uppercase code of the crypto coin.");
+
+        commandExecutor.getPriceSubscriptions().unsubscribeAll(key);
+    }
+
+    @Test
+    void testSubscribeCryptoCoinDoesNotExist() {
+        when(cryptoCoinsDatabase.findCryptoCoinByOfferingCode("XYZ")).thenReturn(Optional.empty());
+
+        assertEquals(CRYPTO_COIN_DOES_NOT_EXIST.getMessage(),
+                commandExecutor.execute(Command.newCommand("subscribe XYZ"), key),
+                "Expected CRYPTO_COIN_DOES_NOT_EXIST message when subscribing to an unknown crypto coin.");
+        assertTrue(commandExecutor.getPriceSubscriptions().getSubscriptions(key).isEmpty(),
+                "Expected no subscription for an unknown crypto coin.");
+    }
+
+    private String sessionToken(String response) {
+        return response.substring(response.lastIndexOf(' ') + 1);
+    }
+
+    private static class AttachableKey extends AbstractSelectionKey {
+        private int interestOps;
+
+        @Override
+        public SelectableChannel channel() {
+            return null;
+        }
+
+        @Override
+        public Selector selector() {
+            return null;
+        }
+
+        @Override
+        public int interestOps() {
+            return interestOps;
+        }
+
+        @Override
+        public SelectionKey interestOps(int ops) {
+            interestOps = ops;
+            return this;
+        }
+
+        @Override
+        public int readyOps() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package crypto.wallet.manager.commands;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CommandParserTest {
+    private final CommandParser parser = new CommandParser();
+
+    @Test
+    void parse_directBuffer_shouldTokenizeInPlace() {
+        byte[] bytes = "xxBUY_crypto btc 0.5xx".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes);
+
+        Command command = parser.parse(buffer, 2, bytes.length - 2);
+
+        assertEquals(CommandType.BUY_CRYPTO, command.type(), "Command type should be resolved ignoring case");
+        assertArrayEquals(new String[] {"btc", "0.5"}, command.arguments(),
+                "Only the bytes between start and end should be parsed");
+        assertEquals(bytes.length, buffer.position(), "The buffer position should not change");
+    }
+
+    @Test
+    void parse_repeatedSpaces_shouldSkipEmptyTokens() {
+        Command command = parse("  login   user  pass ");
+
+        assertEquals(CommandType.LOGIN, command.type(), "Command type should be LOGIN");
+        assertArrayEquals(new String[] {"user", "pass"}, command.arguments(),
+                "Empty tokens should not become arguments");
+    }
+
+    @Test
+    void parse_noArguments_shouldHaveNullArguments() {
+        Command command = parse("wallet_investment_information");
+
+        assertEquals(CommandType.WALLET_INVESTMENT_INFORMATION, command.type(),
+                "Command type should be WALLET_INVESTMENT_INFORMATION");
+        assertNull(command.arguments(), "A command without arguments should have null arguments");
+    }
+
+    @Test
+    void parse_unknownNameWithSameLengthAsCommand_shouldBeUnknown() {
+        assertEquals(CommandType.UNKNOWN, parse("logon user pass").type(), "Command type should be UNKNOWN");
+        assertEquals(CommandType.UNKNOWN, parse("").type(), "An empty command should be UNKNOWN");
+    }
+
+    @Test
+    void parse_nonAsciiArgument_shouldDecodeUtf8() {
+        assertArrayEquals(new String[] {"потребител", "парола"}, parse("register потребител парола").arguments(),
+                "Arguments should be decoded as UTF-8");
+    }
+
+    private Command parse(String input) {
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+        return parser.parse(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+}
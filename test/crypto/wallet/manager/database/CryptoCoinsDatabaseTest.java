@@ -5,7 +5,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -46,6 +50,60 @@ class CryptoCoinsDatabaseTest {
         assertEquals("BTC", foundCoin.get().offeringCode(), "Found CryptoCoin should have offering code 'BTC'");
     }
 
+    @Test
+    void updateCryptoCoinSet_validSet_shouldPublishANewerSnapshot() {
+        PriceSnapshot before = cryptoCoinsDatabase.getPriceSnapshot();
+        cryptoCoinsDatabase.updateCryptoCoinSet(createValidCryptoCoinSet());
+        PriceSnapshot after = cryptoCoinsDatabase.getPriceSnapshot();
+
+        assertTrue(after.version() > before.version(), "Every refresh should publish a snapshot with a higher version");
+        assertEquals(0, before.size(), "The previous snapshot should keep the coins it was built with");
+        assertEquals(2, after.size(), "The new snapshot should hold the refreshed coins");
+    }
+
+    @Test
+    void updateCryptoCoinSet_largeUniverse_shouldKeepEveryPricedCrypto() {
+        Set<CryptoCoin> universe = new HashSet<>();
+        for (int i = 0; i < 5000; i++) {
+            universe.add(new CryptoCoin("C" + i, "Coin " + i, i + 1.0, 1));
+        }
+        universe.add(new CryptoCoin("USD", "US Dollar", 1.0, 0));
+        universe.add(new CryptoCoin("NOPRICE", "No Price", 0.0, 1));
+
+        cryptoCoinsDatabase.updateCryptoCoinSet(universe);
+
+        assertEquals(5000, cryptoCoinsDatabase.getPriceSnapshot().size(),
+                "Every crypto with a price should be kept, and nothing else");
+    }
+
+    @Test
+    void top_byPrice_shouldReturnTheMostExpensiveFirst() {
+        cryptoCoinsDatabase.updateCryptoCoinSet(createValidCryptoCoinSet());
+
+        List<CryptoCoin> top = cryptoCoinsDatabase.top(1, CoinSortOrder.PRICE);
+
+        assertEquals(1, top.size(), "Top should return the requested number of coins");
+        assertEquals("BTC", top.get(0).offeringCode(), "The most expensive coin should come first");
+    }
+
+    @Test
+    void search_namePrefix_shouldFindTheCoin() {
+        cryptoCoinsDatabase.updateCryptoCoinSet(createValidCryptoCoinSet());
+
+        assertEquals(List.of("ETH"), cryptoCoinsDatabase.search("ether", 10).stream()
+                .map(CryptoCoin::offeringCode).toList(), "A prefix of a name should find its coin");
+    }
+
+    @Test
+    void getPriceSnapshot_afterRefresh_shouldKeepThePricesItWasTakenWith() {
+        cryptoCoinsDatabase.updateCryptoCoinSet(Set.of(new CryptoCoin("BTC", "Bitcoin", 40000.0, 1)));
+        PriceSnapshot snapshot = cryptoCoinsDatabase.getPriceSnapshot();
+
+        cryptoCoinsDatabase.updateCryptoCoinSet(Set.of(new CryptoCoin("BTC", "Bitcoin", 50000.0, 1)));
+
+        assertEquals(40000.0, snapshot.find("BTC").orElseThrow().priceUSD(), "A snapshot should not change with later refreshes");
+    }
+
     @Test
     void findCryptoCoinByOfferingCode_nonExistingCode_shouldReturnEmptyOptional() {
         Set<CryptoCoin> newSet = createValidCryptoCoinSet();
@@ -63,7 +121,7 @@ class CryptoCoinsDatabaseTest {
 
         String offerings = cryptoCoinsDatabase.listOfferings();
 
-        String expectedOutput = "Available cryptos:" +
+        String expectedOutput = "Available cryptos (page 1 of 1):" +
                 System.lineSeparator() +
                 "Bitcoin (BTC) - 49000,00 US dollars" +
                 System.lineSeparator() +
@@ -74,10 +132,101 @@ class CryptoCoinsDatabaseTest {
     @Test
     void listOfferings_emptyCryptoCoins_shouldReturnEmptyString() {
         String offerings = cryptoCoinsDatabase.listOfferings();
-        assertEquals("Available cryptos:" + System.lineSeparator(), offerings,
+        assertEquals("Available cryptos (page 1 of 1):", offerings,
                 "Listed offerings for an empty CryptoCoinsDatabase should be an empty string");
     }
 
+    @Test
+    void listOfferings_secondPageByPrice_shouldReturnOnlyItsCoins() {
+        cryptoCoinsDatabase.updateCryptoCoinSet(createValidCryptoCoinSet());
+
+        String expectedOutput = "Available cryptos (page 2 of 2):" +
+                System.lineSeparator() +
+                "Ethereum (ETH) - 3000,00 US dollars";
+        assertEquals(Optional.of(expectedOutput), cryptoCoinsDatabase.listOfferings(2, 1, CoinSortOrder.PRICE),
+                "The second page of one coin by price should hold the second most expensive coin");
+    }
+
+    @Test
+    void listOfferings_pageAfterTheLast_shouldReturnEmptyOptional() {
+        cryptoCoinsDatabase.updateCryptoCoinSet(createValidCryptoCoinSet());
+
+        assertTrue(cryptoCoinsDatabase.listOfferings(2, CryptoCoinsDatabase.DEFAULT_PAGE_SIZE,
+                CoinSortOrder.CODE).isEmpty(), "There should be no page after the last one");
+    }
+
+    @Test
+    void listOfferings_sizeAboveMaximum_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> cryptoCoinsDatabase.listOfferings(1,
+                        CryptoCoinsDatabase.MAX_PAGE_SIZE + 1, CoinSortOrder.CODE),
+                "A page size above the maximum should throw IllegalArgumentException");
+    }
+
+    @Test
+    void getEncodedOfferings_prerenderedPage_shouldReturnItsBytes() {
+        cryptoCoinsDatabase.updateCryptoCoinSet(createValidCryptoCoinSet());
+        String page = cryptoCoinsDatabase.listOfferings(1, CryptoCoinsDatabase.DEFAULT_PAGE_SIZE,
+                CoinSortOrder.NAME).orElseThrow();
+
+        Optional<ByteBuffer> encoded = cryptoCoinsDatabase.getEncodedOfferings(page);
+
+        assertTrue(encoded.isPresent(), "A page of the default size should be served from its rendered bytes");
+        assertEquals(page, StandardCharsets.UTF_8.decode(encoded.get()).toString(),
+                "The encoded bytes should match the page text");
+    }
+
+    @Test
+    void getEncodedOfferings_currentOfferings_shouldReturnTheirBytes() {
+        cryptoCoinsDatabase.updateCryptoCoinSet(createValidCryptoCoinSet());
+        String offerings = cryptoCoinsDatabase.listOfferings();
+
+        Optional<ByteBuffer> encoded = cryptoCoinsDatabase.getEncodedOfferings(offerings);
+
+        assertTrue(encoded.isPresent(), "The rendered offerings should have encoded bytes");
+        assertEquals(offerings, StandardCharsets.UTF_8.decode(encoded.get()).toString(),
+                "The encoded bytes should match the offerings text");
+        assertSame(offerings, cryptoCoinsDatabase.listOfferings(),
+                "The offerings should only be rendered again when the prices change");
+    }
+
+    @Test
+    void getEncodedOfferings_staleOfferings_shouldReturnEmptyOptional() {
+        String staleOfferings = cryptoCoinsDatabase.listOfferings();
+        cryptoCoinsDatabase.updateCryptoCoinSet(createValidCryptoCoinSet());
+
+        assertTrue(cryptoCoinsDatabase.getEncodedOfferings(staleOfferings).isEmpty(),
+                "Offerings rendered before a refresh should not be served from the new bytes");
+        assertTrue(cryptoCoinsDatabase.getEncodedOfferings(new String(staleOfferings)).isEmpty(),
+                "Only the rendered offerings instance should be recognized");
+    }
+
+    @Test
+    void updateCryptoCoinSet_onePriceChanged_shouldNotifyListenerOfThatCoinOnly() {
+        cryptoCoinsDatabase.updateCryptoCoinSet(createValidCryptoCoinSet());
+        List<CryptoCoin> notified = new ArrayList<>();
+        cryptoCoinsDatabase.addPriceUpdateListener(notified::addAll);
+
+        Set<CryptoCoin> newSet = new HashSet<>();
+        newSet.add(new CryptoCoin("BTC", "Bitcoin", 50000.0, 1));
+        newSet.add(new CryptoCoin("ETH", "Ethereum", 3000.0, 1));
+        cryptoCoinsDatabase.updateCryptoCoinSet(newSet);
+
+        assertEquals(List.of(new CryptoCoin("BTC", "Bitcoin", 50000.0, 1)), notified,
+                "Only the coin whose price changed should be reported");
+        assertEquals(50000.0, notified.get(0).priceUSD(), "The new price should be reported");
+    }
+
+    @Test
+    void updateCryptoCoinSet_samePrices_shouldNotNotifyListener() {
+        cryptoCoinsDatabase.updateCryptoCoinSet(createValidCryptoCoinSet());
+        List<CryptoCoin> notified = new ArrayList<>();
+        cryptoCoinsDatabase.addPriceUpdateListener(notified::addAll);
+
+        cryptoCoinsDatabase.updateCryptoCoinSet(createValidCryptoCoinSet());
+
+        assertTrue(notified.isEmpty(), "A refresh without price changes should not notify listeners");
+    }
+
     private Set<CryptoCoin> createValidCryptoCoinSet() {
         Set<CryptoCoin> cryptoCoins = new HashSet<>();
         cryptoCoins.add(new CryptoCoin("BTC", "Bitcoin", 49000.0, 1));
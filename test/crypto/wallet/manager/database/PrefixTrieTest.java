@@ -0,0 +1,54 @@
+package crypto.wallet.manager.database;
+
+import crypto.wallet.manager.crypto.CryptoCoin;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrefixTrieTest {
+    private static final CryptoCoin BITCOIN = new CryptoCoin("BTC", "Bitcoin", 49000.0, 1);
+    private static final CryptoCoin BITCOIN_CASH = new CryptoCoin("BCH", "Bitcoin Cash", 250.0, 1);
+    private static final CryptoCoin ETHEREUM = new CryptoCoin("ETH", "Ethereum", 3000.0, 1);
+
+    private PrefixTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new PrefixTrie();
+        for (CryptoCoin coin : List.of(BITCOIN, BITCOIN_CASH, ETHEREUM)) {
+            trie.add(coin.offeringCode(), coin);
+            trie.add(coin.name(), coin);
+        }
+    }
+
+    @Test
+    void search_codePrefix_shouldIgnoreCase() {
+        assertEquals(List.of(ETHEREUM), trie.search("et", 10), "A code prefix in any case should find the coin");
+    }
+
+    @Test
+    void search_namePrefix_shouldReturnMatchesAlphabetically() {
+        assertEquals(List.of(BITCOIN, BITCOIN_CASH), trie.search("Bitcoin", 10),
+                "Every coin whose name starts with the prefix should be found, the shorter name first");
+    }
+
+    @Test
+    void search_coinMatchingByCodeAndName_shouldReturnItOnce() {
+        assertEquals(List.of(BITCOIN_CASH, BITCOIN), trie.search("b", 10),
+                "A coin matching by both code and name should be listed once");
+    }
+
+    @Test
+    void search_moreMatchesThanLimit_shouldReturnOnlyLimit() {
+        assertEquals(1, trie.search("b", 1).size(), "A search should return at most limit coins");
+    }
+
+    @Test
+    void search_unknownPrefix_shouldReturnEmptyList() {
+        assertTrue(trie.search("xyz", 10).isEmpty(), "A prefix of no code or name should find nothing");
+    }
+}
@@ -13,6 +13,8 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.ObjectOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -87,6 +89,45 @@ class UserAccountsDatabaseTest {
                 "Logging in with an already logged-in account should throw AccountIsAlreadyLoggedInException");
     }
 
+    @Test
+    void login_unknownUsername_shouldThrowException() {
+        assertThrows(AccountDoesNotExistException.class,
+                () -> userAccountsDatabase.login("unknownUser", TEST_PASSWORD),
+                "Logging in with an unknown username should throw AccountDoesNotExistException");
+    }
+
+    @Test
+    void login_sameAccountConcurrently_shouldLoginOnlyOnce() throws InterruptedException {
+        int threadsCount = 4;
+        AtomicInteger successfulLogins = new AtomicInteger();
+        AtomicInteger rejectedLogins = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[threadsCount];
+        for (int i = 0; i < threadsCount; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                    userAccountsDatabase.login(TEST_USERNAME, TEST_PASSWORD);
+                    successfulLogins.incrementAndGet();
+                } catch (AccountIsAlreadyLoggedInException e) {
+                    rejectedLogins.incrementAndGet();
+                } catch (InterruptedException | AccountDoesNotExistException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads[i].start();
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, successfulLogins.get(), "Only one of the concurrent logins should succeed");
+        assertEquals(threadsCount - 1, rejectedLogins.get(),
+                "The other concurrent logins should be rejected as already logged in");
+    }
+
     @Test
     void logout_validAccount_shouldLogoutAccount() throws AccountAlreadyExistsException,
             AccountDoesNotExistException, AccountIsAlreadyLoggedInException {
@@ -0,0 +1,91 @@
+package crypto.wallet.manager.exchange;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LimitOrderBookTest {
+    private List<Fill> settledFills;
+    private LimitOrderBook book;
+    private long nextOrderId;
+
+    @BeforeEach
+    void setUp() {
+        settledFills = new ArrayList<>();
+        book = new LimitOrderBook("BTC", (fill, buy, buyReserved, sell, sellReserved) -> settledFills.add(fill));
+        nextOrderId = 1;
+    }
+
+    @Test
+    void submit_noCrossingOrder_shouldRestWithoutFills() {
+        book.submit(order(Side.BUY, 100, 5));
+        List<Fill> fills = book.submit(order(Side.SELL, 110, 5));
+
+        assertTrue(fills.isEmpty(), "Orders whose prices do not cross should not trade");
+        assertEquals(100, book.getBestBid(), "The buy order should rest as the best bid");
+        assertEquals(110, book.getBestAsk(), "The sell order should rest as the best ask");
+    }
+
+    @Test
+    void submit_crossingOrder_shouldTradeAtTheRestingPrice() {
+        ExchangeOrder sell = order(Side.SELL, 100, 5);
+        book.submit(sell);
+
+        List<Fill> fills = book.submit(order(Side.BUY, 120, 5));
+
+        assertEquals(List.of(new Fill("BTC", 2, sell.getId(), 100, 5)), fills,
+                "The buy should fill at the price of the resting sell");
+        assertEquals(fills, settledFills, "Every fill should be settled");
+        assertEquals(0, book.countRestingOrders(), "Both fully filled orders should leave the book");
+    }
+
+    @Test
+    void submit_severalLevels_shouldTakeTheBestPriceFirstAndRestTheRemainder() {
+        book.submit(order(Side.SELL, 105, 3));
+        book.submit(order(Side.SELL, 101, 2));
+
+        ExchangeOrder buy = order(Side.BUY, 103, 4);
+        List<Fill> fills = book.submit(buy);
+
+        assertEquals(1, fills.size(), "Only the ask at or below the limit price should trade");
+        assertEquals(101, fills.get(0).price(), "The lowest ask should trade first");
+        assertEquals(2, buy.getRemainingAmount(), "The unfilled part of the buy should remain");
+        assertEquals(103, book.getBestBid(), "The remainder should rest at the buy's limit price");
+        assertEquals(105, book.getBestAsk(), "The ask above the limit price should keep resting");
+    }
+
+    @Test
+    void submit_equalPrices_shouldFillTheOldestOrderFirst() {
+        ExchangeOrder older = order(Side.BUY, 100, 2);
+        ExchangeOrder newer = order(Side.BUY, 100, 2);
+        book.submit(older);
+        book.submit(newer);
+
+        List<Fill> fills = book.submit(order(Side.SELL, 90, 3));
+
+        assertEquals(older.getId(), fills.get(0).buyOrderId(), "The older bid should fill first");
+        assertEquals(newer.getId(), fills.get(1).buyOrderId(), "The newer bid should fill next");
+        assertEquals(1, newer.getRemainingAmount(), "The newer bid should be filled only partially");
+    }
+
+    @Test
+    void cancel_restingOrder_shouldRemoveItFromTheBook() {
+        ExchangeOrder buy = order(Side.BUY, 100, 2);
+        book.submit(buy);
+
+        assertSame(buy, book.cancel(buy.getId()), "Cancelling a resting order should return it");
+        assertEquals(0, book.getBestBid(), "A cancelled order should leave the book");
+        assertNull(book.cancel(buy.getId()), "An order can be cancelled only once");
+    }
+
+    private ExchangeOrder order(Side side, long price, long amount) {
+        return new ExchangeOrder(nextOrderId++, null, side, "BTC", price, amount, 0);
+    }
+}
@@ -0,0 +1,135 @@
+package crypto.wallet.manager.exchange;
+
+import crypto.wallet.manager.account.Account;
+import crypto.wallet.manager.exceptions.InsufficientBalanceException;
+import crypto.wallet.manager.money.FixedPoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how many orders the {@link MatchingEngine} matches per second and how long an order takes from
+ * being submitted to being matched, with every coin's orders submitted by their own thread.
+ * Prices are drawn around one mid price, so about half of the orders trade and the rest rest in the books.
+ * Each thread keeps at most {@value #IN_FLIGHT} orders waiting, so the latency is that of matching rather
+ * than of an ever growing queue.
+ * <p>
+ * Not part of the test suite; run its main method with {@code [partitions] [coins] [orders per coin]}.
+ */
+public final class MatchingEngineBenchmark {
+    private static final int DEFAULT_COINS = 8;
+    private static final int DEFAULT_ORDERS_PER_COIN = 100_000;
+    private static final int TRADERS = 16;
+    private static final int IN_FLIGHT = 64;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final double MID_PRICE = 100.0;
+    private static final double INITIAL_BALANCE = 1_000_000_000.0;
+    private static final long INITIAL_COINS = FixedPoint.fromDouble(10_000_000);
+
+    private MatchingEngineBenchmark() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int partitions = args.length > 0 ? Integer.parseInt(args[0]) : MatchingEngine.DEFAULT_PARTITIONS;
+        int coins = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_COINS;
+        int ordersPerCoin = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ORDERS_PER_COIN;
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run(partitions, coins, ordersPerCoin);
+        }
+
+        Result result = run(partitions, coins, ordersPerCoin);
+        System.out.printf("partitions=%d coins=%d orders=%d fills=%d%n",
+                partitions, coins, result.latencies.length, result.fills);
+        System.out.printf("throughput: %.0f orders/s%n", result.latencies.length / (result.elapsedNanos / 1e9));
+        System.out.printf("latency: p50=%dus p99=%dus p99.9=%dus max=%dus%n",
+                percentileMicros(result.latencies, 0.50), percentileMicros(result.latencies, 0.99),
+                percentileMicros(result.latencies, 0.999), percentileMicros(result.latencies, 1.0));
+    }
+
+    private static Result run(int partitionCount, int coins, int ordersPerCoin) throws InterruptedException {
+        List<String> offeringCodes = new ArrayList<>();
+        for (int i = 0; i < coins; i++) {
+            offeringCodes.add("COIN" + i);
+        }
+
+        Account[] traders = newTraders(offeringCodes);
+        long[] latencies = new long[coins * ordersPerCoin];
+        LongAdder fills = new LongAdder();
+
+        try (MatchingEngine engine = new MatchingEngine(partitionCount)) {
+            List<Thread> submitters = new ArrayList<>();
+            long start = System.nanoTime();
+
+            for (int coin = 0; coin < coins; coin++) {
+                String offeringCode = offeringCodes.get(coin);
+                int offset = coin * ordersPerCoin;
+                submitters.add(Thread.ofPlatform().start(
+                        () -> submitOrders(engine, traders, offeringCode, ordersPerCoin, offset, latencies, fills)));
+            }
+
+            for (Thread submitter : submitters) {
+                submitter.join();
+            }
+
+            return new Result(latencies, fills.sum(), System.nanoTime() - start);
+        }
+    }
+
+    private static void submitOrders(MatchingEngine engine, Account[] traders, String offeringCode, int orders,
+                                     int offset, long[] latencies, LongAdder fills) {
+        Random random = new Random(offeringCode.hashCode());
+        Semaphore inFlight = new Semaphore(IN_FLIGHT);
+        List<CompletableFuture<Void>> pending = new ArrayList<>(orders);
+
+        for (int i = 0; i < orders; i++) {
+            Side side = random.nextBoolean() ? Side.BUY : Side.SELL;
+            long price = FixedPoint.fromDouble(MID_PRICE + random.nextInt(21) - 10);
+            long amount = FixedPoint.fromDouble(1 + random.nextInt(10));
+            int order = offset + i;
+
+            inFlight.acquireUninterruptibly();
+            try {
+                long submitted = System.nanoTime();
+                pending.add(engine.submit(traders[i % TRADERS], side, offeringCode, amount, price)
+                        .thenAccept(result -> {
+                            latencies[order] = System.nanoTime() - submitted;
+                            fills.add(result.fills().size());
+                            inFlight.release();
+                        }));
+            } catch (InsufficientBalanceException e) {
+                throw new IllegalStateException("The traders should never run out of money or coins", e);
+            }
+        }
+
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    private static Account[] newTraders(List<String> offeringCodes) {
+        Account[] traders = new Account[TRADERS];
+        for (int i = 0; i < TRADERS; i++) {
+            traders[i] = new Account("trader" + i, "benchmarkPassword");
+            traders[i].deposit(FixedPoint.fromDouble(INITIAL_BALANCE));
+            for (String offeringCode : offeringCodes) {
+                traders[i].settleBuy(offeringCode, INITIAL_COINS, FixedPoint.fromDouble(MID_PRICE), 0);
+            }
+        }
+
+        return traders;
+    }
+
+    private static long percentileMicros(long[] latencies, double percentile) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000;
+    }
+
+    private record Result(long[] latencies, long fills, long elapsedNanos) {
+    }
+}
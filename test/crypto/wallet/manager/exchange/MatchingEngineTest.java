@@ -0,0 +1,112 @@
+package crypto.wallet.manager.exchange;
+
+import crypto.wallet.manager.account.Account;
+import crypto.wallet.manager.exceptions.InsufficientBalanceException;
+import crypto.wallet.manager.money.FixedPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MatchingEngineTest {
+    private MatchingEngine engine;
+    private Account buyer;
+    private Account seller;
+
+    @BeforeEach
+    void setUp() throws InsufficientBalanceException {
+        engine = new MatchingEngine(2);
+
+        buyer = new Account("buyer", "buyerPassword");
+        buyer.deposit(FixedPoint.fromDouble(1000.0));
+
+        seller = new Account("seller", "sellerPassword");
+        seller.deposit(FixedPoint.fromDouble(500.0));
+        seller.settleBuy("BTC", FixedPoint.fromDouble(5), FixedPoint.fromDouble(80.0), 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.close();
+    }
+
+    @Test
+    void submit_crossingOrders_shouldSettleIntoBothAccounts()
+            throws InsufficientBalanceException, ExecutionException, InterruptedException {
+        engine.submit(seller, Side.SELL, "BTC", units(2), units(100.0)).get();
+        OrderResult result = engine.submit(buyer, Side.BUY, "BTC", units(2), units(120.0)).get();
+
+        assertEquals(units(2), result.filledAmount(), "The buy should fill against the resting sell");
+        assertEquals(800.0, buyer.getAmountAvailable(),
+                "The buyer should pay the resting price and get back the rest of the reserved money");
+        assertEquals(units(2), buyer.getCryptoCoins().get("BTC").getTotalAmount(), "The buyer should get the coins");
+        assertEquals(700.0, seller.getAmountAvailable(), "The seller should receive the proceeds");
+        assertEquals(40.0, seller.getRealizedProfitLoss(), "The seller should realize the profit over the cost basis");
+    }
+
+    @Test
+    void submit_partialFillWhoseShareRoundsBelowItsTotal_shouldNotOverdrawTheBuyer()
+            throws InsufficientBalanceException, ExecutionException, InterruptedException {
+        long price = 5_812_268_283L;
+        long reserved = FixedPoint.multiply(249_297_219L, price);
+        Account exactBuyer = new Account("exactBuyer", "exactBuyerPassword");
+        exactBuyer.deposit(reserved);
+
+        engine.submit(seller, Side.SELL, "BTC", 244_210_503L, price).get();
+        OrderResult result = engine.submit(exactBuyer, Side.BUY, "BTC", 249_297_219L, price).get();
+        assertEquals(0, exactBuyer.getAmountAvailableUnits(), "The fill should pay its total out of the reservation");
+
+        assertTrue(engine.cancel(exactBuyer, "BTC", result.orderId()).get(), "The rest of the buy should rest");
+        long paid = reserved - exactBuyer.getAmountAvailableUnits();
+        assertEquals(FixedPoint.multiply(244_210_503L, price), paid, "The buyer should pay exactly the fill total");
+        assertEquals(units(500.0) + paid, seller.getAmountAvailableUnits(),
+                "The seller should receive what the buyer paid");
+    }
+
+    @Test
+    void submit_buyWithoutEnoughMoney_shouldThrowInsufficientBalanceException() {
+        assertThrows(InsufficientBalanceException.class,
+                () -> engine.submit(buyer, Side.BUY, "BTC", units(20), units(100.0)),
+                "A buy that the balance cannot pay for should be refused before it reaches the book");
+    }
+
+    @Test
+    void submit_restingBuy_shouldReserveItsMoney()
+            throws InsufficientBalanceException, ExecutionException, InterruptedException {
+        OrderResult result = engine.submit(buyer, Side.BUY, "BTC", units(3), units(100.0)).get();
+
+        assertEquals(units(3), result.remainingAmount(), "A buy without a matching sell should rest");
+        assertEquals(700.0, buyer.getAmountAvailable(), "The money of a resting buy should be reserved");
+    }
+
+    @Test
+    void cancel_restingSell_shouldGiveTheCoinsBack()
+            throws InsufficientBalanceException, ExecutionException, InterruptedException {
+        OrderResult result = engine.submit(seller, Side.SELL, "BTC", units(2), units(100.0)).get();
+        assertEquals(units(3), seller.getCryptoCoins().get("BTC").getTotalAmount(),
+                "The coins of a resting sell should be reserved");
+
+        assertTrue(engine.cancel(seller, "BTC", result.orderId()).get(), "The seller should cancel their own order");
+        assertEquals(units(5), seller.getCryptoCoins().get("BTC").getTotalAmount(),
+                "Cancelling should give the reserved coins back");
+    }
+
+    @Test
+    void cancel_orderOfAnotherAccount_shouldNotCancelIt()
+            throws InsufficientBalanceException, ExecutionException, InterruptedException {
+        OrderResult result = engine.submit(seller, Side.SELL, "BTC", units(2), units(100.0)).get();
+
+        assertFalse(engine.cancel(buyer, "BTC", result.orderId()).get(),
+                "An account should not cancel the orders of another account");
+    }
+
+    private static long units(double value) {
+        return FixedPoint.fromDouble(value);
+    }
+}
@@ -0,0 +1,66 @@
+package crypto.wallet.manager.history;
+
+import crypto.wallet.manager.crypto.CryptoCoin;
+import crypto.wallet.manager.database.CryptoCoinsDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceHistoriesTest {
+    private CryptoCoinsDatabase cryptoCoinsDatabase;
+    private PriceHistories priceHistories;
+    private AtomicLong now;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong();
+        cryptoCoinsDatabase = new CryptoCoinsDatabase();
+        priceHistories = new PriceHistories(4, now::get);
+        cryptoCoinsDatabase.addPriceUpdateListener(priceHistories);
+    }
+
+    @Test
+    void onPricesUpdated_shouldRecordEveryChangedPriceAtTheRefreshTime() {
+        refresh(1_000, 100.0, 10.0);
+        refresh(2_000, 110.0, 10.0);
+
+        assertEquals(List.of(new PricePoint(1_000, new CryptoCoin("BTC", "Bitcoin", 100.0, 1).priceUnits()),
+                        new PricePoint(2_000, new CryptoCoin("BTC", "Bitcoin", 110.0, 1).priceUnits())),
+                priceHistories.find("BTC").orElseThrow().latest(10),
+                "Every price of the coin should be recorded with the time of its refresh");
+        assertEquals(1, priceHistories.find("ETH").orElseThrow().size(),
+                "A price that did not change should not be recorded again");
+    }
+
+    @Test
+    void describe_unknownCoin_shouldBeEmpty() {
+        refresh(1_000, 100.0, 10.0);
+
+        assertTrue(priceHistories.describe("DOGE", 10).isEmpty(), "A coin without history should not be described");
+    }
+
+    @Test
+    void describe_shouldListTheLatestPointsAndTheTrend() {
+        refresh(0, 100.0, 10.0);
+        refresh(1_800_000, 110.0, 10.0);
+
+        String expected = "Price history of BTC (last 1 of 2 points):" + System.lineSeparator() +
+                String.format("1970-01-01T00:30:00Z - %.2f US dollars", 110.0) + System.lineSeparator() +
+                String.format("Change: %+.2f US dollars (%+.2f%%)", 10.0, 10.0) + System.lineSeparator() +
+                String.format("Volatility: %.2f%% per change", 0.0);
+        assertEquals(expected, priceHistories.describe("BTC", 1).orElseThrow(),
+                "The description should list the requested points and the trend of the whole history");
+    }
+
+    private void refresh(long timestampMillis, double bitcoinPrice, double ethereumPrice) {
+        now.set(timestampMillis);
+        cryptoCoinsDatabase.updateCryptoCoinSet(Set.of(new CryptoCoin("BTC", "Bitcoin", bitcoinPrice, 1),
+                new CryptoCoin("ETH", "Ethereum", ethereumPrice, 1)));
+    }
+}
@@ -0,0 +1,113 @@
+package crypto.wallet.manager.history;
+
+import crypto.wallet.manager.money.FixedPoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PriceHistoryTest {
+
+    @Test
+    void add_fullRing_shouldOverwriteTheOldestPoint() {
+        PriceHistory history = new PriceHistory(3);
+        for (int i = 1; i <= 5; i++) {
+            history.add(i, i * FixedPoint.ONE);
+        }
+
+        assertEquals(List.of(new PricePoint(3, 3 * FixedPoint.ONE), new PricePoint(4, 4 * FixedPoint.ONE),
+                        new PricePoint(5, 5 * FixedPoint.ONE)), history.latest(10),
+                "Only the latest capacity points should be kept, oldest first");
+    }
+
+    @Test
+    void add_pastTheInitialArrays_shouldKeepEveryPoint() {
+        PriceHistory history = new PriceHistory(100);
+        for (int i = 1; i <= 40; i++) {
+            history.add(i, i * FixedPoint.ONE);
+        }
+
+        assertEquals(40, history.size(), "Every point should be kept until the capacity is reached");
+        assertEquals(new PricePoint(1, FixedPoint.ONE), history.latest(40).getFirst(),
+                "Growing the arrays should keep the oldest point first");
+    }
+
+    @Test
+    void latest_fewerPointsRequested_shouldReturnTheNewest() {
+        PriceHistory history = new PriceHistory(10);
+        history.add(1, 100);
+        history.add(2, 200);
+        history.add(3, 300);
+
+        assertEquals(List.of(new PricePoint(2, 200), new PricePoint(3, 300)), history.latest(2),
+                "The newest points should be returned, oldest first");
+    }
+
+    @Test
+    void statistics_shouldReportTheChangeOverTheWindow() {
+        PriceHistory history = new PriceHistory(3);
+        history.add(1, 100);
+        history.add(2, 150);
+        history.add(3, 120);
+        history.add(4, 180);
+
+        PriceStatistics statistics = history.statistics();
+        assertEquals(3, statistics.points(), "The statistics should cover the points held");
+        assertEquals(30, statistics.change(), "The change should be measured from the oldest point held");
+        assertEquals(0.2, statistics.relativeChange(), 1e-12, "The relative change should be a fraction");
+    }
+
+    @Test
+    void statistics_slidingWindow_shouldMatchAVolatilityComputedFromScratch() {
+        int capacity = 20;
+        PriceHistory history = new PriceHistory(capacity);
+        Random random = new Random(7);
+        long price = 1_000 * FixedPoint.ONE;
+
+        for (int i = 0; i < 1_000; i++) {
+            price = Math.max(1, price + (long) (random.nextGaussian() * 10 * FixedPoint.ONE));
+            history.add(i, price);
+        }
+
+        assertEquals(volatilityOf(history.latest(capacity)), history.statistics().volatility(), 1e-12,
+                "The incremental volatility should match the one computed from the points held");
+    }
+
+    @Test
+    void statistics_flatPrice_shouldHaveNoVolatility() {
+        PriceHistory history = new PriceHistory(5);
+        for (int i = 0; i < 12; i++) {
+            history.add(i, 100);
+        }
+
+        assertEquals(0.0, history.statistics().volatility(), "A flat price should have no volatility");
+    }
+
+    @Test
+    void add_nonPositivePrice_shouldThrowIllegalArgumentException() {
+        PriceHistory history = new PriceHistory(5);
+
+        assertThrows(IllegalArgumentException.class, () -> history.add(1, 0),
+                "A price must be positive");
+    }
+
+    private static double volatilityOf(List<PricePoint> points) {
+        double[] changes = new double[points.size() - 1];
+        double mean = 0;
+        for (int i = 1; i < points.size(); i++) {
+            long previous = points.get(i - 1).priceUnits();
+            changes[i - 1] = (double) (points.get(i).priceUnits() - previous) / previous;
+            mean += changes[i - 1] / changes.length;
+        }
+
+        double squares = 0;
+        for (double change : changes) {
+            squares += (change - mean) * (change - mean);
+        }
+
+        return Math.sqrt(squares / (changes.length - 1));
+    }
+}
@@ -0,0 +1,72 @@
+package crypto.wallet.manager.money;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FixedPointTest {
+
+    @Test
+    void fromDouble_decimalFraction_shouldBeExact() {
+        assertEquals(10_000_000L, FixedPoint.fromDouble(0.1), "0.1 should be exactly a tenth of a unit");
+        assertEquals(30_000_000L, FixedPoint.fromDouble(0.1) + FixedPoint.fromDouble(0.2),
+                "Adding amounts should not accumulate rounding errors");
+    }
+
+    @Test
+    void parse_moreDecimalsThanTheScale_shouldRoundHalfUp() {
+        assertEquals(1L, FixedPoint.parse("0.000000005"), "Half of the smallest unit should round up");
+        assertEquals(9_200_012_345_679L, FixedPoint.parse("92000.123456789123"),
+                "Prices should be read from their decimal text");
+    }
+
+    @Test
+    void multiply_smallProduct_shouldRoundHalfUp() {
+        assertEquals(FixedPoint.fromDouble(0.75), FixedPoint.multiply(FixedPoint.fromDouble(0.5),
+                FixedPoint.fromDouble(1.5)), "Half a coin at 1.5 should cost 0.75");
+        assertEquals(1L, FixedPoint.multiply(1L, 50_000_000L), "Half of the smallest unit should round up");
+    }
+
+    @Test
+    void multiply_productAboveLongRange_shouldKeepFullPrecision() {
+        long amount = FixedPoint.parse("123.45678901");
+        long price = FixedPoint.parse("98765.43210987");
+
+        assertEquals(expected(amount, price, FixedPoint.ONE), FixedPoint.multiply(amount, price),
+                "A product wider than 64 bits should still be exact");
+    }
+
+    @Test
+    void divide_largeDivisor_shouldKeepFullPrecision() {
+        long total = FixedPoint.parse("12345678.12345678");
+        long amount = FixedPoint.parse("3000.00000001");
+
+        assertEquals(expected(total, FixedPoint.ONE, amount), FixedPoint.divide(total, amount),
+                "Dividing by a divisor wider than 32 bits should still be exact");
+    }
+
+    @Test
+    void multiply_resultAboveLongRange_shouldThrowException() {
+        assertThrows(ArithmeticException.class, () -> FixedPoint.multiply(Long.MAX_VALUE, 2 * FixedPoint.ONE),
+                "A result that does not fit in a long should throw ArithmeticException");
+    }
+
+    @Test
+    void toPlainString_units_shouldPrintAllDecimals() {
+        assertEquals("1.50000000", FixedPoint.toPlainString(150_000_000L), "Amounts should print with the scale");
+    }
+
+    private static long expected(long a, long b, long divisor) {
+        BigInteger[] quotientAndRemainder = BigInteger.valueOf(a).multiply(BigInteger.valueOf(b))
+                .divideAndRemainder(BigInteger.valueOf(divisor));
+        BigInteger quotient = quotientAndRemainder[0];
+        if (quotientAndRemainder[1].shiftLeft(1).compareTo(BigInteger.valueOf(divisor)) >= 0) {
+            quotient = quotient.add(BigInteger.ONE);
+        }
+
+        return quotient.longValueExact();
+    }
+}
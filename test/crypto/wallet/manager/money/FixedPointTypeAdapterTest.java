@@ -0,0 +1,36 @@
+package crypto.wallet.manager.money;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import crypto.wallet.manager.crypto.CryptoCoin;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FixedPointTypeAdapterTest {
+    private final Gson gson = new Gson();
+
+    @Test
+    void read_validPrice_shouldKeepEveryDecimal() {
+        List<CryptoCoin> coins = parse("[{\"asset_id\":\"BTC\",\"price_usd\":92000.123456789}]");
+
+        assertEquals(9_200_012_345_679L, coins.getFirst().priceUnits(), "The price should be read from its text");
+    }
+
+    @Test
+    void read_invalidPrices_shouldOnlyZeroTheirOwnCoins() {
+        List<CryptoCoin> coins = parse("[{\"asset_id\":\"BAD\",\"price_usd\":\"junk\"}," +
+                "{\"asset_id\":\"HUGE\",\"price_usd\":1e300}," +
+                "{\"asset_id\":\"ODD\",\"price_usd\":{\"value\":1}}," +
+                "{\"asset_id\":\"BTC\",\"price_usd\":1.5}]");
+
+        assertEquals(List.of(0L, 0L, 0L, 150_000_000L), coins.stream().map(CryptoCoin::priceUnits).toList(),
+                "Bad prices should become 0 without failing the coins after them");
+    }
+
+    private List<CryptoCoin> parse(String json) {
+        return gson.fromJson(json, new TypeToken<List<CryptoCoin>>() { }.getType());
+    }
+}
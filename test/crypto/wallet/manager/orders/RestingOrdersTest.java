@@ -0,0 +1,105 @@
+package crypto.wallet.manager.orders;
+
+import crypto.wallet.manager.account.Account;
+import crypto.wallet.manager.crypto.CryptoCoin;
+import crypto.wallet.manager.database.CryptoCoinsDatabase;
+import crypto.wallet.manager.exceptions.InsufficientBalanceException;
+import crypto.wallet.manager.exceptions.InvalidCryptoCoinException;
+import crypto.wallet.manager.money.FixedPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RestingOrdersTest {
+    private CryptoCoinsDatabase cryptoCoinsDatabase;
+    private RestingOrders restingOrders;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        cryptoCoinsDatabase = new CryptoCoinsDatabase();
+        restingOrders = new RestingOrders(cryptoCoinsDatabase);
+        cryptoCoinsDatabase.addPriceUpdateListener(restingOrders);
+        setPrice(100.0);
+
+        account = new Account("orderUser", "orderPassword");
+        account.deposit(FixedPoint.fromDouble(1000.0));
+    }
+
+    @Test
+    void onPricesUpdated_priceFallsToLimit_shouldBuyAtTheNewPrice() throws InvalidCryptoCoinException {
+        restingOrders.place(account, OrderType.LIMIT_BUY, "BTC", FixedPoint.fromDouble(2), FixedPoint.fromDouble(90.0));
+
+        setPrice(95.0);
+        assertEquals(1000.0, account.getAmountAvailable(), "A limit buy should wait while the price is above it");
+
+        setPrice(80.0);
+        assertEquals(840.0, account.getAmountAvailable(), "A limit buy should buy once the price falls to it");
+        assertEquals(0, restingOrders.countOrders("BTC"), "An executed order should no longer rest");
+    }
+
+    @Test
+    void onPricesUpdated_priceRisesToLimit_shouldSellOnlyTheCrossedOrders()
+            throws InvalidCryptoCoinException, InsufficientBalanceException {
+        account.buyCryptoCoin(FixedPoint.fromDouble(2), "BTC", cryptoCoinsDatabase);
+        restingOrders.place(account, OrderType.LIMIT_SELL, "BTC", FixedPoint.fromDouble(1),
+                FixedPoint.fromDouble(110.0));
+        restingOrders.place(account, OrderType.LIMIT_SELL, "BTC", FixedPoint.fromDouble(1),
+                FixedPoint.fromDouble(130.0));
+
+        setPrice(120.0);
+
+        assertEquals(920.0, account.getAmountAvailable(), "Only the order below the new price should sell");
+        assertEquals(1, restingOrders.countOrders("BTC"), "The order above the new price should keep resting");
+    }
+
+    @Test
+    void onPricesUpdated_priceFallsToStop_shouldSell()
+            throws InvalidCryptoCoinException, InsufficientBalanceException {
+        account.buyCryptoCoin(FixedPoint.fromDouble(1), "BTC", cryptoCoinsDatabase);
+        restingOrders.place(account, OrderType.STOP_LOSS, "BTC", FixedPoint.fromDouble(1), FixedPoint.fromDouble(90.0));
+
+        setPrice(85.0);
+
+        assertEquals(985.0, account.getAmountAvailable(), "A stop loss should sell once the price falls to it");
+        assertFalse(account.getCryptoCoins().containsKey("BTC"), "The stopped out coins should be sold");
+    }
+
+    @Test
+    void place_triggerAlreadyReached_shouldExecuteRightAway() throws InvalidCryptoCoinException {
+        restingOrders.place(account, OrderType.LIMIT_BUY, "BTC", FixedPoint.fromDouble(1),
+                FixedPoint.fromDouble(150.0));
+
+        assertTrue(account.getCryptoCoins().containsKey("BTC"), "A limit buy above the price should buy at once");
+        assertEquals(0, restingOrders.countOrders("BTC"), "An executed order should not rest");
+    }
+
+    @Test
+    void onPricesUpdated_orderCannotBePaid_shouldDropTheOrder() throws InvalidCryptoCoinException {
+        restingOrders.place(account, OrderType.LIMIT_BUY, "BTC", FixedPoint.fromDouble(100),
+                FixedPoint.fromDouble(90.0));
+
+        setPrice(80.0);
+
+        assertEquals(1000.0, account.getAmountAvailable(), "An order that cannot be paid for should not buy");
+        assertEquals(0, restingOrders.countOrders("BTC"), "A failed order should not rest any longer");
+    }
+
+    @Test
+    void place_unknownCoin_shouldThrowException() {
+        assertThrows(InvalidCryptoCoinException.class,
+                () -> restingOrders.place(account, OrderType.LIMIT_BUY, "XYZ", FixedPoint.fromDouble(1),
+                        FixedPoint.fromDouble(1.0)),
+                "Placing an order for an unknown coin should throw InvalidCryptoCoinException");
+    }
+
+    private void setPrice(double priceUSD) {
+        cryptoCoinsDatabase.updateCryptoCoinSet(Set.of(new CryptoCoin("BTC", "Bitcoin", priceUSD, 1)));
+    }
+}
@@ -0,0 +1,232 @@
+package crypto.wallet.manager.protocol;
+
+import crypto.wallet.manager.account.CostBasisMethod;
+import crypto.wallet.manager.commands.Command;
+import crypto.wallet.manager.commands.CommandType;
+import crypto.wallet.manager.commands.TypedArguments;
+import crypto.wallet.manager.database.CoinSortOrder;
+import crypto.wallet.manager.exceptions.ParseException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static crypto.wallet.manager.commands.CommandErrorMessageType.INSUFFICIENT_AMOUNT;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinaryProtocolTest {
+
+    @Test
+    void decode_login_shouldReadBothStrings() {
+        ByteBuffer frame = ByteBuffer.allocate(64);
+        frame.put(CommandType.LOGIN.getOpcode());
+        BinaryProtocol.writeString(frame, "user");
+        BinaryProtocol.writeString(frame, "päss");
+        frame.flip();
+
+        Command command = BinaryProtocol.decode(frame);
+
+        assertEquals(CommandType.LOGIN, command.type(), "Command type should be LOGIN");
+        assertArrayEquals(new String[] {"user", "päss"}, command.arguments(),
+                "Command arguments should be the decoded strings");
+    }
+
+    @Test
+    void decode_deposit_shouldKeepFixedPointAmount() {
+        ByteBuffer frame = ByteBuffer.allocate(16);
+        frame.put(CommandType.DEPOSIT.getOpcode()).putLong(12_345_000_000L).flip();
+
+        Command command = BinaryProtocol.decode(frame);
+
+        assertEquals(CommandType.DEPOSIT, command.type(), "Command type should be DEPOSIT");
+        assertEquals(new TypedArguments.Amount(12_345_000_000L), command.typedArguments(),
+                "The amount should be passed on as fixed point units");
+    }
+
+    @Test
+    void decode_subscribe_shouldReadAllCoinCodes() {
+        ByteBuffer frame = ByteBuffer.allocate(16);
+        frame.put(CommandType.SUBSCRIBE.getOpcode()).put((byte) 2);
+        BinaryProtocol.writeCoinCode(frame, "BTC");
+        BinaryProtocol.writeCoinCode(frame, "ETH");
+        frame.flip();
+
+        Command command = BinaryProtocol.decode(frame);
+
+        assertEquals(CommandType.SUBSCRIBE, command.type(), "Command type should be SUBSCRIBE");
+        assertArrayEquals(new String[] {"BTC", "ETH"}, command.arguments(),
+                "Command arguments should be the decoded offering codes");
+    }
+
+    @Test
+    void encodePriceUpdate_price_shouldWriteCodeAndFixedPointPrice() {
+        ByteBuffer frame = BinaryProtocol.encodePriceUpdate("BTC", 12_345_000_000L);
+
+        assertEquals(frame.remaining() - BinaryProtocol.LENGTH_FIELD_SIZE, frame.getInt(),
+                "The length field should count the bytes after it");
+        assertEquals(BinaryProtocol.STATUS_PRICE_UPDATE, frame.get(), "The status should mark a price update");
+        assertEquals(3, frame.get(), "The offering code length should follow the status");
+        frame.position(frame.position() + 3);
+        assertEquals(12_345_000_000L, frame.getLong(), "The price should be sent as a fixed point amount");
+    }
+
+    @Test
+    void decode_sameCoinCodeTwice_shouldReturnInternedCode() {
+        ByteBuffer first = sellFrame("eth");
+        ByteBuffer second = sellFrame("eth");
+
+        assertSame(BinaryProtocol.decode(first).arguments()[0], BinaryProtocol.decode(second).arguments()[0],
+                "Decoding the same offering code should return the same String instance");
+    }
+
+    @Test
+    void decode_sellWithAmountAndMethod_shouldReturnPartialSellArguments() {
+        ByteBuffer frame = ByteBuffer.allocate(32);
+        frame.put(CommandType.SELL_CRYPTO.getOpcode());
+        BinaryProtocol.writeCoinCode(frame, "BTC");
+        frame.putLong(150_000_000L).put((byte) CostBasisMethod.LIFO.ordinal()).flip();
+
+        assertEquals(new TypedArguments.Sell("BTC", 150_000_000L, CostBasisMethod.LIFO),
+                BinaryProtocol.decode(frame).typedArguments(),
+                "A sell with an amount and a method should decode to typed arguments");
+    }
+
+    @Test
+    void decode_multi_shouldReadEveryToken() {
+        ByteBuffer frame = ByteBuffer.allocate(64);
+        frame.put(CommandType.MULTI.getOpcode());
+        for (String token : new String[] {"deposit", "10", ";", "buy_crypto", "BTC", "1", "exec"}) {
+            BinaryProtocol.writeString(frame, token);
+        }
+        frame.flip();
+
+        assertArrayEquals(new String[] {"deposit", "10", ";", "buy_crypto", "BTC", "1", "exec"},
+                BinaryProtocol.decode(frame).arguments(), "A multi command should decode to its text tokens");
+    }
+
+    @Test
+    void decode_stopLoss_shouldReadCodeAmountAndPrice() {
+        ByteBuffer frame = ByteBuffer.allocate(32);
+        frame.put(CommandType.STOP_LOSS.getOpcode());
+        BinaryProtocol.writeCoinCode(frame, "BTC");
+        frame.putLong(100_000_000L).putLong(4_500_000_000_000L).flip();
+
+        assertEquals(new TypedArguments.Order("BTC", 100_000_000L, 4_500_000_000_000L),
+                BinaryProtocol.decode(frame).typedArguments(), "A stop loss should decode to typed arguments");
+    }
+
+    @Test
+    void decode_exchangeCancel_shouldReadCodeAndOrderId() {
+        ByteBuffer frame = ByteBuffer.allocate(16);
+        frame.put(CommandType.EXCHANGE_CANCEL.getOpcode());
+        BinaryProtocol.writeCoinCode(frame, "ETH");
+        frame.putLong(42L).flip();
+
+        assertEquals(new TypedArguments.OrderId("ETH", 42L), BinaryProtocol.decode(frame).typedArguments(),
+                "An exchange cancel should decode to the offering code and the order id");
+    }
+
+    @Test
+    void decode_listCryptosPage_shouldReadPageSizeAndOrder() {
+        ByteBuffer frame = ByteBuffer.allocate(16);
+        frame.put(CommandType.LIST_CRYPTOS.getOpcode()).putInt(3).putShort((short) 50)
+                .put((byte) CoinSortOrder.PRICE.ordinal()).flip();
+
+        assertEquals(new TypedArguments.Page(3, 50, CoinSortOrder.PRICE), BinaryProtocol.decode(frame).typedArguments(),
+                "A paged list_cryptos should decode to the page, the size and the order");
+    }
+
+    @Test
+    void decode_topWithOrder_shouldReadCountAndOrder() {
+        ByteBuffer frame = ByteBuffer.allocate(8);
+        frame.put(CommandType.TOP.getOpcode()).putShort((short) 10).put((byte) CoinSortOrder.NAME.ordinal()).flip();
+
+        assertEquals(new TypedArguments.Top(10, CoinSortOrder.NAME), BinaryProtocol.decode(frame).typedArguments(),
+                "A top should decode to the count and the sort order");
+    }
+
+    @Test
+    void decode_historyWithPoints_shouldReadCodeAndPoints() {
+        ByteBuffer frame = ByteBuffer.allocate(16);
+        frame.put(CommandType.HISTORY.getOpcode());
+        BinaryProtocol.writeCoinCode(frame, "BTC");
+        frame.putShort((short) 48).flip();
+
+        assertEquals(new TypedArguments.History("BTC", 48), BinaryProtocol.decode(frame).typedArguments(),
+                "A history should decode to the code and the number of points");
+    }
+
+    @Test
+    void decode_historyWithoutPoints_shouldUseDefaultPoints() {
+        ByteBuffer frame = ByteBuffer.allocate(16);
+        frame.put(CommandType.HISTORY.getOpcode());
+        BinaryProtocol.writeCoinCode(frame, "BTC");
+        frame.flip();
+
+        assertEquals(new TypedArguments.History("BTC", TypedArguments.History.DEFAULT_POINTS),
+                BinaryProtocol.decode(frame).typedArguments(), "A history without points should use the default");
+    }
+
+    @Test
+    void decode_longLowercaseCode_shouldBeUppercased() {
+        ByteBuffer frame = ByteBuffer.allocate(32);
+        frame.put(CommandType.SUBSCRIBE.getOpcode()).put((byte) 2);
+        BinaryProtocol.writeCoinCode(frame, "btc");
+        BinaryProtocol.writeCoinCode(frame, "longcoincode");
+        frame.flip();
+
+        assertArrayEquals(new String[] {"BTC", "LONGCOINCODE"}, BinaryProtocol.decode(frame).arguments(),
+                "Codes of every length should be uppercased");
+    }
+
+    @Test
+    void decode_truncatedFrame_shouldThrowParseException() {
+        ByteBuffer frame = ByteBuffer.allocate(4);
+        frame.put(CommandType.DEPOSIT.getOpcode()).put((byte) 1).flip();
+
+        assertThrows(ParseException.class, () -> BinaryProtocol.decode(frame),
+                "A frame shorter than its fields should throw ParseException");
+    }
+
+    @Test
+    void decode_unknownOpcode_shouldReturnUnknownCommand() {
+        ByteBuffer frame = ByteBuffer.allocate(1);
+        frame.put((byte) 0x7F).flip();
+
+        assertEquals(CommandType.UNKNOWN, BinaryProtocol.decode(frame).type(), "Command type should be UNKNOWN");
+    }
+
+    @Test
+    void encodeStatus_knownMessage_shouldSendOnlyItsCode() {
+        ByteBuffer response = BinaryProtocol.encodeStatus(INSUFFICIENT_AMOUNT);
+
+        assertEquals(1, response.getInt(), "The response should only contain the status");
+        assertEquals(INSUFFICIENT_AMOUNT.getCode(), response.get(), "The status should be the message code");
+    }
+
+    @Test
+    void encodeStatus_sameMessageTwice_shouldShareContentButNotPosition() {
+        ByteBuffer first = BinaryProtocol.encodeStatus(INSUFFICIENT_AMOUNT);
+        first.position(first.limit());
+
+        assertEquals(5, BinaryProtocol.encodeStatus(INSUFFICIENT_AMOUNT).remaining(),
+                "Consuming one response should not affect the next one");
+    }
+
+    @Test
+    void encodeOkHeader_shouldCountStatusAndPayload() {
+        ByteBuffer header = BinaryProtocol.encodeOkHeader(10);
+
+        assertEquals(11, header.getInt(), "The length should include the status byte");
+        assertEquals(BinaryProtocol.STATUS_OK, header.get(), "The status should be OK");
+    }
+
+    private ByteBuffer sellFrame(String offeringCode) {
+        ByteBuffer frame = ByteBuffer.allocate(16);
+        frame.put(CommandType.SELL_CRYPTO.getOpcode());
+        BinaryProtocol.writeCoinCode(frame, offeringCode);
+        return frame.flip();
+    }
+}
@@ -0,0 +1,31 @@
+package crypto.wallet.manager.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CoinCodeInternerTest {
+
+    @Test
+    void intern_longerCodeEndingInSameBytes_shouldNotBeReturnedForShortCode() {
+        CoinCodeInterner interner = new CoinCodeInterner();
+        byte[] longerCode = {0x0B, 0, 0, 0, 0, 'B', 'T', 'C'};
+
+        interner.intern(ByteBuffer.wrap(longerCode), longerCode.length);
+        ByteBuffer shortCode = ByteBuffer.wrap(new byte[] {'B', 'T', 'C'});
+
+        assertEquals("BTC", interner.intern(shortCode, 3),
+                "Codes of different lengths should not share a cache entry");
+        assertEquals(3, shortCode.position(), "Interning should consume the code");
+    }
+
+    @Test
+    void intern_lowercaseCode_shouldBeUppercased() {
+        CoinCodeInterner interner = new CoinCodeInterner();
+
+        assertEquals("ETH", interner.intern(ByteBuffer.wrap(new byte[] {'e', 't', 'h'}), 3),
+                "Interned codes should be upper case");
+    }
+}
@@ -0,0 +1,36 @@
+package crypto.wallet.manager.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdmissionControllerTest {
+
+    @Test
+    public void tryAcquireToken_burstExhausted_shouldRejectOnlyThatAddress() throws UnknownHostException {
+        AdmissionController controller = new AdmissionController(new AdmissionConfiguration(0.001, 1));
+        InetAddress first = InetAddress.getByAddress(new byte[] {10, 0, 0, 1});
+        InetAddress second = InetAddress.getByAddress(new byte[] {10, 0, 0, 2});
+
+        assertTrue(controller.tryAcquireToken(first), "The first command of an address should be admitted");
+        assertFalse(controller.tryAcquireToken(first), "A command past the burst should be refused");
+        assertTrue(controller.tryAcquireToken(second), "Another address should have its own bucket");
+    }
+
+    @Test
+    public void tryAcquireToken_manyAddresses_shouldTrackBoundedNumber() throws UnknownHostException {
+        AdmissionController controller = new AdmissionController(new AdmissionConfiguration(0.001, 1));
+        for (int i = 0; i <= AdmissionController.MAX_TRACKED_ADDRESSES; i++) {
+            byte[] address = {10, (byte) (i >> 16), (byte) (i >> 8), (byte) i};
+            controller.tryAcquireToken(InetAddress.getByAddress(address));
+        }
+
+        assertEquals(AdmissionController.MAX_TRACKED_ADDRESSES, controller.trackedAddresses(),
+                "The bucket of the address seen least recently should be forgotten");
+    }
+}
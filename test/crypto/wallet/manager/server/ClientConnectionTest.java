@@ -0,0 +1,130 @@
+package crypto.wallet.manager.server;
+
+import crypto.wallet.manager.commands.Command;
+import crypto.wallet.manager.commands.CommandType;
+import crypto.wallet.manager.commands.TypedArguments;
+import crypto.wallet.manager.database.CryptoCoinsDatabase;
+import crypto.wallet.manager.protocol.BinaryProtocol;
+import crypto.wallet.manager.protocol.ProtocolType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientConnectionTest {
+    private static final int BUFFER_SIZE = 64;
+
+    private ByteBuffer input;
+    private ClientConnection connection;
+
+    @BeforeEach
+    void setUp() {
+        input = ByteBuffer.allocate(BUFFER_SIZE);
+        connection = new ClientConnection(null, null, input,
+                new ResponseEncoder(new CryptoCoinsDatabase()), BUFFER_SIZE);
+    }
+
+    @Test
+    void nextCommand_incompleteCommand_shouldReturnNull() {
+        input.put("wallet_inf".getBytes(StandardCharsets.UTF_8));
+
+        assertNull(connection.nextCommand(), "A command without a delimiter should not be returned");
+    }
+
+    @Test
+    void nextCommand_commandSplitAcrossReads_shouldReturnWholeCommand() {
+        input.put("wallet_inf".getBytes(StandardCharsets.UTF_8));
+        assertNull(connection.nextCommand(), "A command without a delimiter should not be returned");
+
+        input.put("ormation\n".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(new Command(CommandType.WALLET_INFORMATION, null), connection.nextCommand(),
+                "The parts of a command should be joined once the delimiter arrives");
+    }
+
+    @Test
+    void nextCommand_mergedCommands_shouldReturnThemOneByOne() {
+        input.put("deposit 10\r\nhelp\nlist".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(new Command(CommandType.DEPOSIT, new String[] {"10"}), connection.nextCommand(),
+                "The carriage return should be stripped");
+        assertEquals(new Command(CommandType.HELP, null), connection.nextCommand(),
+                "The second command should follow the first one");
+        assertNull(connection.nextCommand(), "The incomplete third command should stay buffered");
+        assertEquals(4, input.position(), "Only the incomplete command should remain in the buffer");
+    }
+
+    @Test
+    void nextCommands_pipelinedCommands_shouldReturnThemInOrderUpToTheLimit() {
+        input.put("deposit 10\nbuy_crypto BTC 1\nhelp\n".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(List.of(new Command(CommandType.DEPOSIT, new String[] {"10"}),
+                        new Command(CommandType.BUY_CRYPTO, new String[] {"BTC", "1"})),
+                connection.nextCommands(2), "The first two pipelined commands should be returned in order");
+        assertEquals(List.of(new Command(CommandType.HELP, null)), connection.nextCommands(2),
+                "The remaining pipelined command should be returned on the next call");
+        assertTrue(connection.nextCommands(2).isEmpty(), "No commands should remain");
+        assertEquals(ProtocolType.TEXT, connection.getProtocol(), "The connection should use the text protocol");
+    }
+
+    @Test
+    void nextCommands_binaryClient_shouldDecodeLengthPrefixedCommands() {
+        input.put(BinaryProtocol.MAGIC);
+        input.putInt(1 + 1 + 3 + Long.BYTES).put(CommandType.BUY_CRYPTO.getOpcode());
+        BinaryProtocol.writeCoinCode(input, "btc");
+        input.putLong(150_000_000L);
+        input.putInt(1);
+
+        assertEquals(List.of(new Command(CommandType.BUY_CRYPTO, null,
+                        new TypedArguments.CoinAmount("BTC", 150_000_000L))),
+                connection.nextCommands(2), "The complete binary command should be decoded");
+        assertEquals(ProtocolType.BINARY, connection.getProtocol(), "The connection should use the binary protocol");
+
+        input.put(CommandType.HELP.getOpcode());
+
+        assertEquals(List.of(new Command(CommandType.HELP, null)), connection.nextCommands(2),
+                "The second command should be decoded once its last byte arrives");
+    }
+
+    @Test
+    void isFrameTooLong_binaryLengthAboveBufferSize_shouldBeTooLong() {
+        input.put(BinaryProtocol.MAGIC).putInt(BUFFER_SIZE * 2);
+
+        assertTrue(connection.nextCommands(1).isEmpty(), "The oversized command should not be decoded");
+        assertTrue(connection.isFrameTooLong(), "A command longer than the buffer should be rejected");
+        connection.rejectOversizedFrame();
+        assertTrue(connection.isCloseAfterFlush(), "A binary connection should be closed after an oversized frame");
+    }
+
+    @Test
+    void isInputFull_commandLongerThanBuffer_shouldBeFull() {
+        input.put(new byte[BUFFER_SIZE]);
+
+        assertTrue(connection.isInputFull(), "The input should be full");
+        connection.discardInput();
+        assertFalse(connection.isInputFull(), "Discarding the input should free the buffer");
+    }
+
+    @Test
+    void canProcessNextCommand_commandInFlight_shouldNotProcess() {
+        connection.setCommandInFlight(true);
+
+        assertFalse(connection.canProcessNextCommand(), "Only one command per connection should be in flight");
+    }
+
+    @Test
+    void canProcessNextCommand_outboundAboveWatermark_shouldNotProcess() {
+        connection.enqueue(ByteBuffer.allocate(BUFFER_SIZE));
+
+        assertFalse(connection.canProcessNextCommand(),
+                "A client that does not read its responses should not get new commands executed");
+        assertTrue(connection.hasPendingOutput(), "The response should be queued");
+    }
+}
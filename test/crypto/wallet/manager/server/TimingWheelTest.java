@@ -0,0 +1,92 @@
+package crypto.wallet.manager.server;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+    private static final long TICK_MILLIS = 100;
+    private static final int WHEEL_SIZE = 8;
+
+    private TimingWheel<String> timingWheel;
+    private List<String> expired;
+
+    @BeforeEach
+    void setUp() {
+        timingWheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, 0);
+        expired = new ArrayList<>();
+    }
+
+    @Test
+    void advance_beforeDeadline_shouldNotExpire() {
+        timingWheel.schedule("client", 300);
+
+        timingWheel.advance(299, expired::add);
+
+        assertTrue(expired.isEmpty(), "A timeout should not fire before its deadline");
+        assertEquals(1, timingWheel.getPendingTimeouts(), "The timeout should still be pending");
+    }
+
+    @Test
+    void advance_afterDeadline_shouldExpireOnce() {
+        TimingWheel.Timeout<String> timeout = timingWheel.schedule("client", 300);
+
+        timingWheel.advance(300, expired::add);
+        timingWheel.advance(5000, expired::add);
+
+        assertEquals(List.of("client"), expired, "The timeout should fire exactly once");
+        assertFalse(timeout.isPending(), "An expired timeout should not be pending");
+    }
+
+    @Test
+    void advance_delayLongerThanOneRotation_shouldWaitForTheRightRound() {
+        timingWheel.schedule("client", TICK_MILLIS * WHEEL_SIZE * 2 + TICK_MILLIS);
+
+        timingWheel.advance(TICK_MILLIS * WHEEL_SIZE * 2, expired::add);
+        assertTrue(expired.isEmpty(), "A timeout should survive the rotations before its deadline");
+
+        timingWheel.advance(TICK_MILLIS * WHEEL_SIZE * 2 + TICK_MILLIS, expired::add);
+        assertEquals(List.of("client"), expired, "The timeout should fire on its own rotation");
+    }
+
+    @Test
+    void reschedule_pendingTimeout_shouldMoveTheDeadline() {
+        TimingWheel.Timeout<String> timeout = timingWheel.schedule("client", 200);
+        timingWheel.advance(100, expired::add);
+
+        timingWheel.reschedule(timeout, 500);
+        timingWheel.advance(500, expired::add);
+        assertTrue(expired.isEmpty(), "Activity should push the deadline back");
+
+        timingWheel.advance(600, expired::add);
+        assertEquals(List.of("client"), expired, "The timeout should fire at the new deadline");
+    }
+
+    @Test
+    void cancel_pendingTimeouts_shouldKeepTheOthers() {
+        TimingWheel.Timeout<String> first = timingWheel.schedule("first", 200);
+        timingWheel.schedule("second", 200);
+        TimingWheel.Timeout<String> third = timingWheel.schedule("third", 200);
+
+        timingWheel.cancel(first);
+        timingWheel.cancel(third);
+        timingWheel.cancel(third);
+        timingWheel.advance(200, expired::add);
+
+        assertEquals(List.of("second"), expired, "Only the timeout that was not cancelled should fire");
+        assertEquals(0, timingWheel.getPendingTimeouts(), "No timeouts should remain");
+    }
+
+    @Test
+    void constructor_wheelSizeNotPowerOfTwo_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<String>(TICK_MILLIS, 10, 0),
+                "A wheel size that is not a power of two should throw IllegalArgumentException");
+    }
+}
@@ -0,0 +1,28 @@
+package crypto.wallet.manager.server;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenBucketTest {
+    private static final long ONE_SECOND = 1_000_000_000L;
+
+    @Test
+    public void tryAcquire_burstExhausted_shouldReject() {
+        TokenBucket bucket = new TokenBucket(2, 1, 0);
+
+        assertTrue(bucket.tryAcquire(0), "First token of the burst should be granted");
+        assertTrue(bucket.tryAcquire(0), "Second token of the burst should be granted");
+        assertFalse(bucket.tryAcquire(0), "A request past the burst should be rejected");
+    }
+
+    @Test
+    public void tryAcquire_afterRefill_shouldGrant() {
+        TokenBucket bucket = new TokenBucket(1, 2, 0);
+        bucket.tryAcquire(0);
+
+        assertFalse(bucket.tryAcquire(ONE_SECOND / 4), "Half a token should not be enough");
+        assertTrue(bucket.tryAcquire(ONE_SECOND / 2), "A whole token should have been refilled");
+    }
+}
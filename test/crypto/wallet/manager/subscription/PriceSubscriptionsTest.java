@@ -0,0 +1,99 @@
+package crypto.wallet.manager.subscription;
+
+import crypto.wallet.manager.crypto.CryptoCoin;
+import crypto.wallet.manager.protocol.ProtocolType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.channels.SelectionKey;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class PriceSubscriptionsTest {
+    private static final CryptoCoin BITCOIN = new CryptoCoin("BTC", "Bitcoin", 49000.5, 1);
+    private static final CryptoCoin ETHEREUM = new CryptoCoin("ETH", "Ethereum", 3000.0, 1);
+
+    private final SelectionKey firstKey = mock(SelectionKey.class);
+    private final SelectionKey secondKey = mock(SelectionKey.class);
+    private PriceSubscriptions priceSubscriptions;
+    private RecordingSink sink;
+
+    private record Pushed(SelectionKey subscriber, PriceUpdateFrame frame) {
+    }
+
+    private static class RecordingSink implements PriceUpdateSink {
+        private final List<Pushed> pushed = new ArrayList<>();
+        private int completedRefreshes;
+
+        @Override
+        public void push(SelectionKey subscriber, PriceUpdateFrame frame) {
+            pushed.add(new Pushed(subscriber, frame));
+        }
+
+        @Override
+        public void pushCompleted() {
+            completedRefreshes++;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        priceSubscriptions = new PriceSubscriptions();
+        sink = new RecordingSink();
+        priceSubscriptions.setSink(sink);
+    }
+
+    @Test
+    void onPricesUpdated_subscribedCoinChanged_shouldPushEncodedPrice() {
+        priceSubscriptions.subscribe(firstKey, List.of("BTC"));
+
+        priceSubscriptions.onPricesUpdated(List.of(BITCOIN));
+
+        assertEquals(1, sink.pushed.size(), "The subscriber should get one update");
+        assertSame(firstKey, sink.pushed.get(0).subscriber(), "The update should go to the subscriber");
+        assertEquals("price BTC 49000.50000000\n", StandardCharsets.UTF_8.decode(
+                sink.pushed.get(0).frame().encodedFor(ProtocolType.TEXT)).toString(),
+                "The text update should contain the code and the price");
+        assertEquals(1, sink.completedRefreshes, "The sink should be told once that the refresh is pushed");
+    }
+
+    @Test
+    void onPricesUpdated_otherCoinChanged_shouldNotPush() {
+        priceSubscriptions.subscribe(firstKey, List.of("BTC"));
+
+        priceSubscriptions.onPricesUpdated(List.of(ETHEREUM));
+
+        assertTrue(sink.pushed.isEmpty(), "Subscribers of other coins should not get the update");
+        assertEquals(0, sink.completedRefreshes, "Nothing was pushed, so the sink should not be woken up");
+    }
+
+    @Test
+    void onPricesUpdated_twoSubscribers_shouldShareOneFrame() {
+        priceSubscriptions.subscribe(firstKey, List.of("BTC"));
+        priceSubscriptions.subscribe(secondKey, List.of("BTC", "ETH"));
+
+        priceSubscriptions.onPricesUpdated(List.of(BITCOIN));
+
+        assertEquals(2, sink.pushed.size(), "Both subscribers should get the update");
+        assertSame(sink.pushed.get(0).frame(), sink.pushed.get(1).frame(),
+                "The update should be encoded once for all subscribers");
+    }
+
+    @Test
+    void unsubscribeAll_subscribedKey_shouldStopUpdates() {
+        priceSubscriptions.subscribe(firstKey, List.of("BTC", "ETH"));
+
+        priceSubscriptions.unsubscribeAll(firstKey);
+        priceSubscriptions.onPricesUpdated(List.of(BITCOIN, ETHEREUM));
+
+        assertTrue(sink.pushed.isEmpty(), "A connection that left should not get updates");
+        assertTrue(priceSubscriptions.getSubscriptions(firstKey).isEmpty(),
+                "The connection should have no subscriptions left");
+    }
+}